@@ -0,0 +1,50 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Benchmarks the WPILib kinematics calls on the drive path, so a change in
+ * their cost or allocation rate shows up before it reaches the robot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DriveKinematicsBenchmark {
+  private final ChassisSpeeds m_speeds = new ChassisSpeeds(2.5, -1.2, 1.8);
+  private final SwerveModuleState m_desiredState = new SwerveModuleState(3.0, Rotation2d.fromDegrees(170));
+  private final Rotation2d m_currentAngle = Rotation2d.fromDegrees(-20);
+
+  @Benchmark
+  public SwerveModuleState[] toSwerveModuleStates() {
+    return DriveConstants.kDriveKinematics.toSwerveModuleStates(m_speeds);
+  }
+
+  @Benchmark
+  public SwerveModuleState[] toSwerveModuleStatesDesaturated() {
+    SwerveModuleState[] states = DriveConstants.kDriveKinematics.toSwerveModuleStates(m_speeds);
+    SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveConstants.kMaxSpeedMetersPerSecond);
+    return states;
+  }
+
+  @Benchmark
+  public SwerveModuleState optimize() {
+    return SwerveModuleState.optimize(m_desiredState, m_currentAngle);
+  }
+}
@@ -0,0 +1,87 @@
+package frc.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Benchmarks the rate-limited polar math used by DriveSubsystem.drive() and
+ * the SwerveUtils helpers it is built on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SwerveSlewLimiterBenchmark {
+    // Joystick inputs cycled through so every branch of the limiter is hit
+    private static final double[][] kInputs = {
+            { 0.8, 0.1, 0.2 }, // small direction change
+            { -0.7, -0.2, -0.5 }, // reversal
+            { 0.1, 0.9, 0.0 }, // ~90 degree turn
+            { 0.0, 0.0, 0.0 } // release
+    };
+
+    // Angles in radians for the SwerveUtils helpers, read from fields and
+    // cycled per call so the JIT cannot fold the pure static methods into
+    // constants. They cover both wrap directions and both sides of pi.
+    private double[] m_angles = { 3.0, -3.0, 0.2, 5.9, -7.5, 7.0, 1.6, -1.6 };
+    private double m_step = 0.05;
+    private int m_angleIndex;
+
+    private SwerveSlewLimiter m_limiter;
+    private double m_time;
+    private int m_index;
+
+    @Setup
+    public void setup() {
+        m_limiter = new SwerveSlewLimiter(
+                DriveConstants.kDirectionSlewRate,
+                DriveConstants.kMagnitudeSlewRate,
+                DriveConstants.kRotationalSlewRate,
+                0.0);
+        m_time = 0.0;
+        m_index = 0;
+        m_angleIndex = 0;
+    }
+
+    private double nextAngle() {
+        double angle = m_angles[m_angleIndex];
+        m_angleIndex = (m_angleIndex + 1) % m_angles.length;
+        return angle;
+    }
+
+    @Benchmark
+    public void slewLimiterCalculate(Blackhole bh) {
+        double[] input = kInputs[m_index];
+        m_index = (m_index + 1) % kInputs.length;
+        m_time += 0.02;
+
+        m_limiter.calculate(input[0], input[1], input[2], m_time);
+        bh.consume(m_limiter.getXSpeed());
+        bh.consume(m_limiter.getYSpeed());
+        bh.consume(m_limiter.getRotation());
+    }
+
+    @Benchmark
+    public double stepTowardsCircular() {
+        return SwerveUtils.StepTowardsCircular(nextAngle(), nextAngle(), m_step);
+    }
+
+    @Benchmark
+    public double wrapAngle() {
+        return SwerveUtils.WrapAngle(nextAngle());
+    }
+
+    @Benchmark
+    public double angleDifference() {
+        return SwerveUtils.AngleDifference(nextAngle(), nextAngle());
+    }
+}
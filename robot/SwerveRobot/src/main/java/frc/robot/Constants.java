@@ -36,7 +36,57 @@ public final class Constants {
     public static final boolean kLimelightTuning = true;
   }
 
+  public static final class ProfilerConstants {
+    // A robotPeriodic() longer than this counts as a loop overrun
+    public static final double kLoopBudgetMs = 20.0;
+    // Publish the timing summary once a second
+    public static final int kPublishPeriodLoops = 50;
+  }
+
+  public static final class TelemetryConstants {
+    // How many loops between publishes for each Telemetry priority tier
+    public static final int kHighPeriodLoops = 1;
+    public static final int kNormalPeriodLoops = 5;
+    public static final int kLowPeriodLoops = 25;
+  }
+
+  public static final class StatusFrameConstants {
+    // SPARK MAX periodic status frame periods, in ms. Unused frames go as slow
+    // as the firmware allows.
+    public static final int kFastMs = 10;
+    public static final int kNormalMs = 20;
+    public static final int kSlowMs = 100;
+    public static final int kUnusedMs = 65535;
+
+    // How often to check for controller resets
+    public static final double kCheckPeriodSeconds = 1;
+    // How long after the last profile is applied to measure bus utilization
+    public static final double kSettleSeconds = 2;
+  }
+
+  public static final class SetpointConstants {
+    // Smallest setpoint change worth a CAN frame, in each setpoint's units
+    public static final double kDriveVelocityEpsilon = 0.005; // m/s
+    public static final double kTurnPositionEpsilon = 0.002; // radians
+    public static final double kArmPositionEpsilon = 0.01; // motor rotations
+    public static final double kDutyCycleEpsilon = 0.001;
+
+    // Resend an unchanged setpoint at least this often, in case a frame was
+    // lost or the controller reset
+    public static final double kKeepAliveSeconds = 0.5;
+  }
+
+  public static final class DataLoggerConstants {
+    // Records buffered between flushes, ~1 s of 20 channels at 200 Hz
+    public static final int kBufferSize = 4096;
+    public static final int kMaxValues = 8;
+    public static final int kMaxChannels = 128;
+    public static final double kFlushPeriodSeconds = 0.1;
+  }
+
   public static final class SubsystemMotorConstants {
+    // Longest robotInit waits for SPARK MAX configuration
+    public static final double kConfigTimeoutSeconds = 2;
     public static final int kMotorCurrentLimit = 30;
     public static final int kMotorCurrentLimit550 = 30;
   }
@@ -127,6 +177,10 @@ public final class Constants {
 
     public static double kExtensionConeRetractDistance = 5;
 
+    // Motion profile limits, in encoder revolutions per second (squared)
+    public static double kExtensionMaxVelocity = 60;
+    public static double kExtensionMaxAcceleration = 120;
+
   }
 
   public static final class AltitudeConstants {
@@ -210,6 +264,16 @@ public final class Constants {
 
     public static double kAltitudeSafeExtensionMin = kAltitudeDropOffPosition - kAltitudePositionTolerance;
 
+    // Motion profile limits, in encoder revolutions per second (squared)
+    public static double kAltitudeMaxVelocity = 4;
+    public static double kAltitudeMaxAcceleration = 8;
+
+    // Volts needed to hold the arm level against gravity, fully retracted, plus
+    // the extra per inch of extension. Scaled by sin() of the altitude angle,
+    // since the arm is vertical at 0 degrees.
+    public static double kAltitudeGravityVolts = 0.3;
+    public static double kAltitudeGravityVoltsPerInch = 0.01;
+
   }
 
   public static final class LimelightConstants {
@@ -243,6 +307,16 @@ public final class Constants {
     public static final double HEIGHT_GRID_APRIL = 18.25;
     public static final double HEIGHT_SUBSTATION_APRIL = 27.375;
 
+    // Vision pose gating. Measurements further than this from the tag, or
+    // single tag measurements whose heading disagrees with the gyro (a flipped,
+    // ambiguous solution) or that jump too far from the current pose, are
+    // dropped.
+    public static final double kMaxVisionDistanceMeters = 4.0;
+    public static final double kMaxSingleTagYawErrorDegrees = 10.0;
+    public static final double kMaxSingleTagJumpMeters = 1.0;
+    public static final double kFieldLengthMeters = 16.54;
+    public static final double kFieldWidthMeters = 8.02;
+
     public static final Transform3d CAMERA_TO_ROBOT = new Transform3d(new Translation3d(0.0, 0.0, 0.0),
         new Rotation3d(0.0, 0.0, 0.0));
   }
@@ -268,11 +342,15 @@ public final class Constants {
     // Distance between centers of right and left wheels on robot
     public static final double kWheelBase = Units.inchesToMeters(24);
     // Distance between front and back wheels on robot
-    public static final SwerveDriveKinematics kDriveKinematics = new SwerveDriveKinematics(
+    // Module locations in the order front left, front right, rear left, rear
+    // right
+    public static final Translation2d[] kModuleTranslations = {
         new Translation2d(kWheelBase / 2, kTrackWidth / 2),
         new Translation2d(kWheelBase / 2, -kTrackWidth / 2),
         new Translation2d(-kWheelBase / 2, kTrackWidth / 2),
-        new Translation2d(-kWheelBase / 2, -kTrackWidth / 2));
+        new Translation2d(-kWheelBase / 2, -kTrackWidth / 2) };
+    public static final SwerveDriveKinematics kDriveKinematics = new SwerveDriveKinematics(
+        kModuleTranslations);
 
     // Angular offsets of the modules relative to the chassis in radians
     public static final double kFrontLeftChassisAngularOffset = -Math.PI / 2;
@@ -294,6 +372,25 @@ public final class Constants {
     // Gyro Constants
     public static final int kGyroDeviceNumber = 15;
     public static final boolean kGyroReversed = false;
+    // The Pigeon 2 sends yaw/pitch/roll every 10 ms, so a reading is on
+    // average half that old when it is read
+    public static final double kGyroFrameAgeSeconds = 0.005;
+    // Time from a SPARK MAX receiving a setpoint to the modules acting on it
+    public static final double kActuationLatencySeconds = 0.02;
+    // Longest the heading is extrapolated, in case the gyro stops updating
+    public static final double kMaxHeadingLookaheadSeconds = 0.1;
+
+    // Odometry runs on its own thread at 250 Hz and keeps the last
+    // kOdometryBufferSize samples (~0.25 s)
+    public static final double kOdometryPeriodSeconds = 0.004;
+    public static final int kOdometryBufferSize = 64;
+
+    // Pose estimator trust in odometry and in vision, as standard deviations
+    // (meters, radians). Vision values are scaled per measurement.
+    public static final double kOdometryStdDevXY = 0.1;
+    public static final double kOdometryStdDevRadians = 0.05;
+    public static final double kVisionStdDevXY = 0.3;
+    public static final double kVisionStdDevRadians = 0.6;
   }
 
   public static final class ModuleConstants {
@@ -376,12 +473,66 @@ public final class Constants {
     public static final double kTurnRateToleranceDegPerS = 8;
     public static final double kAutoGyroTolerance = 2;
 
-    public static final double kDriveOnStationMaxSpeed = 0.15;
-    public static final double kDriveToBalanceFactor = 0.7;
-    public static final double kFinalBalanceSpeed = kDriveOnStationMaxSpeed * (kDriveToBalanceFactor / 2);
+
+    // How far the robot drives from the grid before lowering the arm to intake
+    public static final double kIntakeMarkerDistanceMeters = 1.0;
+    // Longest a marker command may run before it is interrupted, so one that
+    // never finishes cannot stall the rest of the auto
+    public static final double kEventMarkerTimeoutSeconds = 3.0;
+
+    // On the fly paths to field landmarks. Paths keep this far from the charge
+    // station edge, about half the robot's diagonal plus bumpers.
+    public static final double kChargeStationClearanceMeters = 0.6;
+    // A path whose spline cuts into the clearance is planned again with its
+    // waypoints pushed this much further out, up to this many times
+    public static final double kChargeStationReplanStepMeters = 0.3;
+    public static final int kChargeStationReplanAttempts = 3;
+    // Close enough to the landmark that no path is needed
+    public static final double kOnTheFlyMinDistanceMeters = 0.05;
+
+    // Length of the auto period, and how long the auto routine test waits for a routine
+    public static final double kAutoDurationSeconds = 15;
+    public static final double kAutoSimTimeoutSeconds = 20;
+  }
+
+  public static final class BalanceConstants {
+    // Speed per degree of tilt, and per degree per second of tilt rate
+    public static final double kP = 0.03; // m/s per degree
+    public static final double kD = 0.004; // m/s per degree per second
+    public static final double kMaxSpeedMetersPerSecond = 0.7;
+
+    // Level and still for this long counts as engaged
+    public static final double kToleranceDegrees = 2.5;
+    public static final double kRateToleranceDegreesPerSecond = 8;
+    public static final double kSettleSeconds = 0.5;
+
+    // How long the gyro rate is trusted over its angle
+    public static final double kFusionTimeConstantSeconds = 0.25;
   }
 
   public static final class NeoMotorConstants {
     public static final double kFreeSpeedRpm = 5676;
   }
+
+  // Physics models used only in desktop simulation. Estimates, not measured.
+  public static final class SimConstants {
+    public static final double kDrivingWheelMOI = 0.025; // kg m^2
+    // MAXSwerve steering reduction
+    public static final double kTurningMotorReduction = 9424.0 / 203;
+    public static final double kTurningMOI = 0.004; // kg m^2
+
+    // Altitude arm, modelled as a rod pivoting at one end
+    public static final double kAltitudeArmLengthMeters = 0.9;
+    public static final double kAltitudeArmMassKg = 6;
+    // Motor revolutions per arm revolution
+    public static final double kAltitudeGearing = 360 * AltitudeConstants.kAltitudeTotalRevolutions
+        / AltitudeConstants.kAltitudeTotalDegrees;
+
+    // Extension, modelled as an elevator whose drum turns kExtensionGearing
+    // times slower than the motor
+    public static final double kExtensionGearing = 5;
+    public static final double kExtensionCarriageMassKg = 3;
+    public static final double kExtensionDrumRadiusMeters = kExtensionGearing * Units.inchesToMeters(1)
+        / ExtensionConstants.kExtensionRevolutionsPerInch / (2 * Math.PI);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.util.WPIUtilJNI;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import frc.robot.Constants.DataLoggerConstants;
+
+/**
+ * Structured on-robot logging that does not block the main loop.
+ *
+ * <p>
+ * The loop thread writes fixed-size records (timestamp, channel id, up to
+ * {@link DataLoggerConstants#kMaxValues} doubles) into a ring buffer. A
+ * background thread drains the buffer into the WPILOG file opened by
+ * {@link DataLogManager}, which goes to a USB stick when one is plugged in and
+ * to /home/lvuser/logs otherwise.
+ *
+ * <p>
+ * The ring buffer has a single producer: only log from the main robot thread.
+ * When the buffer is full new records are dropped and counted, the loop never
+ * waits on the writer.
+ */
+public final class DataLogger {
+  private static DataLogger instance;
+
+  private static final int kCapacity = DataLoggerConstants.kBufferSize;
+  private static final int kMaxValues = DataLoggerConstants.kMaxValues;
+
+  // Record slots, indexed [slot] or [slot * kMaxValues + value]
+  private final long[] m_timestamps = new long[kCapacity];
+  private final int[] m_channelIds = new int[kCapacity];
+  private final double[] m_values = new double[kCapacity * kMaxValues];
+
+  // Written by the producer only, read by the writer thread
+  private volatile long m_writeIndex = 0;
+  // Written by the writer thread only, read by the producer
+  private volatile long m_readIndex = 0;
+  private long m_dropped = 0;
+
+  private final Channel[] m_channels = new Channel[DataLoggerConstants.kMaxChannels];
+  private int m_channelCount = 0;
+
+  private DataLog m_log;
+  private StringLogEntry m_eventEntry;
+  private Thread m_writer;
+
+  private DataLogger() {
+  }
+
+  public static DataLogger getInstance() {
+    if (instance == null) {
+      instance = new DataLogger();
+    }
+    return instance;
+  }
+
+  /** Opens the log file and starts the background writer. Call once from robotInit(). */
+  public synchronized void start() {
+    if (m_writer != null) {
+      return;
+    }
+    DataLogManager.start();
+    m_log = DataLogManager.getLog();
+    m_eventEntry = new StringLogEntry(m_log, "events");
+    for (int i = 0; i < m_channelCount; i++) {
+      m_channels[i].open(m_log);
+    }
+
+    m_writer = new Thread(this::run, "DataLogger");
+    m_writer.setDaemon(true);
+    m_writer.start();
+  }
+
+  /**
+   * Adds a channel of numeric values.
+   *
+   * @param name   Log entry name, e.g. "Altitude/KeepPosition"
+   * @param fields Names of the values logged on this channel, at most
+   *               {@link DataLoggerConstants#kMaxValues}
+   * @return The channel id to pass to the log methods
+   */
+  public synchronized int addChannel(String name, String... fields) {
+    if (fields.length > kMaxValues) {
+      throw new IllegalArgumentException("Channel " + name + " has more than " + kMaxValues + " values");
+    }
+    return add(new Channel(name, String.join(",", fields), fields.length, null));
+  }
+
+  /**
+   * Adds a fixed text event, written to the "events" entry each time it is
+   * logged with {@link #event(int)}.
+   *
+   * @param message The event text
+   * @return The channel id to pass to {@link #event(int)}
+   */
+  public synchronized int addEvent(String message) {
+    return add(new Channel(null, null, 0, message));
+  }
+
+  private int add(Channel channel) {
+    if (m_channelCount == m_channels.length) {
+      throw new IllegalStateException("Too many DataLogger channels, raise kMaxChannels");
+    }
+    if (m_log != null) {
+      channel.open(m_log);
+    }
+    m_channels[m_channelCount] = channel;
+    return m_channelCount++;
+  }
+
+  public void event(int channelId) {
+    int slot = claim();
+    if (slot >= 0) {
+      publish(slot, channelId);
+    }
+  }
+
+  public void log(int channelId, double value) {
+    int slot = claim();
+    if (slot >= 0) {
+      m_values[slot * kMaxValues] = value;
+      publish(slot, channelId);
+    }
+  }
+
+  public void log(int channelId, double value0, double value1) {
+    int slot = claim();
+    if (slot >= 0) {
+      int base = slot * kMaxValues;
+      m_values[base] = value0;
+      m_values[base + 1] = value1;
+      publish(slot, channelId);
+    }
+  }
+
+  public void log(int channelId, double value0, double value1, double value2) {
+    int slot = claim();
+    if (slot >= 0) {
+      int base = slot * kMaxValues;
+      m_values[base] = value0;
+      m_values[base + 1] = value1;
+      m_values[base + 2] = value2;
+      publish(slot, channelId);
+    }
+  }
+
+  /**
+   * Logs a record from an array, e.g. one the caller reuses every loop.
+   *
+   * @param channelId The channel id
+   * @param values    The values, only as many as the channel has fields are
+   *                  logged
+   */
+  public void log(int channelId, double[] values) {
+    int slot = claim();
+    if (slot >= 0) {
+      System.arraycopy(values, 0, m_values, slot * kMaxValues, Math.min(values.length, kMaxValues));
+      publish(slot, channelId);
+    }
+  }
+
+  /**
+   * Returns how many records were dropped because the buffer was full.
+   *
+   * @return The number of dropped records.
+   */
+  public long getDroppedCount() {
+    return m_dropped;
+  }
+
+  // Returns the next free slot, or -1 if the writer has fallen a full buffer
+  // behind
+  private int claim() {
+    long write = m_writeIndex;
+    if (m_writer == null || write - m_readIndex >= kCapacity) {
+      m_dropped++;
+      return -1;
+    }
+    return (int) (write % kCapacity);
+  }
+
+  private void publish(int slot, int channelId) {
+    m_timestamps[slot] = WPIUtilJNI.now();
+    m_channelIds[slot] = channelId;
+    // The volatile write makes the record visible to the writer thread
+    m_writeIndex = m_writeIndex + 1;
+  }
+
+  // Runs on the writer thread
+  private void run() {
+    long sleepMillis = (long) (DataLoggerConstants.kFlushPeriodSeconds * 1000);
+    while (!Thread.currentThread().isInterrupted()) {
+      long read = m_readIndex;
+      long write = m_writeIndex;
+      while (read < write) {
+        int slot = (int) (read % kCapacity);
+        Channel channel = m_channels[m_channelIds[slot]];
+        if (channel.m_message != null) {
+          m_eventEntry.append(channel.m_message, m_timestamps[slot]);
+        } else {
+          System.arraycopy(m_values, slot * kMaxValues, channel.m_scratch, 0, channel.m_scratch.length);
+          channel.m_entry.append(channel.m_scratch, m_timestamps[slot]);
+        }
+        read++;
+        // Hand the slot back to the producer
+        m_readIndex = read;
+      }
+
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private static final class Channel {
+    private final String m_name;
+    private final String m_metadata;
+    private final String m_message;
+    private final double[] m_scratch;
+    private DoubleArrayLogEntry m_entry;
+
+    Channel(String name, String metadata, int valueCount, String message) {
+      m_name = name;
+      m_metadata = metadata;
+      m_message = message;
+      m_scratch = new double[valueCount];
+    }
+
+    void open(DataLog log) {
+      if (m_message == null) {
+        m_entry = new DoubleArrayLogEntry(log, m_name, m_metadata);
+      }
+    }
+  }
+}
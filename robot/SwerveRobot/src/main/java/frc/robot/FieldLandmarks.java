@@ -9,10 +9,10 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 
 /**
- * Field locations for path planning
+ * Blue alliance field locations for path planning. Use {@link LandmarkService}
+ * to get them for the current alliance and field profile.
  */
 public final class FieldLandmarks {
-  private static boolean PRACTICE = true;
   private static double MidStationY = 3.12;
 
   // Intake always facing toward the grid
@@ -33,12 +33,15 @@ public final class FieldLandmarks {
   }
 
   // Pickup positions. Intake always facing toward
+  // X depends on the field profile
   public static final class PickupPosition {
-    public static final double BluePickupX = PRACTICE ? 5.28 : 6.5;
-    public static final Pose2d Blue1 = new Pose2d(BluePickupX, 4.59, Rotation2d.fromDegrees(0));
-    public static final Pose2d Blue2 = new Pose2d(BluePickupX, 3.35, Rotation2d.fromDegrees(0));
-    public static final Pose2d Blue3 = new Pose2d(BluePickupX, 2.13, Rotation2d.fromDegrees(0));
-    public static final Pose2d Blue4 = new Pose2d(BluePickupX, 0.91, Rotation2d.fromDegrees(0));
+    public static final double BluePracticeX = 5.28;
+    public static final double BlueCompetitionX = 6.5;
+    public static final double Blue1Y = 4.59;
+    public static final double Blue2Y = 3.35;
+    public static final double Blue3Y = 2.13;
+    public static final double Blue4Y = 0.91;
+    public static final Rotation2d Rotation = Rotation2d.fromDegrees(0);
   }
 
   // Endpoints for segemented trajectories
@@ -48,10 +51,19 @@ public final class FieldLandmarks {
     public static final Pose2d MidChargeStation = new Pose2d(3.87, MidStationY, Rotation2d.fromDegrees(-180));
   }
 
+  // Blue charge station footprint, for planning paths around it
+  public static final class ChargeStation {
+    public static final double BlueMinX = 2.92;
+    public static final double BlueMaxX = 4.85;
+    public static final double BlueMinY = 1.51;
+    public static final double BlueMaxY = 3.98;
+  }
+
   // Interior waypoints, no rotation needed
   public static final class InteriorWaypoint {
-    public static final double practiceDelta = PRACTICE ? 0.6 : 0;
-    public static final Translation2d HaflwayToPickup = new Translation2d(4.06 - practiceDelta, 4.24);
+    // Moved toward the grid by the practice delta on the practice field
+    public static final Translation2d HaflwayToPickup = new Translation2d(4.06, 4.24);
+    public static final double practiceDelta = 0.6;
     // TODO UPDATE
     public static final Translation2d HaflwayToStation = new Translation2d(5.92, 3.70);
     public static final Translation2d HalfwayUpStation = new Translation2d(3, MidStationY);
@@ -0,0 +1,57 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.FieldLandmarks.InteriorWaypoint;
+import frc.robot.FieldLandmarks.PickupPosition;
+
+/**
+ * The differences between the fields we run on. The profile is picked by
+ * deploy/field_profile.json, e.g. {@code {"profile": "practice"}}, so moving
+ * between fields only needs a deploy.
+ */
+public enum FieldProfile {
+  PRACTICE(PickupPosition.BluePracticeX, InteriorWaypoint.practiceDelta),
+  COMPETITION(PickupPosition.BlueCompetitionX, 0);
+
+  /** Blue X of the staged game pieces */
+  public final double pickupX;
+  /** How far the halfway to pickup waypoint moves toward the grid */
+  public final double halfwayToPickupDelta;
+
+  FieldProfile(double pickupX, double halfwayToPickupDelta) {
+    this.pickupX = pickupX;
+    this.halfwayToPickupDelta = halfwayToPickupDelta;
+  }
+
+  /**
+   * Reads the profile from the deploy directory.
+   *
+   * @return The deployed profile, or COMPETITION if the file is missing or bad
+   */
+  public static FieldProfile load() {
+    Path file = Filesystem.getDeployDirectory().toPath().resolve("field_profile.json");
+    if (!Files.exists(file)) {
+      DriverStation.reportWarning("No " + file + ", using the competition field profile", false);
+      return COMPETITION;
+    }
+    try {
+      JsonNode root = new ObjectMapper().readTree(file.toFile());
+      return valueOf(root.path("profile").asText().toUpperCase());
+    } catch (IOException | IllegalArgumentException e) {
+      DriverStation.reportError("Bad field profile in " + file + ", using the competition field profile", false);
+      return COMPETITION;
+    }
+  }
+}
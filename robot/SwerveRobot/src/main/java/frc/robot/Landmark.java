@@ -0,0 +1,55 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.util.function.Function;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.FieldLandmarks.GridPosition;
+import frc.robot.FieldLandmarks.InteriorWaypoint;
+import frc.robot.FieldLandmarks.PickupPosition;
+import frc.robot.FieldLandmarks.SegmentEndpoints;
+
+/**
+ * Named field locations. Each one knows its blue alliance pose for a field
+ * profile; {@link LandmarkService} returns them for the current alliance.
+ * Waypoints that are only a position have a zero rotation.
+ */
+public enum Landmark {
+  GRID_C_RIGHT(profile -> GridPosition.BlueCRight),
+  GRID_C_CENTER(profile -> GridPosition.BlueCCenter),
+  GRID_C_LEFT(profile -> GridPosition.BlueCLeft),
+  GRID_B_RIGHT(profile -> GridPosition.BlueBRight),
+  GRID_B_CENTER(profile -> GridPosition.BlueBCenter),
+  GRID_B_LEFT(profile -> GridPosition.BlueBLeft),
+  GRID_A_RIGHT(profile -> GridPosition.BlueARight),
+  GRID_A_CENTER(profile -> GridPosition.BlueACenter),
+  GRID_A_LEFT(profile -> GridPosition.BlueALeft),
+
+  PICKUP_1(profile -> new Pose2d(profile.pickupX, PickupPosition.Blue1Y, PickupPosition.Rotation)),
+  PICKUP_2(profile -> new Pose2d(profile.pickupX, PickupPosition.Blue2Y, PickupPosition.Rotation)),
+  PICKUP_3(profile -> new Pose2d(profile.pickupX, PickupPosition.Blue3Y, PickupPosition.Rotation)),
+  PICKUP_4(profile -> new Pose2d(profile.pickupX, PickupPosition.Blue4Y, PickupPosition.Rotation)),
+
+  REACH_CHARGING_STATION(profile -> SegmentEndpoints.ReachCharingStation),
+  MID_CHARGE_STATION(profile -> SegmentEndpoints.MidChargeStation),
+
+  HALFWAY_TO_PICKUP(profile -> new Pose2d(
+      InteriorWaypoint.HaflwayToPickup.getX() - profile.halfwayToPickupDelta,
+      InteriorWaypoint.HaflwayToPickup.getY(), new Rotation2d())),
+  HALFWAY_TO_STATION(profile -> new Pose2d(InteriorWaypoint.HaflwayToStation, new Rotation2d())),
+  HALFWAY_UP_STATION(profile -> new Pose2d(InteriorWaypoint.HalfwayUpStation, new Rotation2d()));
+
+  private final Function<FieldProfile, Pose2d> m_blue;
+
+  Landmark(Function<FieldProfile, Pose2d> blue) {
+    m_blue = blue;
+  }
+
+  public Pose2d getBluePose(FieldProfile profile) {
+    return m_blue.apply(profile);
+  }
+}
@@ -0,0 +1,113 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.Constants.LimelightConstants;
+import frc.robot.FieldLandmarks.ChargeStation;
+
+/**
+ * Field landmarks for our alliance. The blue table is built from the deployed
+ * field profile at startup. The red table is mirrored from it once, the first
+ * time the driver station reports red. After that a lookup is an array read,
+ * so autos and on the fly paths never transform coordinates in the loop.
+ *
+ * <p>
+ * The 2023 field is mirrored, not rotated: red x is the field length minus
+ * blue x, y is unchanged and headings are reflected.
+ */
+public final class LandmarkService {
+  private static LandmarkService instance;
+
+  private final FieldProfile m_profile;
+  private final Pose2d[] m_blue;
+  private Pose2d[] m_red;
+
+  // The table for the current alliance
+  private Pose2d[] m_active;
+  private Alliance m_alliance = Alliance.Invalid;
+  private double m_chargeStationMinX = ChargeStation.BlueMinX;
+  private double m_chargeStationMaxX = ChargeStation.BlueMaxX;
+
+  private LandmarkService() {
+    m_profile = FieldProfile.load();
+    Landmark[] landmarks = Landmark.values();
+    m_blue = new Pose2d[landmarks.length];
+    for (Landmark landmark : landmarks) {
+      m_blue[landmark.ordinal()] = landmark.getBluePose(m_profile);
+    }
+    m_active = m_blue;
+  }
+
+  public static LandmarkService getInstance() {
+    if (instance == null) {
+      instance = new LandmarkService();
+    }
+    return instance;
+  }
+
+  /**
+   * Switches tables if the alliance changed. Call while disabled and at the
+   * start of each mode; the alliance cannot change while enabled.
+   */
+  public void update() {
+    Alliance alliance = DriverStation.getAlliance();
+    if (alliance == m_alliance) {
+      return;
+    }
+    m_alliance = alliance;
+
+    if (alliance == Alliance.Red) {
+      if (m_red == null) {
+        m_red = new Pose2d[m_blue.length];
+        for (int i = 0; i < m_blue.length; i++) {
+          m_red[i] = mirror(m_blue[i]);
+        }
+      }
+      m_active = m_red;
+      m_chargeStationMinX = LimelightConstants.kFieldLengthMeters - ChargeStation.BlueMaxX;
+      m_chargeStationMaxX = LimelightConstants.kFieldLengthMeters - ChargeStation.BlueMinX;
+    } else {
+      m_active = m_blue;
+      m_chargeStationMinX = ChargeStation.BlueMinX;
+      m_chargeStationMaxX = ChargeStation.BlueMaxX;
+    }
+  }
+
+  public FieldProfile getProfile() {
+    return m_profile;
+  }
+
+  public boolean isRed() {
+    return m_active == m_red;
+  }
+
+  /**
+   * Returns a landmark for our alliance.
+   *
+   * @param landmark The landmark
+   * @return Its pose in field coordinates
+   */
+  public Pose2d get(Landmark landmark) {
+    return m_active[landmark.ordinal()];
+  }
+
+  // Our charge station's x extent. Its y extent is the same for both alliances.
+  public double getChargeStationMinX() {
+    return m_chargeStationMinX;
+  }
+
+  public double getChargeStationMaxX() {
+    return m_chargeStationMaxX;
+  }
+
+  private static Pose2d mirror(Pose2d pose) {
+    return new Pose2d(LimelightConstants.kFieldLengthMeters - pose.getX(), pose.getY(),
+        new Rotation2d(Math.PI).minus(pose.getRotation()));
+  }
+}
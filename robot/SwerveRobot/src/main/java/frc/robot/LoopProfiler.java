@@ -0,0 +1,187 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.ProfilerConstants;
+import frc.robot.Telemetry.Priority;
+import frc.utils.LoopHistogram;
+
+/**
+ * Records how long each part of the robot loop takes, so a loop overrun can be
+ * traced to the subsystem or command responsible.
+ *
+ * <p>
+ * The whole of robotPeriodic() and CommandScheduler.run() alone are timed
+ * separately, so time spent reading inputs, flushing outputs and publishing
+ * telemetry is not blamed on the scheduler.
+ *
+ * <p>
+ * Subsystems time their own periodic() with a channel from
+ * {@link #channel(String)}. Command execute() times are measured through the
+ * scheduler's execute callback: each sample runs from the previous command's
+ * callback (or the end of button polling for the first command) to this one.
+ */
+public final class LoopProfiler {
+  private static LoopProfiler instance;
+
+  private final LoopHistogram m_loopTiming = new LoopHistogram("robotPeriodic()");
+  private final LoopHistogram m_schedulerTiming = new LoopHistogram("CommandScheduler.run()");
+  private final List<LoopHistogram> m_subsystemChannels = new ArrayList<>();
+  private final Map<String, LoopHistogram> m_commandChannels = new HashMap<>();
+  private final List<LoopHistogram> m_commandList = new ArrayList<>();
+
+  private long m_loopStart;
+  private long m_schedulerStart;
+  private long m_commandMark;
+  private int m_overruns = 0;
+  private int m_loopsSincePublish = 0;
+  private LoopHistogram m_slowest;
+
+  private LoopProfiler() {
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addDouble("Loop p99 ms", Priority.LOW, () -> m_loopTiming.getPercentile(0.99));
+    telemetry.addDouble("Loop max ms", Priority.LOW, m_loopTiming::getMax);
+    telemetry.addDouble("Loop overruns", Priority.LOW, () -> m_overruns);
+    telemetry.addString("Slowest periodic", Priority.LOW, () -> m_slowest == null ? "" : m_slowest.getName());
+    telemetry.addDouble("Slowest periodic p99 ms", Priority.LOW,
+        () -> m_slowest == null ? 0.0 : m_slowest.getPercentile(0.99));
+  }
+
+  public static LoopProfiler getInstance() {
+    if (instance == null) {
+      instance = new LoopProfiler();
+    }
+    return instance;
+  }
+
+  /**
+   * Hooks the profiler into the command scheduler. Call once from robotInit(),
+   * after all button bindings have been made, so the mark is taken after the
+   * buttons have been polled.
+   */
+  public void install() {
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    scheduler.getDefaultButtonLoop().bind(this::markCommandStart);
+    scheduler.onCommandExecute(this::recordCommand);
+  }
+
+  /**
+   * Creates a timing channel for a subsystem's periodic().
+   *
+   * @param name Name shown in the report, e.g. "Altitude.periodic()"
+   * @return The histogram to record into
+   */
+  public LoopHistogram channel(String name) {
+    LoopHistogram histogram = new LoopHistogram(name);
+    m_subsystemChannels.add(histogram);
+    return histogram;
+  }
+
+  /** Call at the start of robotPeriodic(). */
+  public void startLoop() {
+    m_loopStart = System.nanoTime();
+  }
+
+  /** Call right before CommandScheduler.run(). */
+  public void startScheduler() {
+    m_schedulerStart = System.nanoTime();
+    m_commandMark = m_schedulerStart;
+  }
+
+  /** Call right after CommandScheduler.run(). */
+  public void endScheduler() {
+    m_schedulerTiming.recordSince(m_schedulerStart);
+  }
+
+  /**
+   * Call at the end of robotPeriodic(). Counts the loop as an overrun if the
+   * whole of it took longer than the budget, and updates the slowest subsystem
+   * every {@link ProfilerConstants#kPublishPeriodLoops} loops.
+   */
+  public void endLoop() {
+    m_loopTiming.recordSince(m_loopStart);
+    if (m_loopTiming.getLast() > ProfilerConstants.kLoopBudgetMs) {
+      m_overruns++;
+    }
+
+    if (++m_loopsSincePublish >= ProfilerConstants.kPublishPeriodLoops) {
+      m_loopsSincePublish = 0;
+      findSlowest();
+    }
+  }
+
+  private void markCommandStart() {
+    m_commandMark = System.nanoTime();
+  }
+
+  private void recordCommand(Command command) {
+    LoopHistogram histogram = m_commandChannels.get(command.getName());
+    if (histogram == null) {
+      histogram = new LoopHistogram(command.getName() + ".execute()");
+      m_commandChannels.put(command.getName(), histogram);
+      m_commandList.add(histogram);
+    }
+    histogram.recordSince(m_commandMark);
+    m_commandMark = System.nanoTime();
+  }
+
+  // Only the loop total and the slowest subsystem go to the dashboard, the
+  // full breakdown is in the report
+  private void findSlowest() {
+    LoopHistogram slowest = null;
+    for (LoopHistogram channel : m_subsystemChannels) {
+      if (slowest == null || channel.getPercentile(0.99) > slowest.getPercentile(0.99)) {
+        slowest = channel;
+      }
+    }
+    m_slowest = slowest;
+  }
+
+  /**
+   * Prints every channel's p50/p99/max to the console and clears the
+   * histograms. Called from disabledInit(), when the loop is not time critical.
+   */
+  public void dumpReport() {
+    if (m_loopTiming.getCount() == 0) {
+      return;
+    }
+
+    StringBuilder report = new StringBuilder();
+    report.append(String.format("Loop timing report: %d loops, %d overruns of %.1f ms%n",
+        m_loopTiming.getCount(), m_overruns, ProfilerConstants.kLoopBudgetMs));
+    report.append(String.format("%-40s %8s %8s %8s %8s%n", "", "count", "p50 ms", "p99 ms", "max ms"));
+    appendRow(report, m_loopTiming);
+    appendRow(report, m_schedulerTiming);
+    for (LoopHistogram channel : m_subsystemChannels) {
+      appendRow(report, channel);
+    }
+    for (LoopHistogram channel : m_commandList) {
+      appendRow(report, channel);
+    }
+    System.out.print(report);
+
+    m_loopTiming.reset();
+    m_schedulerTiming.reset();
+    for (LoopHistogram channel : m_subsystemChannels) {
+      channel.reset();
+    }
+    for (LoopHistogram channel : m_commandList) {
+      channel.reset();
+    }
+    m_overruns = 0;
+  }
+
+  private static void appendRow(StringBuilder report, LoopHistogram histogram) {
+    report.append(String.format("%-40s %8d %8.2f %8.2f %8.2f%n", histogram.getName(), histogram.getCount(),
+        histogram.getPercentile(0.5), histogram.getPercentile(0.99), histogram.getMax()));
+  }
+}
@@ -7,6 +7,9 @@ package frc.robot;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.SubsystemMotorConstants;
+import frc.robot.paths.PathLoader;
+import frc.utils.SparkMaxConfigurator;
 
 /**
  * The VM is configured to automatically run this class, and to call the
@@ -29,10 +32,30 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotInit() {
+    // Start the log before anything is constructed so nothing is dropped
+    DataLogger.getInstance().start();
+
+    // Measure CAN utilization before any SPARK MAX frame rates are changed
+    StatusFrameManager.getInstance();
+
+    // Parse PathPlanner paths in the background while the rest of the robot
+    // starts up
+    PathLoader.getInstance().preloadAll();
+
+    // Load the field profile and landmarks before anything plans a path
+    LandmarkService.getInstance().update();
+
     // Instantiate our RobotContainer. This will perform all our button bindings,
     // and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+
+    // The subsystems started configuring their SPARK MAXes in parallel, wait
+    // for them to finish before the first loop
+    SparkMaxConfigurator.getInstance().awaitAll(SubsystemMotorConstants.kConfigTimeoutSeconds);
+
+    // Time subsystems and commands so loop overruns can be traced
+    LoopProfiler.getInstance().install();
   }
 
   /**
@@ -47,6 +70,11 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    LoopProfiler.getInstance().startLoop();
+    // Read every sensor once, run commands against those readings, then send
+    // every output together
+    RobotLoop.getInstance().readInputs();
+
     // Runs the Scheduler. This is responsible for polling buttons, adding
     // newly-scheduled
     // commands, running already-scheduled commands, removing finished or
@@ -54,16 +82,26 @@ public class Robot extends TimedRobot {
     // and running subsystem periodic() methods. This must be called from the
     // robot's periodic
     // block in order for anything in the Command-based framework to work.
+    LoopProfiler.getInstance().startScheduler();
     CommandScheduler.getInstance().run();
+    LoopProfiler.getInstance().endScheduler();
+
+    RobotLoop.getInstance().flushOutputs();
+    StatusFrameManager.getInstance().periodic();
+    Telemetry.getInstance().periodic();
+    LoopProfiler.getInstance().endLoop();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
   public void disabledInit() {
+    LoopProfiler.getInstance().dumpReport();
   }
 
   @Override
   public void disabledPeriodic() {
+    // The alliance is only set or changed while disabled
+    LandmarkService.getInstance().update();
   }
 
   /**
@@ -72,6 +110,7 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void autonomousInit() {
+    LandmarkService.getInstance().update();
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
     /*
@@ -94,6 +133,8 @@ public class Robot extends TimedRobot {
 
   @Override
   public void teleopInit() {
+    LandmarkService.getInstance().update();
+
     // This makes sure that the autonomous stops running when
     // teleop starts running. If you want the autonomous to
     // continue until interrupted by another command, remove
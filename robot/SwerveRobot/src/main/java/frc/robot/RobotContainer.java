@@ -17,7 +17,6 @@ import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import frc.robot.Constants.AltitudeConstants;
 import frc.robot.Constants.AutoConstants;
 import frc.robot.Constants.DriveConstants;
 import frc.robot.Constants.ExtensionConstants;
@@ -26,23 +25,21 @@ import frc.robot.commands.Autos.Autos;
 import frc.robot.commands.Autos.Sidekick.AutoSidekick;
 import frc.robot.commands.Autos.SuperHero.AutoSuperHero;
 import frc.robot.commands.AutoTurnToDegreeGyro;
+import frc.robot.commands.DriveToLandmark;
 import frc.robot.commands.DriverShootCube;
 import frc.robot.commands.DropCube;
 import frc.robot.commands.IntakeCargo;
 import frc.robot.commands.IntakeCargoFromDoubleSubstation;
 import frc.robot.commands.IntakeCargoFromSingleSubstation;
-import frc.robot.commands.MoveToHighConeDropOff;
-import frc.robot.commands.MoveToMidConeDropOff;
-import frc.robot.commands.MoveToTravel;
-import frc.robot.commands.MoveToTravelAfterIntake;
-import frc.robot.commands.MoveToTravelAfterScoring;
-import frc.robot.commands.PrepareIntake;
 import frc.robot.commands.ScoreBasedOnPosition;
 import frc.robot.commands.ScoreCube;
 import frc.robot.commands.ScoreHighCube;
 import frc.robot.commands.ScoreMidCube;
+import frc.robot.commands.MoveArm;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.limelight.LimelightSubsystem;
 import frc.robot.subsystems.Extension;
 import frc.robot.subsystems.Intake;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -51,15 +48,16 @@ import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.RunCommand;
-import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.SwerveControllerCommand;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
-import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
  * This class is where the bulk of the robot should be declared.  Since Command-based is a
@@ -69,12 +67,17 @@ import java.util.List;
  */
 public class RobotContainer {
   protected SendableChooser<Command> autoSelection = new SendableChooser<>();
+  // The same routines as the chooser, by name, in the order they were added
+  private final Map<String, Command> m_autoRoutines = new LinkedHashMap<>();
+  // Where the driver's drive to landmark button goes
+  private final SendableChooser<Landmark> m_landmarkSelection = new SendableChooser<>();
 
   // The robot's subsystems
   private final Extension m_extension = new Extension();
   private final Altitude m_altitude = new Altitude(m_extension);
   private final Intake m_intake = new Intake();
   private final DriveSubsystem m_robotDrive = new DriveSubsystem(m_altitude, m_extension);
+  private final LimelightSubsystem m_limelight = new LimelightSubsystem(m_robotDrive);
 
   // The driver's controller
   CommandXboxController m_driverController = new CommandXboxController(OIConstants.kDriverControllerPort);
@@ -89,6 +92,8 @@ public class RobotContainer {
 
     // Configure the Auto Selector
     configureAuto();
+    // Configure the drive to landmark selector
+    configureLandmarks();
     // Configure the button bindings
     configureButtonBindings();
 
@@ -113,16 +118,73 @@ public class RobotContainer {
 
   private void configureAuto() {
 
-    autoSelection.setDefaultOption("(15pt) SIDEKICK: 2x Score High, Leave",
-        Autos.AutoSidekick(m_robotDrive, m_altitude, m_extension, m_intake));
+    addAuto("(15pt) SIDEKICK: 2x Score High, Leave",
+        Autos.AutoSidekick(m_robotDrive, m_altitude, m_extension, m_intake), true);
 
-    autoSelection.addOption("(23pt) DYNAMIC DUO: 2x Score High, Leave, Dock",
-        Autos.AutoDynamicDuo(m_robotDrive, m_altitude, m_extension, m_intake));
+    addAuto("(23pt) DYNAMIC DUO: 2x Score High, Leave, Dock",
+        Autos.AutoDynamicDuo(m_robotDrive, m_altitude, m_extension, m_intake), false);
+
+    addAuto("(0pt) PATH: New Path",
+        Autos.AutoFollowPath(m_robotDrive, m_altitude, m_extension, "New Path"), false);
 
     // Put the chooser on the dashboard
     SmartDashboard.putData("Auto Routine", autoSelection);
   }
 
+  private void configureLandmarks() {
+    m_landmarkSelection.setDefaultOption("Grid C Right", Landmark.GRID_C_RIGHT);
+    m_landmarkSelection.addOption("Grid C Center", Landmark.GRID_C_CENTER);
+    m_landmarkSelection.addOption("Grid C Left", Landmark.GRID_C_LEFT);
+    m_landmarkSelection.addOption("Grid B Right", Landmark.GRID_B_RIGHT);
+    m_landmarkSelection.addOption("Grid B Center", Landmark.GRID_B_CENTER);
+    m_landmarkSelection.addOption("Grid B Left", Landmark.GRID_B_LEFT);
+    m_landmarkSelection.addOption("Grid A Right", Landmark.GRID_A_RIGHT);
+    m_landmarkSelection.addOption("Grid A Center", Landmark.GRID_A_CENTER);
+    m_landmarkSelection.addOption("Grid A Left", Landmark.GRID_A_LEFT);
+    m_landmarkSelection.addOption("Pickup 1", Landmark.PICKUP_1);
+    m_landmarkSelection.addOption("Pickup 2", Landmark.PICKUP_2);
+    m_landmarkSelection.addOption("Pickup 3", Landmark.PICKUP_3);
+    m_landmarkSelection.addOption("Pickup 4", Landmark.PICKUP_4);
+    SmartDashboard.putData("Drive To Landmark", m_landmarkSelection);
+  }
+
+  // Whether the driver is moving either stick, to take back control
+  private boolean isDriverSteering() {
+    return Math.abs(m_driverController.getLeftX()) > OIConstants.kDriveDeadband
+        || Math.abs(m_driverController.getLeftY()) > OIConstants.kDriveDeadband
+        || Math.abs(m_driverController.getRightX()) > OIConstants.kDriveDeadband;
+  }
+
+  private void addAuto(String name, Command routine, boolean isDefault) {
+    if (isDefault) {
+      autoSelection.setDefaultOption(name, routine);
+    } else {
+      autoSelection.addOption(name, routine);
+    }
+    m_autoRoutines.put(name, routine);
+  }
+
+  /**
+   * Returns every auto routine in the chooser, by name.
+   *
+   * @return The routines, in chooser order
+   */
+  public Map<String, Command> getAutoRoutines() {
+    return Collections.unmodifiableMap(m_autoRoutines);
+  }
+
+  public DriveSubsystem getRobotDrive() {
+    return m_robotDrive;
+  }
+
+  public Altitude getAltitude() {
+    return m_altitude;
+  }
+
+  public Extension getExtension() {
+    return m_extension;
+  }
+
   /**
    * Use this method to define your button->command mappings. Buttons can be
    * created by
@@ -153,6 +215,13 @@ public class RobotContainer {
     cubeShootButton.onTrue(new ScoreHighCube(m_altitude, m_extension,
         m_intake));
 
+    // Hold to drive to the landmark picked on the dashboard. Letting go or
+    // moving a stick hands control back to the driver.
+    final Trigger driveToLandmarkButton = m_driverController.back();
+    driveToLandmarkButton.whileTrue(new DriveToLandmark(m_robotDrive,
+        () -> LandmarkService.getInstance().get(m_landmarkSelection.getSelected()))
+        .until(this::isDriverSteering));
+
     final Trigger zeroHeadingButton = m_driverController.start();
     zeroHeadingButton.onTrue(new InstantCommand(() -> m_robotDrive.zeroHeading(), m_robotDrive));
 
@@ -211,7 +280,7 @@ public class RobotContainer {
     intakeButton.whileTrue(new IntakeCargo(m_altitude, m_extension, m_intake))
         .onFalse(new ParallelCommandGroup(
             new InstantCommand(() -> m_intake.holdCargo()),
-            new MoveToTravelAfterIntake(m_extension, m_altitude)));
+            new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL)));
 
     manualIntakeButton.whileTrue(
         new InstantCommand(() -> m_intake.intakeCube()))
@@ -222,14 +291,14 @@ public class RobotContainer {
             m_intake))
         .onFalse(new ParallelCommandGroup(
             new InstantCommand(() -> m_intake.holdCargo()),
-            new MoveToTravelAfterScoring(m_extension, m_altitude)));
+            new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL)));
 
     setSingleSubstationButton
         .whileTrue(new IntakeCargoFromSingleSubstation(m_altitude, m_extension,
             m_intake))
         .onFalse(new ParallelCommandGroup(
             new InstantCommand(() -> m_intake.holdCargo()),
-            new MoveToTravelAfterScoring(m_extension, m_altitude)));
+            new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL)));
 
     ejectButton.onTrue(new ScoreBasedOnPosition(m_altitude, m_extension,
         m_intake));
@@ -266,24 +335,13 @@ public class RobotContainer {
     final Trigger prepareTravelButton = m_operatorController.y();
     final Trigger prepareHoldCargo = m_operatorController.a();
 
-    prepareMidDropOffButton.onTrue(new MoveToMidConeDropOff(m_extension,
-        m_altitude))
-        .onFalse(new SequentialCommandGroup(
-            new WaitUntilCommand(
-                () -> m_extension.ExtensionIsInMidScoringPosition()),
-            new InstantCommand(
-                () -> m_altitude.keepPosition(
-                    AltitudeConstants.kAltitudeMidDropOffPosition))));
-
-    prepareHighDropOffButton.onTrue(new MoveToHighConeDropOff(m_extension,
-        m_altitude))
-        .onFalse(new SequentialCommandGroup(
-            new WaitUntilCommand(
-                () -> m_extension.ExtensionIsInHighScoringPosition()),
-            new InstantCommand(
-                () -> m_altitude.keepPosition(
-                    AltitudeConstants.kAltitudeHighDropOffPosition))));
-    prepareTravelButton.onTrue(new MoveToTravel(m_extension, m_altitude));
+    prepareMidDropOffButton.onTrue(new MoveArm(m_extension, m_altitude, ArmPose.MID_CONE_DROP_OFF))
+        .onFalse(new MoveArm(m_extension, m_altitude, ArmPose.MID_CONE_LOWERED));
+
+
+    prepareHighDropOffButton.onTrue(new MoveArm(m_extension, m_altitude, ArmPose.HIGH_CONE_DROP_OFF))
+        .onFalse(new MoveArm(m_extension, m_altitude, ArmPose.HIGH_CONE_LOWERED));
+    prepareTravelButton.onTrue(new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL));
 
   }
 
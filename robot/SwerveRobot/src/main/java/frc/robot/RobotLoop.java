@@ -0,0 +1,103 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.utils.LoopHistogram;
+
+/**
+ * Splits each robot loop into three stages: every sensor is read once into a
+ * snapshot, the scheduler runs subsystems and commands against those
+ * snapshots, then every actuator output is sent together.
+ *
+ * <p>
+ * Subsystems register their sensor reads with {@link #addInput(Runnable)} and
+ * their output flushes with {@link #addOutput(Runnable)} when they are
+ * constructed. Reads and writes made during the scheduler stage only touch
+ * cached values, so the time from sensor to actuator is the same every loop.
+ * That time is measured each loop, see {@link #getInputToOutputSeconds()}.
+ */
+public final class RobotLoop {
+  private static RobotLoop instance;
+
+  private final List<Runnable> m_inputs = new ArrayList<>();
+  private final List<Runnable> m_outputs = new ArrayList<>();
+
+  private final LoopHistogram m_inputTiming = LoopProfiler.getInstance().channel("RobotLoop.readInputs()");
+  private final LoopHistogram m_outputTiming = LoopProfiler.getInstance().channel("RobotLoop.flushOutputs()");
+
+  private double m_inputTimestamp = Timer.getFPGATimestamp();
+  private double m_inputToOutputSeconds = 0;
+
+  private RobotLoop() {
+  }
+
+  public static RobotLoop getInstance() {
+    if (instance == null) {
+      instance = new RobotLoop();
+    }
+    return instance;
+  }
+
+  /**
+   * Adds a sensor read to the input stage.
+   *
+   * @param input Reads sensors into a snapshot
+   */
+  public void addInput(Runnable input) {
+    m_inputs.add(input);
+  }
+
+  /**
+   * Adds an actuator flush to the output stage.
+   *
+   * @param output Sends the outputs set during this loop
+   */
+  public void addOutput(Runnable output) {
+    m_outputs.add(output);
+  }
+
+  /** Input stage. Call right before CommandScheduler.run(). */
+  public void readInputs() {
+    long start = System.nanoTime();
+    m_inputTimestamp = Timer.getFPGATimestamp();
+    for (Runnable input : m_inputs) {
+      input.run();
+    }
+    m_inputTiming.recordSince(start);
+  }
+
+  /** Output stage. Call right after CommandScheduler.run(). */
+  public void flushOutputs() {
+    long start = System.nanoTime();
+    for (Runnable output : m_outputs) {
+      output.run();
+    }
+    m_outputTiming.recordSince(start);
+    m_inputToOutputSeconds = Timer.getFPGATimestamp() - m_inputTimestamp;
+  }
+
+  /**
+   * Returns when this loop's input stage started.
+   *
+   * @return FPGA timestamp in seconds
+   */
+  public double getInputTimestamp() {
+    return m_inputTimestamp;
+  }
+
+  /**
+   * Returns how long the last loop took from the start of its input stage to
+   * the end of its output stage.
+   *
+   * @return The time in seconds
+   */
+  public double getInputToOutputSeconds() {
+    return m_inputToOutputSeconds;
+  }
+}
@@ -0,0 +1,167 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.FaultID;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.StatusFrameConstants;
+import frc.robot.Telemetry.Priority;
+import frc.utils.SparkMaxConfigurator;
+import frc.utils.SparkMaxSetpoint;
+
+/**
+ * Sets each SPARK MAX's periodic status frame rates for the job it does, so
+ * the values a motor's code reads arrive fast and the rest are slowed down.
+ *
+ * <p>
+ * Status frames: 0 applied output, faults and limit switches; 1 velocity,
+ * temperature, voltage and current; 2 position; 3 analog sensor; 4 alternate
+ * encoder; 5 absolute encoder position; 6 absolute encoder velocity.
+ *
+ * <p>
+ * Frame rates are not saved to flash, so a controller that browns out comes
+ * back at the defaults. {@link #periodic()} watches for the HasReset sticky
+ * fault, reapplies the profile and has the controller's setpoints resent. It
+ * also reports CAN bus utilization before the profiles were applied and once
+ * they have taken effect.
+ */
+public final class StatusFrameManager {
+  private static StatusFrameManager instance;
+
+  /** Frame periods in ms for status frames 0 to 6. */
+  public enum Role {
+    // Velocity for the drive loop and position for odometry
+    DRIVE(StatusFrameConstants.kSlowMs, StatusFrameConstants.kFastMs, StatusFrameConstants.kFastMs,
+        StatusFrameConstants.kUnusedMs, StatusFrameConstants.kUnusedMs,
+        StatusFrameConstants.kUnusedMs, StatusFrameConstants.kUnusedMs),
+    // Steering runs on the absolute encoder
+    STEER(StatusFrameConstants.kSlowMs, StatusFrameConstants.kNormalMs, StatusFrameConstants.kUnusedMs,
+        StatusFrameConstants.kUnusedMs, StatusFrameConstants.kUnusedMs,
+        StatusFrameConstants.kFastMs, StatusFrameConstants.kNormalMs),
+    // Position for the profiles, and limit switches from frame 0
+    ARM(StatusFrameConstants.kNormalMs, StatusFrameConstants.kNormalMs, StatusFrameConstants.kFastMs,
+        StatusFrameConstants.kUnusedMs, StatusFrameConstants.kUnusedMs,
+        StatusFrameConstants.kUnusedMs, StatusFrameConstants.kUnusedMs),
+    // Only current, to detect a held game piece
+    INTAKE(StatusFrameConstants.kSlowMs, StatusFrameConstants.kNormalMs, StatusFrameConstants.kSlowMs,
+        StatusFrameConstants.kUnusedMs, StatusFrameConstants.kUnusedMs,
+        StatusFrameConstants.kUnusedMs, StatusFrameConstants.kUnusedMs);
+
+    private final int[] m_periodsMs;
+
+    Role(int... periodsMs) {
+      m_periodsMs = periodsMs;
+    }
+  }
+
+  private static final PeriodicFrame[] kFrames = {
+      PeriodicFrame.kStatus0, PeriodicFrame.kStatus1, PeriodicFrame.kStatus2, PeriodicFrame.kStatus3,
+      PeriodicFrame.kStatus4, PeriodicFrame.kStatus5, PeriodicFrame.kStatus6 };
+
+  private final List<CANSparkMax> m_motors = new ArrayList<>();
+  private final List<Role> m_roles = new ArrayList<>();
+  private final List<SparkMaxSetpoint[]> m_setpoints = new ArrayList<>();
+  // Completes once the role's frame rates have first been applied
+  private final List<CompletableFuture<Void>> m_applied = new ArrayList<>();
+  private final double m_utilizationBefore;
+  private double m_utilizationAfter = -1;
+  // Also set from configurator threads
+  private volatile double m_lastApplyTime;
+  private double m_lastCheckTime = 0;
+  private int m_resets = 0;
+
+  private final int m_utilizationChannel = DataLogger.getInstance().addChannel("CAN/Utilization",
+      "beforePercent", "afterPercent");
+
+  private StatusFrameManager() {
+    // Nothing has been configured yet, so this is the default frame rates
+    m_utilizationBefore = busUtilization();
+    m_lastApplyTime = Timer.getFPGATimestamp();
+
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addDouble("CAN utilization", Priority.LOW, this::busUtilization);
+    telemetry.addDouble("CAN utilization before profiles", Priority.LOW, () -> m_utilizationBefore);
+    telemetry.addDouble("CAN utilization after profiles", Priority.LOW, () -> m_utilizationAfter);
+    telemetry.addDouble("SPARK MAX resets", Priority.LOW, () -> m_resets);
+    telemetry.addDouble("Setpoint frames sent", Priority.LOW, SparkMaxSetpoint::getTotalSent);
+    telemetry.addDouble("Setpoint frames suppressed", Priority.LOW, SparkMaxSetpoint::getTotalSuppressed);
+  }
+
+  public static StatusFrameManager getInstance() {
+    if (instance == null) {
+      instance = new StatusFrameManager();
+    }
+    return instance;
+  }
+
+  /**
+   * Applies a role's frame rates to a controller and keeps them applied. If
+   * the controller was submitted to the {@link SparkMaxConfigurator}, they
+   * are applied once it is done, since writes sent while it burns flash can
+   * be lost.
+   *
+   * @param motor     The controller
+   * @param role      What it is used for
+   * @param setpoints Setpoints sent to it, resent after it resets
+   */
+  public void register(CANSparkMax motor, Role role, SparkMaxSetpoint... setpoints) {
+    m_motors.add(motor);
+    m_roles.add(role);
+    m_setpoints.add(setpoints);
+    m_applied.add(SparkMaxConfigurator.getInstance().whenConfigured(motor).thenRun(() -> apply(motor, role)));
+  }
+
+  /** Reapplies profiles after controller resets. Call once per loop. */
+  public void periodic() {
+    double now = Timer.getFPGATimestamp();
+    if (now - m_lastCheckTime < StatusFrameConstants.kCheckPeriodSeconds) {
+      return;
+    }
+    m_lastCheckTime = now;
+
+    for (int i = 0; i < m_motors.size(); i++) {
+      CANSparkMax motor = m_motors.get(i);
+      // HasReset stays set from power on until the first apply clears it
+      if (!m_applied.get(i).isDone()) {
+        continue;
+      }
+      if (motor.getStickyFault(FaultID.kHasReset)) {
+        apply(motor, m_roles.get(i));
+        for (SparkMaxSetpoint setpoint : m_setpoints.get(i)) {
+          setpoint.invalidate();
+        }
+        m_resets++;
+      }
+    }
+
+    if (m_utilizationAfter < 0 && now - m_lastApplyTime > StatusFrameConstants.kSettleSeconds) {
+      m_utilizationAfter = busUtilization();
+      DataLogger.getInstance().log(m_utilizationChannel, m_utilizationBefore * 100, m_utilizationAfter * 100);
+    }
+  }
+
+  private void apply(CANSparkMax motor, Role role) {
+    for (int frame = 0; frame < kFrames.length; frame++) {
+      motor.setPeriodicFramePeriod(kFrames[frame], role.m_periodsMs[frame]);
+    }
+    // Clear HasReset so the next reset can be seen
+    motor.clearFaults();
+    m_lastApplyTime = Timer.getFPGATimestamp();
+  }
+
+  // Fraction of the bus in use, 0 to 1
+  private double busUtilization() {
+    return RobotBase.isReal() ? RobotController.getCANStatus().percentBusUtilization : 0;
+  }
+}
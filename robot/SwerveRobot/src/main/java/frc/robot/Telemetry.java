@@ -0,0 +1,192 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import frc.robot.Constants.TelemetryConstants;
+
+/**
+ * Registry of dashboard values. Subsystems register each value once with a
+ * supplier, and {@link #periodic()} publishes the values that changed, each
+ * priority tier at its own rate. Entries keep their NetworkTables publisher, so
+ * a flush does no string-keyed lookups.
+ *
+ * <p>
+ * Values are published under the SmartDashboard table, so existing dashboard
+ * layouts keep working.
+ */
+public final class Telemetry {
+  private static Telemetry instance;
+
+  /** How often an entry is published. */
+  public enum Priority {
+    /** Every loop. */
+    HIGH(TelemetryConstants.kHighPeriodLoops),
+    /** Values a driver watches. */
+    NORMAL(TelemetryConstants.kNormalPeriodLoops),
+    /** Diagnostics. */
+    LOW(TelemetryConstants.kLowPeriodLoops);
+
+    private final int m_periodLoops;
+
+    Priority(int periodLoops) {
+      m_periodLoops = periodLoops;
+    }
+  }
+
+  private final NetworkTable m_table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+  private final List<List<Entry>> m_tiers = new ArrayList<>();
+  private int m_loopCount = 0;
+
+  private Telemetry() {
+    for (int i = 0; i < Priority.values().length; i++) {
+      m_tiers.add(new ArrayList<>());
+    }
+  }
+
+  public static Telemetry getInstance() {
+    if (instance == null) {
+      instance = new Telemetry();
+    }
+    return instance;
+  }
+
+  public void addDouble(String key, Priority priority, DoubleSupplier supplier) {
+    add(priority, new DoubleEntry(m_table.getDoubleTopic(key).publish(), supplier));
+  }
+
+  public void addBoolean(String key, Priority priority, BooleanSupplier supplier) {
+    add(priority, new BooleanEntry(m_table.getBooleanTopic(key).publish(), supplier));
+  }
+
+  public void addString(String key, Priority priority, Supplier<String> supplier) {
+    add(priority, new StringEntry(m_table.getStringTopic(key).publish(), supplier));
+  }
+
+  public void addDoubleArray(String key, Priority priority, Supplier<double[]> supplier) {
+    add(priority, new DoubleArrayEntry(m_table.getDoubleArrayTopic(key).publish(), supplier));
+  }
+
+  private void add(Priority priority, Entry entry) {
+    m_tiers.get(priority.ordinal()).add(entry);
+  }
+
+  /** Publishes changed values of every tier that is due. Call once per loop. */
+  public void periodic() {
+    for (Priority priority : Priority.values()) {
+      if (m_loopCount % priority.m_periodLoops == 0) {
+        for (Entry entry : m_tiers.get(priority.ordinal())) {
+          entry.flush();
+        }
+      }
+    }
+    m_loopCount++;
+  }
+
+  private interface Entry {
+    void flush();
+  }
+
+  private static final class DoubleEntry implements Entry {
+    private final DoublePublisher m_publisher;
+    private final DoubleSupplier m_supplier;
+    private double m_last = Double.NaN;
+    private boolean m_published = false;
+
+    DoubleEntry(DoublePublisher publisher, DoubleSupplier supplier) {
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    public void flush() {
+      double value = m_supplier.getAsDouble();
+      if (!m_published || Double.compare(value, m_last) != 0) {
+        m_publisher.set(value);
+        m_last = value;
+        m_published = true;
+      }
+    }
+  }
+
+  private static final class BooleanEntry implements Entry {
+    private final BooleanPublisher m_publisher;
+    private final BooleanSupplier m_supplier;
+    private boolean m_last = false;
+    private boolean m_published = false;
+
+    BooleanEntry(BooleanPublisher publisher, BooleanSupplier supplier) {
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    public void flush() {
+      boolean value = m_supplier.getAsBoolean();
+      if (!m_published || value != m_last) {
+        m_publisher.set(value);
+        m_last = value;
+        m_published = true;
+      }
+    }
+  }
+
+  private static final class StringEntry implements Entry {
+    private final StringPublisher m_publisher;
+    private final Supplier<String> m_supplier;
+    private String m_last = null;
+
+    StringEntry(StringPublisher publisher, Supplier<String> supplier) {
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    public void flush() {
+      String value = m_supplier.get();
+      if (value != null && !value.equals(m_last)) {
+        m_publisher.set(value);
+        m_last = value;
+      }
+    }
+  }
+
+  private static final class DoubleArrayEntry implements Entry {
+    private final DoubleArrayPublisher m_publisher;
+    private final Supplier<double[]> m_supplier;
+    private double[] m_last = null;
+
+    DoubleArrayEntry(DoubleArrayPublisher publisher, Supplier<double[]> supplier) {
+      m_publisher = publisher;
+      m_supplier = supplier;
+    }
+
+    @Override
+    public void flush() {
+      double[] value = m_supplier.get();
+      if (m_last == null || !Arrays.equals(value, m_last)) {
+        m_publisher.set(value);
+        // Keep a copy, suppliers usually hand back the same array every loop
+        if (m_last == null || m_last.length != value.length) {
+          m_last = value.clone();
+        } else {
+          System.arraycopy(value, 0, m_last, 0, value.length);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,122 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import edu.wpi.first.math.trajectory.TrajectoryUtil;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
+
+/**
+ * Auto trajectories, generated or loaded once and shared. A trajectory is
+ * keyed by its waypoints and config, so two autos that drive the same segment
+ * share one trajectory.
+ *
+ * <p>
+ * Each trajectory is first looked up as Pathweaver JSON in the deploy
+ * directory, named after its key. If it is not there it is generated, and in
+ * desktop simulation the result is written to src/main/deploy so the next
+ * deploy ships it. Changing a waypoint or the config changes the key, so a
+ * stale file is never used.
+ */
+public final class TrajectoryCache {
+  private static TrajectoryCache instance;
+
+  private final Path m_directory = Filesystem.getDeployDirectory().toPath().resolve("trajectories");
+  private final Map<String, Trajectory> m_trajectories = new HashMap<>();
+
+  private TrajectoryCache() {
+  }
+
+  public static TrajectoryCache getInstance() {
+    if (instance == null) {
+      instance = new TrajectoryCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the trajectory through the given waypoints, using the standard
+   * auto config.
+   *
+   * @param start    The starting pose
+   * @param interior The interior waypoints
+   * @param end      The ending pose
+   * @param reversed Whether the robot drives backwards along the trajectory
+   * @return The trajectory
+   */
+  public Trajectory get(Pose2d start, List<Translation2d> interior, Pose2d end, boolean reversed) {
+    TrajectoryConfig config = AutoTrajectoryCommand.config(reversed);
+    String key = key(start, interior, end, config);
+    Trajectory trajectory = m_trajectories.get(key);
+    if (trajectory == null) {
+      trajectory = loadOrGenerate(key, start, interior, end, config);
+      m_trajectories.put(key, trajectory);
+    }
+    return trajectory;
+  }
+
+  private Trajectory loadOrGenerate(String key, Pose2d start, List<Translation2d> interior, Pose2d end,
+      TrajectoryConfig config) {
+    Path file = m_directory.resolve(
+        UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".wpilib.json");
+
+    if (Files.exists(file)) {
+      try {
+        return TrajectoryUtil.fromPathweaverJson(file);
+      } catch (IOException e) {
+        DriverStation.reportWarning("Unable to load trajectory " + file + ", generating it", false);
+      }
+    }
+
+    Trajectory trajectory = TrajectoryGenerator.generateTrajectory(start, interior, end, config);
+    if (RobotBase.isSimulation()) {
+      try {
+        Files.createDirectories(m_directory);
+        TrajectoryUtil.toPathweaverJson(trajectory, file);
+      } catch (IOException e) {
+        DriverStation.reportWarning("Unable to save trajectory " + file, false);
+      }
+    }
+    return trajectory;
+  }
+
+  // Everything that changes the generated trajectory
+  private static String key(Pose2d start, List<Translation2d> interior, Pose2d end, TrajectoryConfig config) {
+    StringBuilder key = new StringBuilder();
+    appendPose(key, start);
+    for (Translation2d waypoint : interior) {
+      key.append(waypoint.getX()).append(',').append(waypoint.getY()).append(';');
+    }
+    appendPose(key, end);
+    key.append(config.getMaxVelocity()).append(',')
+        .append(config.getMaxAcceleration()).append(',')
+        .append(config.getStartVelocity()).append(',')
+        .append(config.getEndVelocity()).append(',')
+        .append(config.isReversed());
+    return key.toString();
+  }
+
+  private static void appendPose(StringBuilder key, Pose2d pose) {
+    key.append(pose.getX()).append(',')
+        .append(pose.getY()).append(',')
+        .append(pose.getRotation().getRadians()).append(';');
+  }
+}
@@ -1,63 +0,0 @@
-// Copyright (c) FIRST and other WPILib contributors.
-// Open Source Software; you can modify and/or share it under the terms of
-// the WPILib BSD license file in the root directory of this project.
-
-package frc.robot.commands;
-
-import frc.robot.Constants.AutoConstants;
-import frc.robot.subsystems.DriveSubsystem;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import edu.wpi.first.wpilibj2.command.CommandBase;
-import edu.wpi.first.wpilibj2.command.RunCommand;
-
-public class AutoNewFinalBalance extends CommandBase {
-    @SuppressWarnings({ "PMD.UnusedPrivateField", "PMD.SingularField" })
-    private final DriveSubsystem m_drive;
-    private double m_speed = .1;
-    private boolean isBalanced = false;
-
-    public AutoNewFinalBalance(DriveSubsystem drive) {
-        m_drive = drive;
-        // Take the magnitude of meters but ignore the sign
-        // Just in case we provide a negative meters to this function by mistake
-        addRequirements(m_drive);
-    }
-
-    @Override
-    public void initialize() {
-    }
-
-    // Called every time the scheduler runs while the command is scheduled.
-    @Override
-    public void execute() {
-        super.execute();
-
-        double currentPitch = m_drive.getPitch();
-        double direction = Math.signum(-currentPitch);
-
-        isBalanced = Math.abs(currentPitch) <= 1;
-
-        m_drive.drive(
-                false,
-                m_speed,
-                direction,
-                0,
-                0,
-                true,
-                false);
-
-        SmartDashboard.putBoolean("FINAL BALANCED", isBalanced);
-    }
-
-    // Stop driving when the command ends or is interrupted
-    @Override
-    public void end(boolean interrupted) {
-        m_drive.stop();
-    }
-
-    // End the command when we reach the desired pose in meters
-    @Override
-    public boolean isFinished() {
-        return isBalanced;
-    }
-}
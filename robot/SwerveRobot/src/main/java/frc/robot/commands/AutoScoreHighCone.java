@@ -8,9 +8,9 @@ import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
-import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import frc.robot.subsystems.Intake;
 import frc.robot.Constants.IntakeConstants;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.Extension;
 
@@ -21,9 +21,7 @@ public class AutoScoreHighCone extends SequentialCommandGroup {
       Intake m_intake) {
     addCommands(
         // 1. Prepare Drop Off Cone (lower altitude slightly)
-        new MoveToHighConeFinalDropOff(m_altitude),
-        // Make sure the drop off cone altitude has been reached
-        new WaitUntilCommand(() -> m_altitude.AltitudeIsInHighDropOffFinalPosition()),
+        new MoveArm(m_extension, m_altitude, ArmPose.HIGH_CONE_FINAL),
         // Start Retracting at fixed speed until it reaches release position
         new InstantCommand(() -> m_extension.retractExtension())
             .until(m_extension::ExtensionIsInReleasePosition),
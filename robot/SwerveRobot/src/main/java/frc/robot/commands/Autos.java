@@ -6,6 +6,8 @@ package frc.robot.commands;
 
 import frc.robot.Constants.AltitudeConstants;
 import frc.robot.Constants.IntakeConstants;
+import frc.robot.commands.Autos.Shared.Balance.Balance;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.Extension;
@@ -30,8 +32,7 @@ public final class Autos {
   public static CommandBase balance(DriveSubsystem m_drive) {
     return Commands.sequence(
         new AutoDriveToReachStation(m_drive),
-        new AutoDriveToBalance(m_drive),
-        new AutoFinalBalance(m_drive),
+        new Balance(m_drive),
         new RunCommand(m_drive::lock, m_drive));
   }
 
@@ -45,8 +46,7 @@ public final class Autos {
     return Commands.sequence(
         new AutoDriveBackwardsMeters(m_drive, 2, .4),
         new AutoDriveBackwardsMeters(m_drive, .65, .2),
-        new AutoDriveToBalanceByDistance(m_drive),
-        new AutoFinalBalance(m_drive),
+        new Balance(m_drive),
         new RunCommand(m_drive::lock, m_drive));
   }
 
@@ -54,7 +54,7 @@ public final class Autos {
       Extension m_extension,
       Intake m_intake) {
     return Commands.sequence(
-        new MoveToHighConeDropOff(m_extension, m_altitude)
+        new MoveArm(m_extension, m_altitude, ArmPose.HIGH_CONE_DROP_OFF)
             .until(() -> m_extension.ExtensionIsInHighScoringPosition()),
         new WaitUntilCommand(
             () -> m_extension.ExtensionIsInHighScoringPosition()),
@@ -69,7 +69,7 @@ public final class Autos {
       Extension m_extension,
       Intake m_intake) {
     return Commands.sequence(
-        new MoveToHighConeDropOff(m_extension, m_altitude)
+        new MoveArm(m_extension, m_altitude, ArmPose.HIGH_CONE_DROP_OFF)
             .until(() -> m_extension.ExtensionIsInHighScoringPosition()),
         new WaitUntilCommand(
             () -> m_extension.ExtensionIsInHighScoringPosition()),
@@ -84,7 +84,7 @@ public final class Autos {
       Extension m_extension,
       Intake m_intake) {
     return Commands.sequence(
-        new MoveToHighConeDropOff(m_extension, m_altitude)
+        new MoveArm(m_extension, m_altitude, ArmPose.HIGH_CONE_DROP_OFF)
             .until(() -> m_extension.ExtensionIsInHighScoringPosition()),
         new WaitUntilCommand(
             () -> m_extension.ExtensionIsInHighScoringPosition()),
@@ -93,7 +93,7 @@ public final class Autos {
                 new InstantCommand(() -> m_intake.ejectCone()),
                 new WaitCommand(IntakeConstants.kEjectWaitTime),
                 new InstantCommand(m_intake::stopIntake)),
-            new MoveToTravelAfterScoring(m_extension, m_altitude)));
+            MoveArm.start(m_extension, m_altitude, ArmPose.TRAVEL)));
   }
 
   public static CommandBase intakeAndHold(Altitude m_altitude,
@@ -102,7 +102,7 @@ public final class Autos {
     return Commands.sequence(
         new IntakeCargo(m_altitude, m_extension, m_intake).withTimeout(2),
         new InstantCommand(() -> m_intake.holdCargo()),
-        new MoveToTravelAfterIntake(m_extension, m_altitude));
+        new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL));
   }
 
   public static CommandBase scoreHighAndBalanceByDistance(DriveSubsystem m_drive, Altitude m_altitude,
@@ -114,7 +114,7 @@ public final class Autos {
         new ParallelCommandGroup(
             new SequentialCommandGroup(new WaitCommand(IntakeConstants.kEjectWaitTime),
                 new InstantCommand(m_intake::stopIntake)),
-            new MoveToTravelAfterScoring(m_extension, m_altitude),
+            MoveArm.start(m_extension, m_altitude, ArmPose.TRAVEL),
             balanceByDistance(m_drive)));
   }
 
@@ -125,7 +125,7 @@ public final class Autos {
         initialize(m_drive, m_altitude, m_extension),
         scoreHigh(m_drive, m_altitude, m_extension, m_intake),
         new ParallelCommandGroup(
-            new MoveToTravelAfterScoring(m_extension, m_altitude),
+            MoveArm.start(m_extension, m_altitude, ArmPose.TRAVEL),
             balance(m_drive)),
         new InstantCommand(m_intake::stopIntake));
   }
@@ -137,7 +137,7 @@ public final class Autos {
         initialize(m_drive, m_altitude, m_extension),
         scoreHigh(m_drive, m_altitude, m_extension, m_intake),
         new ParallelCommandGroup(
-            new MoveToTravelAfterScoring(m_extension, m_altitude),
+            MoveArm.start(m_extension, m_altitude, ArmPose.TRAVEL),
             new AutoDriveBackwardsMeters(m_drive, 4.75, .4)),
         new InstantCommand(m_intake::stopIntake));
   }
@@ -152,15 +152,15 @@ public final class Autos {
         new ParallelCommandGroup(
             new SequentialCommandGroup(new WaitCommand(IntakeConstants.kEjectWaitTime),
                 new InstantCommand(m_intake::stopIntake)),
-            new MoveToTravelAfterScoring(m_extension, m_altitude),
+            MoveArm.start(m_extension, m_altitude, ArmPose.TRAVEL),
             new AutoDriveBackwardsMeters(m_drive, 2.25, .4)),
         new AutoRotateDegrees(m_drive, 180),
-        new PrepareIntake(m_extension, m_altitude),
+        new MoveArm(m_extension, m_altitude, ArmPose.INTAKE),
         new InstantCommand(m_intake::intakeCone),
         new WaitUntilCommand(() -> m_altitude.AltitudeIsInIntakePosition()),
         new AutoDriveBackwardsMeters(m_drive, 1, .4),
         new InstantCommand(() -> m_intake.holdCargo()),
-        new MoveToTravelAfterIntake(m_extension, m_altitude));
+        new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL));
   }
 
   public static CommandBase scoreHighLeavePickupReturnandScore(DriveSubsystem m_drive, Altitude m_altitude,
@@ -197,7 +197,7 @@ public final class Autos {
         initialize(m_drive, m_altitude, m_extension),
         scoreHigh(m_drive, m_altitude, m_extension, m_intake),
         new ParallelCommandGroup(
-            new MoveToTravelAfterScoring(m_extension, m_altitude),
+            MoveArm.start(m_extension, m_altitude, ArmPose.TRAVEL),
             balance2(m_drive)),
         new InstantCommand(m_intake::stopIntake));
   }
@@ -208,7 +208,7 @@ public final class Autos {
         initialize(m_drive, m_altitude, m_extension),
         scoreHigh(m_drive, m_altitude, m_extension, m_intake),
         new ParallelCommandGroup(
-            new MoveToTravelAfterScoring(m_extension, m_altitude),
+            MoveArm.start(m_extension, m_altitude, ArmPose.TRAVEL),
             new AutoDriveBackwardsMeters(m_drive, 4.25, .4)),
         new InstantCommand(m_intake::stopIntake),
         new AutoDriveForwardMeters(m_drive, 2.75),
@@ -225,7 +225,7 @@ public final class Autos {
         new InstantCommand(m_intake::stopIntake),
         new AutoDriveForwardMeters(m_drive, 2.5),
         new WaitCommand(1),
-        new AutoNewFinalBalance(m_drive),
+        new Balance(m_drive),
         // new AutoRotateDegrees(m_drive, 45),
         new RunCommand(m_drive::lock));
   }
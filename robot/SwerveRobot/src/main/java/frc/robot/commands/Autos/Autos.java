@@ -1,16 +1,26 @@
 package frc.robot.commands.Autos;
 
+import java.util.Map;
+
+import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.ProxyCommand;
+import frc.robot.commands.MoveArm;
 import frc.robot.commands.Autos.DynamicDuo.AutoDynamicDuoMoveToChargeStation;
 import frc.robot.commands.Autos.DynamicDuo.AutoDynamicDuoReturnToScore;
 import frc.robot.commands.Autos.DynamicDuo.AutoDynamicDuoSecondScore;
+import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
 import frc.robot.commands.Autos.Shared.Move.AutoMoveToPickup;
 import frc.robot.commands.Autos.Shared.Move.AutoPickupCargo;
 import frc.robot.commands.Autos.Shared.ScoreHigh.AutoScoreHighCone;
 import frc.robot.commands.Autos.Sidekick.AutoSidekickReturnToScore;
 import frc.robot.commands.Autos.Sidekick.AutoSidekickSecondScore;
+import frc.robot.paths.PathLoader;
+import frc.robot.paths.PathPlannerPath;
 import frc.robot.subsystems.Altitude;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.Extension;
 import frc.robot.subsystems.Intake;
@@ -64,4 +74,32 @@ public final class Autos {
         new AutoSidekickSecondScore(m_altitude, m_extension, m_intake));
   }
 
-}
\ No newline at end of file
+  /**
+   * Drives a PathPlanner path from deploy/pathplanner, starting at its first
+   * waypoint. Markers and stop events named "intake" and "travel" move the arm.
+   * The path is taken from the {@link PathLoader} when the auto starts, by
+   * which time the boot preload has parsed it.
+   */
+  public static CommandBase AutoFollowPath(
+      DriveSubsystem m_drive,
+      Altitude m_altitude,
+      Extension m_extension,
+      String name) {
+    return new ProxyCommand(() -> {
+      PathPlannerPath path = PathLoader.getInstance().get(name);
+      if (path == null) {
+        return Commands.none();
+      }
+      Map<String, Command> events = Map.of(
+          "intake", new MoveArm(m_extension, m_altitude, ArmPose.INTAKE),
+          "travel", new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL));
+      return Commands.sequence(
+          new InstantCommand(() -> {
+            m_drive.zeroHeading();
+            m_drive.resetOdometry(path.getInitialHolonomicPose());
+          }),
+          AutoTrajectoryCommand.command(m_drive, path, events));
+    });
+  }
+
+}
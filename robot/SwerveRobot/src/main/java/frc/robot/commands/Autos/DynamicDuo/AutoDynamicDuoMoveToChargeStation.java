@@ -10,13 +10,11 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import frc.robot.commands.MoveToTravelAfterIntake;
+import frc.robot.TrajectoryCache;
 import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.DriveSubsystem;
@@ -32,20 +30,17 @@ public class AutoDynamicDuoMoveToChargeStation extends SequentialCommandGroup {
     }
 
     public Command moveToChargeStation(DriveSubsystem m_drive) {
-        // Create config for trajectory
-        TrajectoryConfig config = AutoTrajectoryCommand.config(true);
-
         // An example trajectory to follow. All units in meters.
         // Should the points be negative or positive? Does it decide based on the
         // reversed being true?
-        Trajectory goOnChargeStation = TrajectoryGenerator.generateTrajectory(
+        Trajectory goOnChargeStation = TrajectoryCache.getInstance().get(
                 // Start at the origin facing the +X direction
                 new Pose2d(0.1, .3, Rotation2d.fromDegrees(-180)),
                 // NOTE: MUST have a waypoint. CANNOT be a straight line.
                 List.of(new Translation2d(2, 1.2)),
                 // Drive backwards for a meter
                 new Pose2d(3, 1.8, Rotation2d.fromDegrees(0)),
-                config);
+                true);
 
         return AutoTrajectoryCommand.command(m_drive, goOnChargeStation);
     }
@@ -30,8 +30,8 @@ public class AutoMainCharacter extends SequentialCommandGroup {
         new AutoMainCharacterLeaveCommunity(m_drive, m_altitude, m_extension),
         // 3. Move to charge station
         new AutoMoveToFrontChargeStation(m_drive, m_altitude, m_extension, m_intake)
-    // 5. Shoot cube
-    // new AutoBalance(m_altitude, m_extension, m_intake)
+    // 5. Balance
+    // new Balance(m_drive)
 
     );
   }
@@ -10,10 +10,9 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.TrajectoryCache;
 import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.DriveSubsystem;
@@ -31,11 +30,8 @@ public class AutoMainCharacterMoveToChargeStation extends SequentialCommandGroup
     }
 
     public Command returnToChargeStation(DriveSubsystem m_drive) {
-        // Create config for trajectory
-        TrajectoryConfig config = AutoTrajectoryCommand.config(true);
-
         // First trajectory. All units in meters.
-        Trajectory returnToChargeStation = TrajectoryGenerator.generateTrajectory(
+        Trajectory returnToChargeStation = TrajectoryCache.getInstance().get(
                 // Start at the origin facing the +X direction
                 new Pose2d(4, -0.1, Rotation2d.fromDegrees(0)),
                 // Pass through these two interior waypoints, making an 's' curve path
@@ -43,7 +39,7 @@ public class AutoMainCharacterMoveToChargeStation extends SequentialCommandGroup
                 List.of(new Translation2d(3, -0.01)),
                 // End 3 meters straight ahead of where we started, facing forward
                 new Pose2d(2, -0.1, Rotation2d.fromDegrees(15)),
-                config);
+                true);
 
         return AutoTrajectoryCommand.command(m_drive, returnToChargeStation);
     }
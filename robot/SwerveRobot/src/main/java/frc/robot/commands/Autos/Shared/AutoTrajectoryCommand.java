@@ -4,20 +4,25 @@
 
 package frc.robot.commands.Autos.Shared;
 
-import edu.wpi.first.math.controller.PIDController;
-import edu.wpi.first.math.controller.ProfiledPIDController;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleFunction;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.SwerveControllerCommand;
 import frc.robot.Constants.AutoConstants;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.paths.PathPlannerPath;
 import frc.robot.subsystems.DriveSubsystem;
 
 /** A class to generate a final trajectory command from input trajectory **/
 public class AutoTrajectoryCommand extends SequentialCommandGroup {
-
   /**
    * Reusable trajectory config
    *
@@ -39,33 +44,153 @@ public class AutoTrajectoryCommand extends SequentialCommandGroup {
   }
 
   /**
-   * Generates a trajectory swerveControllerCommand
+   * Generates a trajectory following command. The robot turns steadily from
+   * the start pose's heading to the end pose's heading over the trajectory.
    *
    * @param m_drive    The drive sybsystem
    * @param trajectory The trajectory to drive
    */
 
   public static Command command(DriveSubsystem m_drive, Trajectory trajectory) {
-    var thetaController = new ProfiledPIDController(
-        AutoConstants.kPThetaController, 0, 0, AutoConstants.kThetaControllerConstraints);
-    thetaController.enableContinuousInput(-Math.PI, Math.PI);
-
-    SwerveControllerCommand swerveControllerCommand = new SwerveControllerCommand(
-        trajectory,
-        m_drive::getPose, // Functional interface to feed supplier
-        DriveConstants.kDriveKinematics,
-        // Position controllers
-        new PIDController(AutoConstants.kPXController, 0, 0),
-        new PIDController(AutoConstants.kPYController, 0, 0),
-        thetaController,
-        m_drive::setModuleStates,
-        m_drive);
+    Rotation2d startHeading = trajectory.getInitialPose().getRotation();
+    Rotation2d endHeading = endPose(trajectory).getRotation();
+    double totalTime = trajectory.getTotalTimeSeconds();
+    return command(m_drive, trajectory,
+        time -> startHeading.interpolate(endHeading, totalTime > 0 ? time / totalTime : 1));
+  }
+
+  /**
+   * Generates a command to drive a PathPlanner path, facing the path's
+   * holonomic angles.
+   *
+   * @param m_drive The drive sybsystem
+   * @param path    The path to drive
+   */
+
+  public static Command command(DriveSubsystem m_drive, PathPlannerPath path) {
+    return command(m_drive, path.getTrajectory(), path::getHolonomicRotation);
+  }
+
+  /**
+   * Generates a trajectory following command.
+   *
+   * @param m_drive    The drive sybsystem
+   * @param trajectory The trajectory to drive
+   * @param heading    The heading to face, given the time along the trajectory
+   */
 
+  public static Command command(DriveSubsystem m_drive, Trajectory trajectory, DoubleFunction<Rotation2d> heading) {
     // Reset odometry to the starting pose of the trajectory.
     // m_drive.resetOdometry(trajectory.getInitialPose());
     // m_drive.zeroHeading();
 
-    // Run path following command, then stop at the end.
-    return swerveControllerCommand.andThen(() -> m_drive.stop());
+    // Run path following command, which stops at the end.
+    return new HolonomicFollowCommand(m_drive, trajectory, heading);
+  }
+
+  /**
+   * Generates a trajectory following command that starts other commands part
+   * way along, e.g. to move the arm while driving.
+   *
+   * @param m_drive    The drive sybsystem
+   * @param trajectory The trajectory to drive
+   * @param markers    The commands to start along the way
+   */
+
+  public static Command command(DriveSubsystem m_drive, Trajectory trajectory, EventMarker... markers) {
+    return new FollowWithEvents(command(m_drive, trajectory), trajectory, List.of(markers));
+  }
+
+  /**
+   * Generates a command to drive a PathPlanner path, starting the commands
+   * named by its markers as it reaches them. At each stop point the robot
+   * waits while the stop event's commands run, following the event's
+   * execution and wait behavior, then drives on.
+   *
+   * @param m_drive The drive sybsystem
+   * @param path    The path to drive
+   * @param events  Commands by event name. Each command can be used by only
+   *                one marker or stop event.
+   */
+
+  public static Command command(DriveSubsystem m_drive, PathPlannerPath path, Map<String, Command> events) {
+    Trajectory trajectory = path.getTrajectory();
+    List<PathPlannerPath.StopEvent> stops = path.getStopEvents();
+    List<Command> steps = new ArrayList<>();
+    double start = 0;
+    for (int i = 0; i <= stops.size(); i++) {
+      boolean last = i == stops.size();
+      double end = last ? trajectory.getTotalTimeSeconds() : stops.get(i).timeSeconds;
+
+      // Drive to the next stop, with the markers along the way
+      Trajectory segment = slice(trajectory, start, end);
+      double offset = start;
+      List<EventMarker> markers = new ArrayList<>();
+      for (PathPlannerPath.Marker marker : path.getMarkers()) {
+        if (marker.timeSeconds >= start && (marker.timeSeconds < end || last)) {
+          for (Command command : commandsFor(marker.names, events)) {
+            markers.add(EventMarker.atTime(marker.timeSeconds - offset, command));
+          }
+        }
+      }
+      steps.add(new FollowWithEvents(
+          command(m_drive, segment, time -> path.getHolonomicRotation(time + offset)), segment, markers));
+
+      if (!last) {
+        steps.add(stopEventCommand(stops.get(i), events));
+      }
+      start = end;
+    }
+    return Commands.sequence(steps.toArray(new Command[0]));
+  }
+
+  // Same as PathPlannerLib's stop event handling
+  private static Command stopEventCommand(PathPlannerPath.StopEvent stop, Map<String, Command> events) {
+    Command[] commands = commandsFor(stop.names, events).toArray(new Command[0]);
+    // Time out like a marker, so a command that never finishes cannot strand
+    // the robot at the stop
+    Command run = ("sequential".equals(stop.executionBehavior)
+        ? Commands.sequence(commands)
+        : Commands.parallel(commands)).withTimeout(AutoConstants.kEventMarkerTimeoutSeconds);
+    Command wait = Commands.waitSeconds(stop.waitTimeSeconds);
+    switch (stop.waitBehavior) {
+      case "before":
+        return Commands.sequence(wait, run);
+      case "after":
+        return Commands.sequence(run, wait);
+      case "deadline":
+        return Commands.deadline(wait, run);
+      case "minimum":
+        return Commands.parallel(wait, run);
+      default:
+        return run;
+    }
+  }
+
+  private static List<Command> commandsFor(List<String> names, Map<String, Command> events) {
+    List<Command> commands = new ArrayList<>();
+    for (String name : names) {
+      Command command = events.get(name);
+      if (command != null) {
+        commands.add(command);
+      }
+    }
+    return commands;
+  }
+
+  // The part of a trajectory between two of its states' times, starting at 0
+  private static Trajectory slice(Trajectory trajectory, double startSeconds, double endSeconds) {
+    List<Trajectory.State> states = new ArrayList<>();
+    for (Trajectory.State state : trajectory.getStates()) {
+      if (state.timeSeconds >= startSeconds && state.timeSeconds <= endSeconds) {
+        states.add(new Trajectory.State(state.timeSeconds - startSeconds, state.velocityMetersPerSecond,
+            state.accelerationMetersPerSecondSq, state.poseMeters, state.curvatureRadPerMeter));
+      }
+    }
+    return new Trajectory(states);
+  }
+
+  private static Pose2d endPose(Trajectory trajectory) {
+    return trajectory.getStates().get(trajectory.getStates().size() - 1).poseMeters;
   }
 }
@@ -0,0 +1,73 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Autos.Shared.Balance;
+
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants.BalanceConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.DataLogger;
+import frc.robot.subsystems.DriveSubsystem;
+import frc.utils.BalanceController;
+
+/**
+ * Balances on the charge station from anywhere on it, in any heading. Start it
+ * once the robot is on the ramp. Finishes with the wheels locked once the
+ * station has stayed level.
+ */
+public class Balance extends CommandBase {
+    private static final int kBalanceChannel = DataLogger.getInstance().addChannel("Auto/Balance",
+            "degrees", "degreesPerSecond", "speed");
+
+    private final DriveSubsystem m_drive;
+    private final BalanceController m_controller = new BalanceController(
+            BalanceConstants.kP,
+            BalanceConstants.kD,
+            BalanceConstants.kMaxSpeedMetersPerSecond,
+            BalanceConstants.kToleranceDegrees,
+            BalanceConstants.kRateToleranceDegreesPerSecond,
+            BalanceConstants.kSettleSeconds,
+            BalanceConstants.kFusionTimeConstantSeconds,
+            TimedRobot.kDefaultPeriod);
+
+    public Balance(DriveSubsystem drive) {
+        m_drive = drive;
+        addRequirements(m_drive);
+    }
+
+    @Override
+    public void initialize() {
+        m_controller.reset();
+    }
+
+    @Override
+    public void execute() {
+        double speed = m_controller.calculate(
+                m_drive.getRotation().getRadians(),
+                m_drive.getPitch().getDegrees(),
+                m_drive.getRoll().getDegrees(),
+                m_drive.getPitchVelocity(),
+                m_drive.getRollVelocity());
+
+        if (speed == 0) {
+            m_drive.lock();
+        } else {
+            m_drive.drive(1, speed / DriveConstants.kMaxSpeedMetersPerSecond, 0, 0, true, false);
+        }
+
+        DataLogger.getInstance().log(kBalanceChannel, m_controller.getAngleDegrees(),
+                m_controller.getRateDegreesPerSecond(), speed);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        m_drive.lock();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return m_controller.isSettled();
+    }
+}
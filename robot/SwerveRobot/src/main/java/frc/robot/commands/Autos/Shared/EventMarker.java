@@ -0,0 +1,117 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Autos.Shared;
+
+import java.util.List;
+
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.AutoConstants;
+
+/**
+ * A command to start part way along a trajectory, while the robot keeps
+ * driving. The point is given as a time, a fraction of the trajectory's
+ * duration or a distance along the path, and is turned into a time once the
+ * trajectory is known.
+ *
+ * The command is interrupted if it runs longer than its timeout, and
+ * optionally when the drive finishes, so it cannot hold up the auto.
+ */
+public final class EventMarker {
+  private enum Kind {
+    TIME, FRACTION, DISTANCE
+  }
+
+  private final Kind m_kind;
+  private final double m_value;
+  private final Command m_command;
+  private final double m_timeoutSeconds;
+  private final boolean m_untilDriveEnds;
+
+  private EventMarker(Kind kind, double value, Command command, double timeoutSeconds, boolean untilDriveEnds) {
+    m_kind = kind;
+    m_value = value;
+    m_command = command;
+    m_timeoutSeconds = timeoutSeconds;
+    m_untilDriveEnds = untilDriveEnds;
+  }
+
+  private EventMarker(Kind kind, double value, Command command) {
+    this(kind, value, command, AutoConstants.kEventMarkerTimeoutSeconds, false);
+  }
+
+  /** Starts the command this many seconds after the trajectory starts. */
+  public static EventMarker atTime(double seconds, Command command) {
+    return new EventMarker(Kind.TIME, seconds, command);
+  }
+
+  /** Starts the command this far through the trajectory, from 0 to 1. */
+  public static EventMarker atFraction(double fraction, Command command) {
+    return new EventMarker(Kind.FRACTION, fraction, command);
+  }
+
+  /** Starts the command once the robot has driven this far along the path. */
+  public static EventMarker atDistance(double meters, Command command) {
+    return new EventMarker(Kind.DISTANCE, meters, command);
+  }
+
+  /** Interrupts the command this long after it starts, instead of the default. */
+  public EventMarker withTimeout(double seconds) {
+    return new EventMarker(m_kind, m_value, m_command, seconds, m_untilDriveEnds);
+  }
+
+  /**
+   * Interrupts the command when the drive finishes. A marker the drive never
+   * reached is then skipped.
+   */
+  public EventMarker untilDriveEnds() {
+    return new EventMarker(m_kind, m_value, m_command, m_timeoutSeconds, true);
+  }
+
+  public Command getCommand() {
+    return m_command;
+  }
+
+  public double getTimeoutSeconds() {
+    return m_timeoutSeconds;
+  }
+
+  public boolean isUntilDriveEnds() {
+    return m_untilDriveEnds;
+  }
+
+  /**
+   * Returns when the command starts along a trajectory.
+   *
+   * @param trajectory The trajectory being driven
+   * @return Seconds since the start of the trajectory
+   */
+  public double getTimeSeconds(Trajectory trajectory) {
+    switch (m_kind) {
+      case FRACTION:
+        return m_value * trajectory.getTotalTimeSeconds();
+      case DISTANCE:
+        return timeAtDistance(trajectory, m_value);
+      default:
+        return m_value;
+    }
+  }
+
+  private static double timeAtDistance(Trajectory trajectory, double meters) {
+    List<Trajectory.State> states = trajectory.getStates();
+    double distance = 0;
+    for (int i = 1; i < states.size(); i++) {
+      Trajectory.State previous = states.get(i - 1);
+      Trajectory.State state = states.get(i);
+      double step = state.poseMeters.getTranslation().getDistance(previous.poseMeters.getTranslation());
+      if (distance + step >= meters) {
+        double fraction = step > 0 ? (meters - distance) / step : 1;
+        return previous.timeSeconds + fraction * (state.timeSeconds - previous.timeSeconds);
+      }
+      distance += step;
+    }
+    return trajectory.getTotalTimeSeconds();
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Autos.Shared;
+
+import java.util.List;
+
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+
+/**
+ * Drives a trajectory and starts each marker's command when the robot gets to
+ * it, running it alongside the drive. Markers the drive never reached are
+ * started when it finishes, unless they only run until the drive ends.
+ * Finishes once the drive and every marker command have finished or been
+ * interrupted by their timeout.
+ */
+public class FollowWithEvents extends CommandBase {
+  private final Command m_follow;
+  private final Command[] m_commands;
+  private final double[] m_times;
+  private final double[] m_timeouts;
+  private final boolean[] m_untilDriveEnds;
+  private final double[] m_startTimes;
+  private final boolean[] m_started;
+  private final boolean[] m_running;
+  private final Timer m_timer = new Timer();
+
+  private boolean m_followRunning;
+
+  /**
+   * @param follow     The command driving the trajectory
+   * @param trajectory The trajectory it drives, to place the markers on
+   * @param markers    The commands to start along the way
+   */
+  public FollowWithEvents(Command follow, Trajectory trajectory, List<EventMarker> markers) {
+    m_follow = follow;
+    m_commands = new Command[markers.size()];
+    m_times = new double[markers.size()];
+    m_timeouts = new double[markers.size()];
+    m_untilDriveEnds = new boolean[markers.size()];
+    m_startTimes = new double[markers.size()];
+    for (int i = 0; i < m_commands.length; i++) {
+      EventMarker marker = markers.get(i);
+      m_commands[i] = marker.getCommand();
+      m_times[i] = marker.getTimeSeconds(trajectory);
+      m_timeouts[i] = marker.getTimeoutSeconds();
+      m_untilDriveEnds[i] = marker.isUntilDriveEnds();
+    }
+    m_started = new boolean[m_commands.length];
+    m_running = new boolean[m_commands.length];
+
+    CommandScheduler.getInstance().registerComposedCommands(m_follow);
+    CommandScheduler.getInstance().registerComposedCommands(m_commands);
+    addRequirements(m_follow.getRequirements().toArray(new Subsystem[0]));
+    for (Command command : m_commands) {
+      addRequirements(command.getRequirements().toArray(new Subsystem[0]));
+    }
+  }
+
+  @Override
+  public void initialize() {
+    m_follow.initialize();
+    m_followRunning = true;
+    for (int i = 0; i < m_commands.length; i++) {
+      m_started[i] = false;
+      m_running[i] = false;
+    }
+    m_timer.reset();
+    m_timer.start();
+  }
+
+  @Override
+  public void execute() {
+    if (m_followRunning) {
+      m_follow.execute();
+      if (m_follow.isFinished()) {
+        m_follow.end(false);
+        m_followRunning = false;
+      }
+    }
+
+    double time = m_timer.get();
+    for (int i = 0; i < m_commands.length; i++) {
+      if (!m_started[i] && !m_followRunning && m_untilDriveEnds[i]) {
+        // Never reached, and would be interrupted right away
+        m_started[i] = true;
+      }
+      if (!m_started[i] && (time >= m_times[i] || !m_followRunning)) {
+        m_commands[i].initialize();
+        m_started[i] = true;
+        m_running[i] = true;
+        m_startTimes[i] = time;
+      }
+      if (m_running[i]) {
+        if (time - m_startTimes[i] >= m_timeouts[i] || (m_untilDriveEnds[i] && !m_followRunning)) {
+          m_commands[i].end(true);
+          m_running[i] = false;
+          continue;
+        }
+        m_commands[i].execute();
+        if (m_commands[i].isFinished()) {
+          m_commands[i].end(false);
+          m_running[i] = false;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    m_timer.stop();
+    if (m_followRunning) {
+      m_follow.end(true);
+      m_followRunning = false;
+    }
+    for (int i = 0; i < m_commands.length; i++) {
+      if (m_running[i]) {
+        m_commands[i].end(true);
+        m_running[i] = false;
+      }
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    if (m_followRunning) {
+      return false;
+    }
+    for (boolean running : m_running) {
+      if (running) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
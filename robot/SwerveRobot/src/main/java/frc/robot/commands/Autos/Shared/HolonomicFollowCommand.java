@@ -0,0 +1,109 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.Autos.Shared;
+
+import java.util.function.DoubleFunction;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.DataLogger;
+import frc.robot.subsystems.DriveSubsystem;
+
+/**
+ * Follows a trajectory with a swerve drive. The trajectory's velocity is fed
+ * forward along the path, with P feedback on the position error. The robot's
+ * heading follows a separate target that can change along the path. It is
+ * passed through a trapezoid profile so the robot never turns faster or
+ * accelerates its turn harder than kThetaControllerConstraints allow. The
+ * profile's velocity is fed forward too.
+ */
+public class HolonomicFollowCommand extends CommandBase {
+  private static final int kErrorChannel = DataLogger.getInstance().addChannel("Auto/TrackingError",
+      "x", "y", "degrees", "velocity");
+
+  private final DriveSubsystem m_drive;
+  private final Trajectory m_trajectory;
+  private final DoubleFunction<Rotation2d> m_heading;
+  private final Timer m_timer = new Timer();
+  private final double[] m_errors = new double[4];
+
+  private final PIDController m_xController = new PIDController(AutoConstants.kPXController, 0, 0);
+  private final PIDController m_yController = new PIDController(AutoConstants.kPYController, 0, 0);
+  private final ProfiledPIDController m_thetaController = new ProfiledPIDController(
+      AutoConstants.kPThetaController, 0, 0, AutoConstants.kThetaControllerConstraints);
+
+  /**
+   * @param drive      The drive subsystem
+   * @param trajectory The trajectory to drive
+   * @param heading    The heading to face, given the time since the start of
+   *                   the trajectory
+   */
+  public HolonomicFollowCommand(DriveSubsystem drive, Trajectory trajectory, DoubleFunction<Rotation2d> heading) {
+    m_drive = drive;
+    m_trajectory = trajectory;
+    m_heading = heading;
+    m_thetaController.enableContinuousInput(-Math.PI, Math.PI);
+    addRequirements(m_drive);
+  }
+
+  @Override
+  public void initialize() {
+    Pose2d pose = m_drive.getPose();
+    m_xController.reset();
+    m_yController.reset();
+    m_thetaController.reset(pose.getRotation().getRadians());
+    double totalTime = m_trajectory.getTotalTimeSeconds();
+    m_drive.setTrajectoryGoal(new Pose2d(m_trajectory.sample(totalTime).poseMeters.getTranslation(),
+        m_heading.apply(totalTime)));
+    m_timer.reset();
+    m_timer.start();
+  }
+
+  @Override
+  public void execute() {
+    double time = m_timer.get();
+    Trajectory.State desired = m_trajectory.sample(time);
+    Pose2d pose = m_drive.getPose();
+
+    // The state's pose faces along the path, so its velocity splits into x and y
+    double vx = desired.velocityMetersPerSecond * desired.poseMeters.getRotation().getCos()
+        + m_xController.calculate(pose.getX(), desired.poseMeters.getX());
+    double vy = desired.velocityMetersPerSecond * desired.poseMeters.getRotation().getSin()
+        + m_yController.calculate(pose.getY(), desired.poseMeters.getY());
+
+    double heading = m_heading.apply(time).getRadians();
+    double omega = m_thetaController.calculate(pose.getRotation().getRadians(), heading)
+        + m_thetaController.getSetpoint().velocity;
+
+    m_drive.setModuleStates(DriveConstants.kDriveKinematics.toSwerveModuleStates(
+        ChassisSpeeds.fromFieldRelativeSpeeds(vx, vy, omega, pose.getRotation())));
+
+    m_errors[0] = desired.poseMeters.getX() - pose.getX();
+    m_errors[1] = desired.poseMeters.getY() - pose.getY();
+    m_errors[2] = Math.toDegrees(MathUtil.angleModulus(heading - pose.getRotation().getRadians()));
+    m_errors[3] = desired.velocityMetersPerSecond;
+    DataLogger.getInstance().log(kErrorChannel, m_errors);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    m_timer.stop();
+    m_drive.stop();
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_timer.hasElapsed(m_trajectory.getTotalTimeSeconds());
+  }
+}
@@ -10,14 +10,12 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import frc.robot.commands.MoveToTravelAfterIntake;
+import frc.robot.TrajectoryCache;
 import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.DriveSubsystem;
@@ -36,11 +34,8 @@ public class AutoMoveOnChargeStationFromFront extends SequentialCommandGroup {
   }
 
   public Command moveOnChargeStationFromFront(DriveSubsystem m_drive) {
-    // Create config for trajectory
-    TrajectoryConfig config = AutoTrajectoryCommand.config(true);
-
     // First trajectory. All units in meters.
-    Trajectory moveOnChargeStation = TrajectoryGenerator.generateTrajectory(
+    Trajectory moveOnChargeStation = TrajectoryCache.getInstance().get(
         // Start at the origin facing the +X direction
         new Pose2d(2.45, -1.5, Rotation2d.fromDegrees(-180)),
         // Pass through these two interior waypoints, making an 's' curve path
@@ -48,7 +43,7 @@ public class AutoMoveOnChargeStationFromFront extends SequentialCommandGroup {
         List.of(new Translation2d(1.85, -1.4)),
         // End 3 meters straight ahead of where we started, facing forward
         new Pose2d(0, -1.5, Rotation2d.fromDegrees(-180)),
-        config);
+        true);
 
     return AutoTrajectoryCommand.command(m_drive, moveOnChargeStation);
   }
@@ -10,14 +10,14 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import frc.robot.commands.MoveToTravelAfterIntake;
+import frc.robot.TrajectoryCache;
 import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
+import frc.robot.commands.MoveArm;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.Extension;
@@ -33,16 +33,13 @@ public class AutoMoveToFrontChargeStation extends SequentialCommandGroup {
     addCommands(
         new ParallelCommandGroup(
             new InstantCommand(() -> m_intake.holdCargo()),
-            new MoveToTravelAfterIntake(m_extension, m_altitude)),
+            new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL)),
         travelToChargeStation(m_drive));
   }
 
   public Command travelToChargeStation(DriveSubsystem m_drive) {
-    // Create config for trajectory
-    TrajectoryConfig config = AutoTrajectoryCommand.config(true);
-
     // First trajectory. All units in meters.
-    Trajectory moveToChargeStation = TrajectoryGenerator.generateTrajectory(
+    Trajectory moveToChargeStation = TrajectoryCache.getInstance().get(
         // Start at the origin facing the +X direction
         new Pose2d(3.25, -0.1, Rotation2d.fromDegrees(-10)),
         // Pass through these two interior waypoints, making an 's' curve path
@@ -50,7 +47,7 @@ public class AutoMoveToFrontChargeStation extends SequentialCommandGroup {
         List.of(new Translation2d(2.75, -1)),
         // End 3 meters straight ahead of where we started, facing forward
         new Pose2d(2.45, -1.5, Rotation2d.fromDegrees(-180)),
-        config);
+        true);
 
     return AutoTrajectoryCommand.command(m_drive, moveToChargeStation);
   }
@@ -10,12 +10,17 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.TrajectoryCache;
+import frc.robot.commands.MoveArm;
 import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
+import frc.robot.commands.Autos.Shared.EventMarker;
 import frc.robot.subsystems.Altitude;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.Extension;
 
@@ -26,16 +31,13 @@ public class AutoMoveToPickup extends SequentialCommandGroup {
       Altitude m_altitude,
       Extension m_extension) {
     addCommands(
-        travelBackwardsThenSpin(m_drive));
+        travelBackwardsThenSpin(m_drive, m_altitude, m_extension));
 
   }
 
-  public Command travelBackwardsThenSpin(DriveSubsystem m_drive) {
-    // Create config for trajectory
-    TrajectoryConfig config = AutoTrajectoryCommand.config(true);
-
+  public Command travelBackwardsThenSpin(DriveSubsystem m_drive, Altitude m_altitude, Extension m_extension) {
     // First trajectory. All units in meters.
-    Trajectory moveToPosition = TrajectoryGenerator.generateTrajectory(
+    Trajectory moveToPosition = TrajectoryCache.getInstance().get(
         // Start at the origin facing the +X direction
         new Pose2d(0, 0, Rotation2d.fromDegrees(-180)),
         // Pass through these two interior waypoints, making an 's' curve path
@@ -43,11 +45,18 @@ public class AutoMoveToPickup extends SequentialCommandGroup {
         List.of(new Translation2d(2.5, 0.7)),
         // End 3 meters straight ahead of where we started, facing forward
         new Pose2d(4, 0.35, Rotation2d.fromDegrees(0)),
-        config);
-
-    m_drive.zeroHeading();
-    m_drive.resetOdometry(moveToPosition.getInitialPose());
-
-    return AutoTrajectoryCommand.command(m_drive, moveToPosition);
+        true);
+
+    // Reset when the command runs, not when the auto is built
+    return Commands.sequence(
+        new InstantCommand(() -> {
+          m_drive.zeroHeading();
+          m_drive.resetOdometry(moveToPosition.getInitialPose());
+        }),
+        // Lower the arm to intake once clear of the grid, so it is down by the
+        // time the robot reaches the game piece
+        AutoTrajectoryCommand.command(m_drive, moveToPosition,
+            EventMarker.atDistance(AutoConstants.kIntakeMarkerDistanceMeters,
+                new MoveArm(m_extension, m_altitude, ArmPose.INTAKE))));
   }
 }
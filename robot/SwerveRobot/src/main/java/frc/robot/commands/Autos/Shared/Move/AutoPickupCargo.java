@@ -10,15 +10,14 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
-import frc.robot.commands.MoveToIntake;
+import frc.robot.TrajectoryCache;
 import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
+import frc.robot.commands.MoveArm;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.Extension;
@@ -32,28 +31,22 @@ public class AutoPickupCargo extends SequentialCommandGroup {
       Extension m_extension,
       Intake m_intake) {
     addCommands(
-        new MoveToIntake(m_extension, m_altitude),
-        new WaitUntilCommand(
-            () -> m_altitude.AltitudeIsInIntakePosition() &&
-                m_extension.ExtensionIsInIntakePosition()),
+        new MoveArm(m_extension, m_altitude, ArmPose.INTAKE),
         new ParallelCommandGroup(
             driveToGamePiece(m_drive),
             new InstantCommand(() -> m_intake.intakeCone())));
   }
 
   public Command driveToGamePiece(DriveSubsystem m_drive) {
-    // Create config for trajectory
-    TrajectoryConfig config = AutoTrajectoryCommand.config(false);
-
     // An example trajectory to follow. All units in meters.
-    Trajectory pickupCargo = TrajectoryGenerator.generateTrajectory(
+    Trajectory pickupCargo = TrajectoryCache.getInstance().get(
         // Start at the origin facing forward
         new Pose2d(4, .35, Rotation2d.fromDegrees(0)),
         // NOTE: MUST have a waypoint. CANNOT be a straight line.
         List.of(new Translation2d(4.5, .3)),
         // End 2 meters straight ahead of where we started still facing forward
         new Pose2d(5, 0.35, Rotation2d.fromDegrees(0)),
-        config);
+        false);
 
     return AutoTrajectoryCommand.command(m_drive, pickupCargo);
   }
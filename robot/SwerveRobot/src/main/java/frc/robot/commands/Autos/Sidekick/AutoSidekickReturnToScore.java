@@ -10,14 +10,14 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import frc.robot.commands.MoveToTravelAfterIntake;
+import frc.robot.TrajectoryCache;
 import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
+import frc.robot.commands.MoveArm;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.Extension;
@@ -33,25 +33,22 @@ public class AutoSidekickReturnToScore extends SequentialCommandGroup {
     addCommands(
         new ParallelCommandGroup(
             new InstantCommand(() -> m_intake.holdCargo()),
-            new MoveToTravelAfterIntake(m_extension, m_altitude)),
+            new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL)),
         returnToScore(m_drive));
   }
 
   public Command returnToScore(DriveSubsystem m_drive) {
-    // Create config for trajectory
-    TrajectoryConfig config = AutoTrajectoryCommand.config(true);
-
     // An example trajectory to follow. All units in meters.
     // Should the points be negative or positive? Does it decide based on the
     // reversed being true?
-    Trajectory returnToScoreOne = TrajectoryGenerator.generateTrajectory(
+    Trajectory returnToScoreOne = TrajectoryCache.getInstance().get(
         // Start at the origin facing the +X direction
         new Pose2d(5.0, .35, Rotation2d.fromDegrees(0)),
         // NOTE: MUST have a waypoint. CANNOT be a straight line.
         List.of(new Translation2d(2.5, 0.3)),
         // Drive backwards for a meter
         new Pose2d(0.1, 0.3, Rotation2d.fromDegrees(-180)),
-        config);
+        true);
 
     return AutoTrajectoryCommand.command(m_drive, returnToScoreOne);
   }
@@ -0,0 +1,233 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.DataLogger;
+import frc.robot.FieldLandmarks.ChargeStation;
+import frc.robot.LandmarkService;
+import frc.robot.commands.Autos.Shared.AutoTrajectoryCommand;
+import frc.robot.commands.Autos.Shared.HolonomicFollowCommand;
+import frc.robot.subsystems.DriveSubsystem;
+
+/**
+ * Drives from wherever the robot is to a field landmark, e.g. a grid node, on
+ * either alliance.
+ * The trajectory is generated when the command starts, from the live pose
+ * estimate. If the straight line would cross the charge station, the path goes
+ * around the side of it nearer the robot and the landmark. A path whose curves
+ * still cut into the clearance is planned again wider, or not driven. The path
+ * starts at the speed the robot is already moving along it. The robot turns to
+ * the landmark's heading on the way.
+ */
+public class DriveToLandmark extends CommandBase {
+  private static final int kPlanChannel = DataLogger.getInstance().addChannel("Drive/OnTheFly",
+      "generateMs", "interior", "seconds");
+  private static final int kNoPathEvent = DataLogger.getInstance()
+      .addEvent("DriveToLandmark: no path clears the charge station");
+
+  private final DriveSubsystem m_drive;
+  private final Supplier<Pose2d> m_target;
+
+  private HolonomicFollowCommand m_follow;
+
+  /**
+   * @param drive  The drive subsystem
+   * @param target The landmark to drive to, read when the command starts
+   */
+  public DriveToLandmark(DriveSubsystem drive, Supplier<Pose2d> target) {
+    m_drive = drive;
+    m_target = target;
+    addRequirements(m_drive);
+  }
+
+  @Override
+  public void initialize() {
+    double start = Timer.getFPGATimestamp();
+    Pose2d pose = m_drive.getPose();
+    Pose2d target = m_target.get();
+    m_follow = null;
+    if (target == null
+        || pose.getTranslation().getDistance(target.getTranslation()) < AutoConstants.kOnTheFlyMinDistanceMeters) {
+      return;
+    }
+
+    Translation2d velocity = m_drive.getFieldVelocity();
+    double[] bounds = chargeStationBounds();
+    // Already inside the clearance, e.g. leaving the station, nothing to avoid
+    boolean checked = !inside(pose.getTranslation(), bounds) && !inside(target.getTranslation(), bounds);
+    List<Translation2d> interior = null;
+    Trajectory trajectory = null;
+    for (int attempt = 0; attempt <= AutoConstants.kChargeStationReplanAttempts; attempt++) {
+      interior = aroundChargeStation(pose.getTranslation(), target.getTranslation(), bounds,
+          attempt * AutoConstants.kChargeStationReplanStepMeters);
+      Trajectory candidate = generate(pose.getTranslation(), interior, target.getTranslation(), velocity);
+      if (!checked || !enters(candidate, bounds)) {
+        trajectory = candidate;
+        break;
+      }
+    }
+    if (trajectory == null) {
+      DataLogger.getInstance().event(kNoPathEvent);
+      return;
+    }
+
+    Rotation2d startHeading = pose.getRotation();
+    Rotation2d endHeading = target.getRotation();
+    double totalTime = trajectory.getTotalTimeSeconds();
+    m_follow = new HolonomicFollowCommand(m_drive, trajectory,
+        time -> startHeading.interpolate(endHeading, totalTime > 0 ? time / totalTime : 1));
+    m_follow.initialize();
+
+    DataLogger.getInstance().log(kPlanChannel, (Timer.getFPGATimestamp() - start) * 1000, interior.size(),
+        totalTime);
+  }
+
+  @Override
+  public void execute() {
+    if (m_follow != null) {
+      m_follow.execute();
+    }
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (m_follow != null) {
+      m_follow.end(interrupted);
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_follow == null || m_follow.isFinished();
+  }
+
+  // Each pose faces the next point, since the trajectory's poses follow the
+  // direction of travel, not the robot's heading. The path starts at the part
+  // of the robot's velocity along its first tangent, so the robot does not
+  // brake to a stop before following it.
+  private static Trajectory generate(Translation2d start, List<Translation2d> interior, Translation2d end,
+      Translation2d velocity) {
+    Translation2d afterStart = interior.isEmpty() ? end : interior.get(0);
+    Translation2d beforeEnd = interior.isEmpty() ? start : interior.get(interior.size() - 1);
+    Rotation2d startTangent = afterStart.minus(start).getAngle();
+    double startSpeed = velocity.getX() * startTangent.getCos() + velocity.getY() * startTangent.getSin();
+    TrajectoryConfig config = AutoTrajectoryCommand.config(false);
+    config.setStartVelocity(MathUtil.clamp(startSpeed, 0, config.getMaxVelocity()));
+    return TrajectoryGenerator.generateTrajectory(
+        new Pose2d(start, startTangent),
+        interior,
+        new Pose2d(end, end.minus(beforeEnd).getAngle()),
+        config);
+  }
+
+  // The charge station grown by the clearance, as { minX, maxX, minY, maxY }
+  private static double[] chargeStationBounds() {
+    double clearance = AutoConstants.kChargeStationClearanceMeters;
+    LandmarkService landmarks = LandmarkService.getInstance();
+    return new double[] {
+        landmarks.getChargeStationMinX() - clearance,
+        landmarks.getChargeStationMaxX() + clearance,
+        ChargeStation.BlueMinY - clearance,
+        ChargeStation.BlueMaxY + clearance };
+  }
+
+  /**
+   * Returns the corners of the charge station to pass on the way from start to
+   * end, or none if the straight line clears it.
+   *
+   * @param bounds The charge station grown by the clearance
+   * @param margin How far outside the bounds to put the corners
+   */
+  private static List<Translation2d> aroundChargeStation(Translation2d start, Translation2d end, double[] bounds,
+      double margin) {
+    List<Translation2d> interior = new ArrayList<>();
+    if (!crosses(start, end, bounds[0], bounds[1], bounds[2], bounds[3])) {
+      return interior;
+    }
+    double minX = bounds[0] - margin;
+    double maxX = bounds[1] + margin;
+    double minY = bounds[2] - margin;
+    double maxY = bounds[3] + margin;
+
+    // Pass on the side nearer the middle of the trip
+    double middleY = (start.getY() + end.getY()) / 2;
+    double laneY = Math.abs(middleY - minY) < Math.abs(middleY - maxY) ? minY : maxY;
+
+    // Corners in the order they are reached, skipping any behind the start or
+    // past the end
+    double[] cornersX = start.getX() > end.getX() ? new double[] { maxX, minX } : new double[] { minX, maxX };
+    double lowX = Math.min(start.getX(), end.getX());
+    double highX = Math.max(start.getX(), end.getX());
+    for (double x : cornersX) {
+      if (x > lowX && x < highX) {
+        interior.add(new Translation2d(x, laneY));
+      }
+    }
+    if (interior.isEmpty()) {
+      // Start and end are both beside the station, go around through the lane
+      interior.add(new Translation2d((start.getX() + end.getX()) / 2, laneY));
+    }
+    return interior;
+  }
+
+  // Whether any state of the trajectory is inside the bounds. The first plan
+  // puts its corners on the bounds, so touching them is allowed.
+  private static boolean enters(Trajectory trajectory, double[] bounds) {
+    for (Trajectory.State state : trajectory.getStates()) {
+      if (inside(state.poseMeters.getTranslation(), bounds)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean inside(Translation2d point, double[] bounds) {
+    double tolerance = 1e-3;
+    return point.getX() > bounds[0] + tolerance && point.getX() < bounds[1] - tolerance
+        && point.getY() > bounds[2] + tolerance && point.getY() < bounds[3] - tolerance;
+  }
+
+  // Whether the segment from a to b passes through the rectangle, by clipping
+  // the segment to each slab in turn
+  private static boolean crosses(Translation2d a, Translation2d b, double minX, double maxX, double minY,
+      double maxY) {
+    double enter = 0;
+    double exit = 1;
+    double[] starts = { a.getX(), a.getY() };
+    double[] deltas = { b.getX() - a.getX(), b.getY() - a.getY() };
+    double[] mins = { minX, minY };
+    double[] maxes = { maxX, maxY };
+    for (int axis = 0; axis < 2; axis++) {
+      if (Math.abs(deltas[axis]) < 1e-9) {
+        if (starts[axis] < mins[axis] || starts[axis] > maxes[axis]) {
+          return false;
+        }
+        continue;
+      }
+      double t0 = (mins[axis] - starts[axis]) / deltas[axis];
+      double t1 = (maxes[axis] - starts[axis]) / deltas[axis];
+      enter = Math.max(enter, Math.min(t0, t1));
+      exit = Math.min(exit, Math.max(t0, t1));
+      if (enter > exit) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
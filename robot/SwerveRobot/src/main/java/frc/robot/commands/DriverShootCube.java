@@ -5,7 +5,7 @@
 package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.Extension;
 import frc.robot.subsystems.Intake;
@@ -17,11 +17,10 @@ public class DriverShootCube extends SequentialCommandGroup {
       Intake m_intake) {
     addCommands(
         // Prepare Cube SHoot (move extension to proper position)
-        new MoveToCubeShoot(m_extension),
-        new WaitUntilCommand(() -> m_extension.ExtensionIsInCubeShootPosition()),
+        new MoveArm(m_extension, m_altitude, ArmPose.CUBE_SHOOT),
         // Run Eject Cube
         new ShootCube(m_altitude, m_extension, m_intake),
         // Return to Travel Position
-        new MoveToTravelAfterScoring(m_extension, m_altitude));
+        new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL));
   }
 }
@@ -6,8 +6,8 @@ package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.Extension;
 
@@ -18,10 +18,7 @@ public class IntakeCargo extends SequentialCommandGroup {
             Intake m_intake) {
         addCommands(
                 // 1. Prepare intake
-                new MoveToIntake(m_extension, m_altitude),
-                new WaitUntilCommand(
-                        () -> m_altitude.AltitudeIsInIntakePosition() &&
-                                m_extension.ExtensionIsInIntakePosition()),
+                new MoveArm(m_extension, m_altitude, ArmPose.INTAKE),
                 // 2. Run intake
                 new InstantCommand(() -> m_intake.intakeCone()));
     }
@@ -5,8 +5,10 @@
 package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.Extension;
 
@@ -16,9 +18,11 @@ public class IntakeCargoFromDoubleSubstation extends SequentialCommandGroup {
       Extension m_extension,
       Intake m_intake) {
     addCommands(
-        // 1. Prepare Double Substation Pickup
-        new MoveToDoubleSubstationPickup(m_extension, m_altitude),
-        // Run intakeCone from Double Substation
-        new InstantCommand(() -> m_intake.intakeCone()));
+        // Start the intake while the arm is still moving
+        new ParallelCommandGroup(
+            // 1. Prepare Double Substation Pickup
+            new MoveArm(m_extension, m_altitude, ArmPose.DOUBLE_SUBSTATION),
+            // Run intakeCone from Double Substation
+            new InstantCommand(() -> m_intake.intakeCone())));
   }
 }
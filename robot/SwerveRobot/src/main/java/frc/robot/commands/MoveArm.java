@@ -0,0 +1,128 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.DataLogger;
+import frc.robot.subsystems.Altitude;
+import frc.robot.subsystems.ArmPose;
+import frc.robot.subsystems.ArmPose.Lead;
+import frc.robot.subsystems.ArmPose.Transition;
+import frc.robot.subsystems.Extension;
+
+/**
+ * Moves the arm to a named {@link ArmPose}. The leading joint is started right
+ * away and the other one as soon as the transition says it is clear, so there
+ * is no waiting for one joint to fully settle. When both joints move together
+ * their profiles are stretched to the slower one, so they arrive at the same
+ * time. Finishes when both joints are in position, or with {@link #start}
+ * as soon as both have been sent their goals.
+ */
+public class MoveArm extends CommandBase {
+  private static final int kGoalChannel = DataLogger.getInstance().addChannel("Arm/Goal", "pose", "from");
+
+  private final Extension m_extension;
+  private final Altitude m_altitude;
+  private final ArmPose m_pose;
+  private final boolean m_waitForArrival;
+
+  private Transition m_transition;
+  private boolean m_trailingStarted;
+
+  public MoveArm(Extension extension, Altitude altitude, ArmPose pose) {
+    this(extension, altitude, pose, true);
+  }
+
+  private MoveArm(Extension extension, Altitude altitude, ArmPose pose, boolean waitForArrival) {
+    m_extension = extension;
+    m_altitude = altitude;
+    m_pose = pose;
+    m_waitForArrival = waitForArrival;
+    addRequirements(m_extension, m_altitude);
+  }
+
+  /**
+   * Moves the arm to a pose, finishing once the trailing joint has been
+   * started. The subsystems carry on with the move on their own, so a group
+   * running this alongside other commands ends when they do.
+   *
+   * @param extension The extension subsystem
+   * @param altitude  The altitude subsystem
+   * @param pose      The pose to move to
+   * @return The command
+   */
+  public static MoveArm start(Extension extension, Altitude altitude, ArmPose pose) {
+    return new MoveArm(extension, altitude, pose, false);
+  }
+
+  @Override
+  public void initialize() {
+    ArmPose from = ArmPose.nearest(m_altitude, m_extension);
+    m_transition = ArmPose.transition(from, m_pose);
+    DataLogger.getInstance().log(kGoalChannel, m_pose.ordinal(), from.ordinal());
+
+    switch (m_transition.lead) {
+      case ALTITUDE_FIRST:
+        moveAltitude();
+        m_trailingStarted = false;
+        break;
+      case EXTENSION_FIRST:
+        moveExtension();
+        m_trailingStarted = false;
+        break;
+      default:
+        double duration = Math.max(altitudeTime(), extensionTime());
+        moveAltitude(duration);
+        moveExtension(duration);
+        m_trailingStarted = true;
+        break;
+    }
+  }
+
+  @Override
+  public void execute() {
+    if (!m_trailingStarted && m_transition.isClear(m_altitude, m_extension)) {
+      if (m_transition.lead == Lead.ALTITUDE_FIRST) {
+        moveExtension();
+      } else {
+        moveAltitude();
+      }
+      m_trailingStarted = true;
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_trailingStarted && (!m_waitForArrival || m_pose.isAt(m_altitude, m_extension));
+  }
+
+  private void moveAltitude() {
+    moveAltitude(0);
+  }
+
+  private void moveExtension() {
+    moveExtension(0);
+  }
+
+  private void moveAltitude(double durationSeconds) {
+    if (m_pose.movesAltitude()) {
+      m_altitude.keepPositionDegrees(m_pose.altitudeDegrees, durationSeconds);
+    }
+  }
+
+  private void moveExtension(double durationSeconds) {
+    if (m_pose.movesExtension()) {
+      m_extension.keepPositionInches(m_pose.extensionInches, durationSeconds);
+    }
+  }
+
+  private double altitudeTime() {
+    return m_pose.movesAltitude() ? m_altitude.getProfileTimeDegrees(m_pose.altitudeDegrees) : 0;
+  }
+
+  private double extensionTime() {
+    return m_pose.movesExtension() ? m_extension.getProfileTimeInches(m_pose.extensionInches) : 0;
+  }
+}
@@ -1,19 +0,0 @@
-// Copyright (c) FIRST and other WPILib contributors.
-// Open Source Software; you can modify and/or share it under the terms of
-// the WPILib BSD license file in the root directory of this project.
-
-package frc.robot.commands;
-
-import edu.wpi.first.wpilibj2.command.InstantCommand;
-import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import frc.robot.Constants.AltitudeConstants;
-import frc.robot.subsystems.Altitude;
-
-public class MoveToHighConeFinalDropOff extends SequentialCommandGroup {
-    public MoveToHighConeFinalDropOff(Altitude m_altitude) {
-        addCommands(
-                new InstantCommand(
-                        () -> m_altitude
-                                .keepPositionDegrees(AltitudeConstants.kAltitudeHighDropOffFinalPositionDegrees)));
-    }
-}
\ No newline at end of file
@@ -24,9 +24,10 @@ public class ScoreBasedOnPosition extends SequentialCommandGroup {
     // Run Score Mid Cone
 
     addCommands(
-        // If Altitude is in Scoring or Travel Position, Score
-        m_altitude.AltitudeIsInScoringPosition() || m_altitude.AltitudeIsInTravelPosition()
-            ? new ConditionalCommand(
+        // If Altitude is in Scoring or Travel Position, Score. Checked when the
+        // command runs, not when it is built.
+        new ConditionalCommand(
+            new ConditionalCommand(
                 new ScoreCube(m_altitude, m_extension, m_intake),
                 // If Altitude is in scoring position, lower altitude slightly, then drop off
                 // cone and then return to travel simultaneously
@@ -36,8 +37,9 @@ public class ScoreBasedOnPosition extends SequentialCommandGroup {
                     new ScoreMidCone(m_altitude, m_extension, m_intake),
                     () -> m_extension.ExtensionIsInHighScoringPosition()),
                 // Is Altitude in travel position?
-                () -> m_altitude.AltitudeIsInTravelPosition())
+                () -> m_altitude.AltitudeIsInTravelPosition()),
             // If Altitude is not, do nothing
-            : new InstantCommand());
+            new InstantCommand(),
+            () -> m_altitude.AltitudeIsInScoringPosition() || m_altitude.AltitudeIsInTravelPosition()));
   }
 }
\ No newline at end of file
@@ -5,7 +5,7 @@
 package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
+import frc.robot.subsystems.ArmPose;
 import frc.robot.subsystems.Altitude;
 import frc.robot.subsystems.Extension;
 import frc.robot.subsystems.Intake;
@@ -17,12 +17,10 @@ public class ScoreHighCube extends SequentialCommandGroup {
             Intake m_intake) {
         addCommands(
                 // Prepare High Drop off Cube (move extension and altitude to proper position)
-                new MoveToHighCubeDropOff(m_extension, m_altitude),
-                new WaitUntilCommand(() -> m_extension.ExtensionIsInHighCubeShootPosition()),
-                new WaitUntilCommand(() -> m_altitude.AltitudeIsInHighCubeShootPosition()),
+                new MoveArm(m_extension, m_altitude, ArmPose.HIGH_CUBE_DROP_OFF),
                 // Run Eject Cube
                 new ScoreCube(m_altitude, m_extension, m_intake),
                 // Return to Travel Position
-                new MoveToTravelAfterScoring(m_extension, m_altitude));
+                new MoveArm(m_extension, m_altitude, ArmPose.TRAVEL));
     }
 }
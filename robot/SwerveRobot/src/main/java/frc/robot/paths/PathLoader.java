@@ -0,0 +1,109 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.paths;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.AutoConstants;
+
+/**
+ * Parses the PathPlanner paths in deploy/pathplanner on a background thread.
+ * {@link #preloadAll()} is called at boot so every path is parsed long before
+ * auto starts; each file is parsed once and the result is shared.
+ */
+public final class PathLoader {
+  private static PathLoader instance;
+
+  private final Path m_directory = Filesystem.getDeployDirectory().toPath().resolve("pathplanner");
+  private final Map<String, CompletableFuture<PathPlannerPath>> m_paths = new ConcurrentHashMap<>();
+  private final ExecutorService m_executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "PathLoader");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  private PathLoader() {
+  }
+
+  public static PathLoader getInstance() {
+    if (instance == null) {
+      instance = new PathLoader();
+    }
+    return instance;
+  }
+
+  /** Starts parsing every .path file in the deploy directory. */
+  public void preloadAll() {
+    if (!Files.isDirectory(m_directory)) {
+      return;
+    }
+    try (Stream<Path> files = Files.list(m_directory)) {
+      files.map(file -> file.getFileName().toString())
+          .filter(file -> file.endsWith(".path"))
+          .forEach(file -> load(file.substring(0, file.length() - ".path".length())));
+    } catch (IOException e) {
+      DriverStation.reportWarning("Unable to list " + m_directory, false);
+    }
+  }
+
+  /**
+   * Returns the path with the given name, parsing it in the background if it
+   * has not been requested before.
+   *
+   * @param name The file name without ".path"
+   * @return The parse, which completes exceptionally if the file is bad
+   */
+  public CompletableFuture<PathPlannerPath> load(String name) {
+    return m_paths.computeIfAbsent(name, key -> CompletableFuture.supplyAsync(() -> parse(key), m_executor));
+  }
+
+  /**
+   * Returns the path if it has been parsed, without waiting.
+   *
+   * @param name The file name without ".path"
+   * @return The path, or null if it is still parsing or failed to parse
+   */
+  public PathPlannerPath getIfReady(String name) {
+    CompletableFuture<PathPlannerPath> path = load(name);
+    return path.isDone() && !path.isCompletedExceptionally() ? path.join() : null;
+  }
+
+  /**
+   * Returns the path, waiting for it to be parsed. Use from command
+   * initialize(), by which time the boot preload has finished.
+   *
+   * @param name The file name without ".path"
+   * @return The path, or null if it failed to parse
+   */
+  public PathPlannerPath get(String name) {
+    try {
+      return load(name).join();
+    } catch (RuntimeException e) {
+      DriverStation.reportError("Unable to load path " + name + ": " + e.getMessage(), false);
+      return null;
+    }
+  }
+
+  private PathPlannerPath parse(String name) {
+    try {
+      return PathPlannerPath.fromFile(m_directory.resolve(name + ".path"),
+          AutoConstants.kMaxSpeedMetersPerSecond, AutoConstants.kMaxAccelerationMetersPerSecondSquared);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,323 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.paths;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.spline.PoseWithCurvature;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryParameterizer;
+import edu.wpi.first.math.trajectory.constraint.SwerveDriveKinematicsConstraint;
+import edu.wpi.first.math.trajectory.constraint.TrajectoryConstraint;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * A PathPlanner v1 .path file, turned into a time parameterized holonomic
+ * trajectory. The trajectory's poses face along the path; the robot's heading
+ * comes from {@link #getHolonomicRotation(double)}, which is interpolated
+ * between the waypoints' holonomic angles.
+ *
+ * <p>
+ * Each segment between two anchors is a cubic Bezier through the anchors'
+ * control points. The robot stops at stop points and reversals. A waypoint's
+ * velocity override caps the speed on the segment that starts at it.
+ */
+public class PathPlannerPath {
+  private static final ObjectMapper kMapper = new ObjectMapper();
+  private static final int kSamplesPerSegment = 100;
+
+  /** Named events at a point along the path. */
+  public static final class Marker {
+    public final double timeSeconds;
+    public final List<String> names;
+
+    Marker(double timeSeconds, List<String> names) {
+      this.timeSeconds = timeSeconds;
+      this.names = names;
+    }
+  }
+
+  /** Events to run while the robot is stopped at a stop point. */
+  public static final class StopEvent {
+    public final double timeSeconds;
+    public final List<String> names;
+    /** "parallel" or "sequential" */
+    public final String executionBehavior;
+    /** "none", "before", "after", "deadline" or "minimum" */
+    public final String waitBehavior;
+    public final double waitTimeSeconds;
+
+    StopEvent(double timeSeconds, List<String> names, String executionBehavior, String waitBehavior,
+        double waitTimeSeconds) {
+      this.timeSeconds = timeSeconds;
+      this.names = names;
+      this.executionBehavior = executionBehavior;
+      this.waitBehavior = waitBehavior;
+      this.waitTimeSeconds = waitTimeSeconds;
+    }
+  }
+
+  private final String m_name;
+  private final Trajectory m_trajectory;
+  // Holonomic heading of each trajectory state, in radians
+  private final double[] m_headings;
+  private final List<Marker> m_markers;
+  private final List<StopEvent> m_stopEvents;
+
+  private PathPlannerPath(String name, Trajectory trajectory, double[] headings, List<Marker> markers,
+      List<StopEvent> stopEvents) {
+    m_name = name;
+    m_trajectory = trajectory;
+    m_headings = headings;
+    m_markers = Collections.unmodifiableList(markers);
+    m_stopEvents = Collections.unmodifiableList(stopEvents);
+  }
+
+  public String getName() {
+    return m_name;
+  }
+
+  public Trajectory getTrajectory() {
+    return m_trajectory;
+  }
+
+  public double getTotalTimeSeconds() {
+    return m_trajectory.getTotalTimeSeconds();
+  }
+
+  public List<Marker> getMarkers() {
+    return m_markers;
+  }
+
+  public List<StopEvent> getStopEvents() {
+    return m_stopEvents;
+  }
+
+  /**
+   * Returns the starting pose with the robot facing its starting holonomic
+   * angle, for resetting odometry.
+   *
+   * @return The initial pose
+   */
+  public Pose2d getInitialHolonomicPose() {
+    return new Pose2d(m_trajectory.getInitialPose().getTranslation(), new Rotation2d(m_headings[0]));
+  }
+
+  /**
+   * Returns the heading the robot should face at a time along the path.
+   *
+   * @param timeSeconds Time since the start of the path
+   * @return The holonomic rotation
+   */
+  public Rotation2d getHolonomicRotation(double timeSeconds) {
+    List<Trajectory.State> states = m_trajectory.getStates();
+    if (timeSeconds <= 0) {
+      return new Rotation2d(m_headings[0]);
+    }
+    if (timeSeconds >= m_trajectory.getTotalTimeSeconds()) {
+      return new Rotation2d(m_headings[m_headings.length - 1]);
+    }
+
+    // First state at or after the time
+    int low = 1;
+    int high = states.size() - 1;
+    while (low < high) {
+      int mid = (low + high) / 2;
+      if (states.get(mid).timeSeconds < timeSeconds) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    Trajectory.State previous = states.get(low - 1);
+    Trajectory.State next = states.get(low);
+    double span = next.timeSeconds - previous.timeSeconds;
+    double fraction = span <= 0 ? 1 : (timeSeconds - previous.timeSeconds) / span;
+    return new Rotation2d(m_headings[low - 1]).interpolate(new Rotation2d(m_headings[low]), fraction);
+  }
+
+  /**
+   * Parses a .path file.
+   *
+   * @param file                   The .path file
+   * @param maxVelocityMetersPerSecond Velocity limit for the whole path
+   * @param maxAccelerationMetersPerSecondSq Acceleration limit for the whole
+   *                               path
+   * @return The parsed path
+   * @throws IOException If the file cannot be read or is not a v1 path
+   */
+  public static PathPlannerPath fromFile(Path file, double maxVelocityMetersPerSecond,
+      double maxAccelerationMetersPerSecondSq) throws IOException {
+    JsonNode root = kMapper.readTree(file.toFile());
+    JsonNode waypoints = root.get("waypoints");
+    if (waypoints == null || waypoints.size() < 2) {
+      throw new IOException(file + " needs at least two waypoints");
+    }
+    int segments = waypoints.size() - 1;
+
+    // Sample the Bezier segments. Point seg * kSamplesPerSegment is anchor seg;
+    // neighbouring segments share their anchor point.
+    List<PoseWithCurvature> points = new ArrayList<>();
+    double[] headings = new double[segments * kSamplesPerSegment + 1];
+    Map<Pose2d, Double> velocityOverrides = new IdentityHashMap<>();
+    double lastTangent = 0;
+    for (int seg = 0; seg < segments; seg++) {
+      JsonNode from = waypoints.get(seg);
+      JsonNode to = waypoints.get(seg + 1);
+      Translation2d p0 = point(from.get("anchorPoint"));
+      Translation2d p1 = controlOrAnchor(from.get("nextControl"), p0);
+      Translation2d p3 = point(to.get("anchorPoint"));
+      Translation2d p2 = controlOrAnchor(to.get("prevControl"), p3);
+      Rotation2d fromHeading = Rotation2d.fromDegrees(from.path("holonomicAngle").asDouble(0));
+      Rotation2d toHeading = Rotation2d.fromDegrees(to.path("holonomicAngle").asDouble(0));
+      JsonNode velOverride = from.get("velOverride");
+
+      for (int j = seg == 0 ? 0 : 1; j <= kSamplesPerSegment; j++) {
+        double t = (double) j / kSamplesPerSegment;
+        PoseWithCurvature sample = bezier(p0, p1, p2, p3, t, lastTangent);
+        lastTangent = sample.poseMeters.getRotation().getRadians();
+        points.add(sample);
+        headings[seg * kSamplesPerSegment + j] = fromHeading.interpolate(toHeading, t).getRadians();
+        if (velOverride != null && !velOverride.isNull()) {
+          velocityOverrides.put(sample.poseMeters, velOverride.asDouble());
+        }
+      }
+    }
+
+    // Parameterize each stretch between stops, then join them end to end
+    List<TrajectoryConstraint> constraints = List.of(
+        new SwerveDriveKinematicsConstraint(DriveConstants.kDriveKinematics, maxVelocityMetersPerSecond),
+        new VelocityOverrideConstraint(velocityOverrides));
+    List<Trajectory.State> states = new ArrayList<>();
+    List<StopEvent> stopEvents = new ArrayList<>();
+    int groupStart = 0;
+    for (int i = 1; i <= segments; i++) {
+      JsonNode waypoint = waypoints.get(i);
+      boolean stop = waypoint.path("isStopPoint").asBoolean(false) || waypoint.path("isReversal").asBoolean(false);
+      if (!stop && i != segments) {
+        continue;
+      }
+      List<Trajectory.State> group = TrajectoryParameterizer.timeParameterizeTrajectory(
+          points.subList(groupStart * kSamplesPerSegment, i * kSamplesPerSegment + 1), constraints,
+          0, 0, maxVelocityMetersPerSecond, maxAccelerationMetersPerSecondSq, false).getStates();
+      double offset = states.isEmpty() ? 0 : states.get(states.size() - 1).timeSeconds;
+      for (int k = states.isEmpty() ? 0 : 1; k < group.size(); k++) {
+        Trajectory.State state = group.get(k);
+        states.add(new Trajectory.State(state.timeSeconds + offset, state.velocityMetersPerSecond,
+            state.accelerationMetersPerSecondSq, state.poseMeters, state.curvatureRadPerMeter));
+      }
+      if (stop && i != segments) {
+        stopEvents.add(stopEvent(waypoint.get("stopEvent"), states.get(states.size() - 1).timeSeconds));
+      }
+      groupStart = i;
+    }
+
+    // The parameterizer keeps one state per sampled point, so sample i is
+    // state i; the headings and markers below rely on it
+    if (states.size() != headings.length) {
+      throw new IOException(file + " parameterized to " + states.size() + " states, expected " + headings.length);
+    }
+
+    // Markers are placed by waypoint position, e.g. 1.5 is halfway through
+    // the second segment
+    List<Marker> markers = new ArrayList<>();
+    for (JsonNode marker : root.path("markers")) {
+      double position = Math.max(0, Math.min(segments, marker.path("position").asDouble(0)));
+      int index = (int) Math.round(position * kSamplesPerSegment);
+      markers.add(new Marker(states.get(index).timeSeconds, names(marker.get("names"))));
+    }
+
+    String name = file.getFileName().toString().replaceFirst("\\.path$", "");
+    return new PathPlannerPath(name, new Trajectory(states), headings, markers, stopEvents);
+  }
+
+  private static Translation2d point(JsonNode node) {
+    return new Translation2d(node.get("x").asDouble(), node.get("y").asDouble());
+  }
+
+  private static Translation2d controlOrAnchor(JsonNode control, Translation2d anchor) {
+    return control == null || control.isNull() ? anchor : point(control);
+  }
+
+  private static List<String> names(JsonNode node) {
+    List<String> names = new ArrayList<>();
+    if (node != null) {
+      for (JsonNode name : node) {
+        names.add(name.asText());
+      }
+    }
+    return Collections.unmodifiableList(names);
+  }
+
+  private static StopEvent stopEvent(JsonNode node, double timeSeconds) {
+    if (node == null || node.isNull()) {
+      return new StopEvent(timeSeconds, List.of(), "parallel", "none", 0);
+    }
+    return new StopEvent(timeSeconds, names(node.get("names")),
+        node.path("executionBehavior").asText("parallel"),
+        node.path("waitBehavior").asText("none"),
+        node.path("waitTime").asDouble(0));
+  }
+
+  // Point, tangent and curvature of a cubic Bezier. Where the tangent vanishes
+  // (a control point on its anchor) the previous tangent is kept.
+  private static PoseWithCurvature bezier(Translation2d p0, Translation2d p1, Translation2d p2, Translation2d p3,
+      double t, double lastTangent) {
+    double u = 1 - t;
+    double x = u * u * u * p0.getX() + 3 * u * u * t * p1.getX() + 3 * u * t * t * p2.getX()
+        + t * t * t * p3.getX();
+    double y = u * u * u * p0.getY() + 3 * u * u * t * p1.getY() + 3 * u * t * t * p2.getY()
+        + t * t * t * p3.getY();
+    double dx = 3 * u * u * (p1.getX() - p0.getX()) + 6 * u * t * (p2.getX() - p1.getX())
+        + 3 * t * t * (p3.getX() - p2.getX());
+    double dy = 3 * u * u * (p1.getY() - p0.getY()) + 6 * u * t * (p2.getY() - p1.getY())
+        + 3 * t * t * (p3.getY() - p2.getY());
+    double ddx = 6 * u * (p2.getX() - 2 * p1.getX() + p0.getX()) + 6 * t * (p3.getX() - 2 * p2.getX() + p1.getX());
+    double ddy = 6 * u * (p2.getY() - 2 * p1.getY() + p0.getY()) + 6 * t * (p3.getY() - 2 * p2.getY() + p1.getY());
+
+    double speedSquared = dx * dx + dy * dy;
+    if (speedSquared < 1e-12) {
+      return new PoseWithCurvature(new Pose2d(x, y, new Rotation2d(lastTangent)), 0);
+    }
+    double curvature = (dx * ddy - dy * ddx) / (speedSquared * Math.sqrt(speedSquared));
+    return new PoseWithCurvature(new Pose2d(x, y, new Rotation2d(dx, dy)), curvature);
+  }
+
+  /**
+   * Caps the velocity on segments with a velocity override. The parameterizer
+   * passes back the exact sampled poses, so they are looked up by identity.
+   */
+  private static final class VelocityOverrideConstraint implements TrajectoryConstraint {
+    private final Map<Pose2d, Double> m_overrides;
+
+    VelocityOverrideConstraint(Map<Pose2d, Double> overrides) {
+      m_overrides = overrides;
+    }
+
+    @Override
+    public double getMaxVelocityMetersPerSecond(Pose2d poseMeters, double curvatureRadPerMeter,
+        double velocityMetersPerSecond) {
+      return m_overrides.getOrDefault(poseMeters, Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public MinMax getMinMaxAccelerationMetersPerSecondSq(Pose2d poseMeters, double curvatureRadPerMeter,
+        double velocityMetersPerSecond) {
+      return new MinMax();
+    }
+  }
+}
@@ -11,20 +11,57 @@ import com.revrobotics.CANSparkMax.ControlType;
 import com.revrobotics.CANSparkMax.IdleMode;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.State;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.ExtensionConstants;
+import frc.robot.Constants.SetpointConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.Constants.TuningModeConstants;
+import frc.robot.RobotLoop;
+import frc.robot.StatusFrameManager;
+import frc.robot.StatusFrameManager.Role;
+import frc.utils.SparkMaxConfig;
+import frc.utils.SparkMaxConfigurator;
+import frc.utils.SparkMaxSetpoint;
 
 import static frc.robot.Constants.AltitudeConstants;
 import static frc.robot.Constants.SubsystemMotorConstants;
 
 import java.util.function.BooleanSupplier;
 
+import frc.robot.DataLogger;
+import frc.robot.LoopProfiler;
+import frc.robot.Telemetry;
+import frc.robot.Telemetry.Priority;
+import frc.utils.JointProfile;
+import frc.utils.LoopHistogram;
+import frc.utils.SparkMaxSim;
+
 public class Altitude extends SubsystemBase {
+  private final LoopHistogram m_periodicTiming = LoopProfiler.getInstance().channel("Altitude.periodic()");
+
   private boolean TUNING_MODE = TuningModeConstants.kAltitudeTuning;
 
+  private final DataLogger m_logger = DataLogger.getInstance();
+  private final int m_keepPositionChannel = m_logger.addChannel("Altitude/KeepPosition", "position", "slot");
+  private final int m_inHighCubeShootPositionEvent = m_logger.addEvent("Altitude in HIGH CUBE SHOOT position");
+  private final int m_inHighDropOffFinalPositionEvent = m_logger.addEvent("Altitude in HIGH DROP OFF FINAL position");
+  private final int m_inIntakePositionEvent = m_logger.addEvent("Altitude in INTAKE position");
+  private final int m_inMidDropOffFinalPositionEvent = m_logger.addEvent("Altitude in MID DROP OFF FINAL position");
+  private final int m_inScoringPositionEvent = m_logger.addEvent("Altitude in SCORING position");
+  private final int m_inTravelPositionEvent = m_logger.addEvent("Altitude in TRAVEL position");
+
   private Extension m_extension;
   /** Creates a new Altitude. */
 
@@ -40,6 +77,48 @@ public class Altitude extends SubsystemBase {
   private SparkMaxLimitSwitch m_altitudeBottomLimit;
 
   private SparkMaxPIDController m_altitudePIDController = m_altitudeMotor.getPIDController();
+  // All output goes through here so repeated setpoints are not resent
+  private final SparkMaxSetpoint m_setpoint = new SparkMaxSetpoint(m_altitudePIDController,
+      SetpointConstants.kArmPositionEpsilon, SetpointConstants.kKeepAliveSeconds);
+
+  // Closed loop moves follow this profile, stepped in periodic()
+  private final JointProfile m_profile = new JointProfile(
+      new TrapezoidProfile.Constraints(AltitudeConstants.kAltitudeMaxVelocity,
+          AltitudeConstants.kAltitudeMaxAcceleration),
+      TimedRobot.kDefaultPeriod);
+  private int m_slotID = kRaisePIDSlot;
+
+  // Desktop simulation, the arm pivots up from horizontal so 0 degrees of
+  // altitude (straight up) is 90 degrees of arm angle
+  private final boolean m_simulated = RobotBase.isSimulation();
+  private SparkMaxSim m_sparkMaxSim;
+  private SingleJointedArmSim m_armSim;
+  private double m_simPosition = 0;
+  // Encoder resets move the reading, not the simulated arm
+  private double m_simOffset = 0;
+
+  /**
+   * Sensor readings taken once per loop. All position checks in a loop use the
+   * same reading, so they agree with each other and cost no extra CAN reads.
+   * The same snapshot is overwritten each loop, so the loop does not allocate.
+   */
+  public static final class Snapshot {
+    private double m_position;
+    private boolean m_topLimitPressed;
+
+    private Snapshot() {
+    }
+
+    public double getPosition() {
+      return m_position;
+    }
+
+    public boolean isTopLimitPressed() {
+      return m_topLimitPressed;
+    }
+  }
+
+  private final Snapshot m_snapshot = new Snapshot();
 
   // Raise PID coefficients
   static int kRaisePIDSlot = 0;
@@ -75,33 +154,17 @@ public class Altitude extends SubsystemBase {
 
   public Altitude(Extension Extension) {
     m_extension = Extension;
-    m_altitudeMotor.setIdleMode(IdleMode.kBrake);
-    m_altitudeMotor.setSmartCurrentLimit(SubsystemMotorConstants.kMotorCurrentLimit);
-    m_altitudeMotor.setOpenLoopRampRate(AltitudeConstants.kAltitudeRampRate);
-
-    m_altitudePIDController.setFeedbackDevice(m_altitudeEncoder);
-
-    // ** RAISE PID: Use Raise coefficients and slotID for Raise PID */
-    m_altitudePIDController.setP(kPRaise, kRaisePIDSlot);
-    m_altitudePIDController.setI(kIRaise, kRaisePIDSlot);
-    m_altitudePIDController.setD(kDRaise, kRaisePIDSlot);
-    m_altitudePIDController.setFF(kFFRaise, kRaisePIDSlot);
-    m_altitudePIDController.setOutputRange(kMinOutputRaise, kMaxOutputRaise, kRaisePIDSlot);
-    m_altitudePIDController.setSmartMotionMaxAccel(0.5, kRaisePIDSlot);
-    m_altitudePIDController.setSmartMotionMaxVelocity(0.5, kRaisePIDSlot);
-    // TODO. What should these values be?
-    m_altitudePIDController.setSmartMotionMaxAccel(0.5, kLowerPIDSlot);
-    m_altitudePIDController.setSmartMotionMaxVelocity(0.5, kLowerPIDSlot);
-
-    // ** LOWER PID: Use Lower coefficients and slotID for Lower PID
-    m_altitudePIDController.setP(kPLower, kLowerPIDSlot);
-    m_altitudePIDController.setI(kILower, kLowerPIDSlot);
-    m_altitudePIDController.setD(kDLower, kLowerPIDSlot);
-    m_altitudePIDController.setFF(kFFLower, kLowerPIDSlot);
-    m_altitudePIDController.setOutputRange(kMinOutputLower, kMaxOutputLower, kLowerPIDSlot);
-    // TODO. What should these values be?
-    m_altitudePIDController.setSmartMotionMaxAccel(0.5, kLowerPIDSlot);
-    m_altitudePIDController.setSmartMotionMaxVelocity(0.5, kLowerPIDSlot);
+    SparkMaxConfigurator.getInstance().submit(new SparkMaxConfig(m_altitudeMotor, "Altitude")
+        .idleMode(IdleMode.kBrake)
+        .smartCurrentLimit(SubsystemMotorConstants.kMotorCurrentLimit)
+        .openLoopRampRate(AltitudeConstants.kAltitudeRampRate)
+        .feedbackDevice(m_altitudePIDController, m_altitudeEncoder)
+        // ** RAISE PID: Use Raise coefficients and slotID for Raise PID */
+        .pid(m_altitudePIDController, kRaisePIDSlot, kPRaise, kIRaise, kDRaise, kFFRaise, kMinOutputRaise,
+            kMaxOutputRaise)
+        // ** LOWER PID: Use Lower coefficients and slotID for Lower PID
+        .pid(m_altitudePIDController, kLowerPIDSlot, kPLower, kILower, kDLower, kFFLower, kMinOutputLower,
+            kMaxOutputLower));
 
     /**
      * A SparkMaxLimitSwitch object is constructed using the getForwardLimitSwitch()
@@ -116,9 +179,22 @@ public class Altitude extends SubsystemBase {
     m_altitudeTopLimit = m_altitudeMotor.getForwardLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
     m_altitudeBottomLimit = m_altitudeMotor.getReverseLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
 
-    // Save the SPARK MAX configurations. If a SPARK MAX browns out during
-    // operation, it will maintain the above configurations.
-    m_altitudeMotor.burnFlash();
+    StatusFrameManager.getInstance().register(m_altitudeMotor, Role.ARM, m_setpoint);
+    RobotLoop.getInstance().addInput(this::readSensors);
+    RobotLoop.getInstance().addOutput(m_setpoint::flush);
+
+    if (m_simulated) {
+      m_sparkMaxSim = new SparkMaxSim(kPRaise, 0, kMinOutputRaise, kMaxOutputRaise);
+      m_armSim = new SingleJointedArmSim(DCMotor.getNEO(1), SimConstants.kAltitudeGearing,
+          SingleJointedArmSim.estimateMOI(SimConstants.kAltitudeArmLengthMeters, SimConstants.kAltitudeArmMassKg),
+          SimConstants.kAltitudeArmLengthMeters,
+          Math.toRadians(90 - AltitudeConstants.kAltitudeTotalDegrees - 5), Math.toRadians(95), true);
+      m_armSim.setState(VecBuilder.fill(Math.toRadians(90), 0));
+    }
+
+    readSensors();
+
+    Telemetry.getInstance().addDouble("Altitude: Current reading", Priority.NORMAL, this::getCurrentAltitude);
 
     // If we're fine-tuning PID Constants, the display them on the dashboard
     if (TUNING_MODE) {
@@ -130,8 +206,6 @@ public class Altitude extends SubsystemBase {
 
   /** The log method puts interesting information to the SmartDashboard. */
   public void log() {
-    SmartDashboard.putNumber("Altitude: Current reading", getCurrentAltitude());
-
     if (TUNING_MODE) {
       // SmartDashboard.putBoolean("Altitude at Top Position",
       // m_altitudeTopLimit.isPressed());
@@ -150,22 +224,22 @@ public class Altitude extends SubsystemBase {
 
   public void logPositionsReached() {
     if (AltitudeIsInHighCubeShootPosition()) {
-      System.out.println("Altitude in HIGH CUBE SHOOT position");
+      m_logger.event(m_inHighCubeShootPositionEvent);
     }
     if (AltitudeIsInHighDropOffFinalPosition()) {
-      System.out.println("Altitude in HIGH DROP OFF FINAL position");
+      m_logger.event(m_inHighDropOffFinalPositionEvent);
     }
     if (AltitudeIsInIntakePosition()) {
-      System.out.println("Altitude in INTAKE position");
+      m_logger.event(m_inIntakePositionEvent);
     }
     if (AltitudeIsInMidDropOffFinalPosition()) {
-      System.out.println("Altitude in MID DROP OFF FINAL position");
+      m_logger.event(m_inMidDropOffFinalPositionEvent);
     }
     if (AltitudeIsInScoringPosition()) {
-      System.out.println("Altitude in SCORING position");
+      m_logger.event(m_inScoringPositionEvent);
     }
     if (AltitudeIsInTravelPosition()) {
-      System.out.println("Altitude in TRAVEL position");
+      m_logger.event(m_inTravelPositionEvent);
     }
   }
 
@@ -319,6 +393,10 @@ public class Altitude extends SubsystemBase {
   /** Call log method every loop. */
   @Override
   public void periodic() {
+    long start = System.nanoTime();
+
+    followProfile();
+
     log();
 
     enforceSafeExtensions();
@@ -326,50 +404,97 @@ public class Altitude extends SubsystemBase {
     // resetAltitudeEncoderAtTopLimit();
     AltitudeIsInTravelPosition();
     AltitudeIsInIntakePosition();
+
+    m_periodicTiming.recordSince(start);
+  }
+
+  @Override
+  public void simulationPeriodic() {
+    m_armSim.setInputVoltage(m_sparkMaxSim.getVoltage(m_simPosition, 0, RobotController.getBatteryVoltage()));
+    m_armSim.update(TimedRobot.kDefaultPeriod);
+    double degrees = 90 - Math.toDegrees(m_armSim.getAngleRads());
+    m_simPosition = degrees * AltitudeConstants.kAltitudeRevolutionsPerDegree + m_simOffset;
   }
 
   /** Resets the Altitude encoder to currently read a position of 0. */
   public void reset() {
+    // The profile's setpoints are in the old encoder coordinates
+    m_profile.stop();
     m_altitudeEncoder.setPosition(0);
+    setSimPosition(0);
+    readSensors();
+  }
+
+  private void setSimPosition(double position) {
+    m_simOffset += position - m_simPosition;
+    m_simPosition = position;
+  }
+
+  // Reads the sensors into the snapshot, once per loop
+  private void readSensors() {
+    double position = m_simulated ? m_simPosition : m_altitudeEncoder.getPosition();
+    m_snapshot.m_position = position;
+    m_snapshot.m_topLimitPressed = m_altitudeTopLimit.isPressed();
+  }
+
+  /**
+   * Returns this loop's sensor readings.
+   *
+   * @return The snapshot taken in this loop's input stage
+   */
+  public Snapshot getSnapshot() {
+    return m_snapshot;
   }
 
   // Reset the altitude Encoder when the top limit is pressed
   public boolean isAltitudeTopLimitHit() {
-    return m_altitudeTopLimit.isPressed() == true;
+    return m_snapshot.isTopLimitPressed() == true;
   }
 
   public void resetAltitudeEncoderAtTopLimit() {
+    m_profile.stop();
     m_altitudeEncoder.setPosition(-0.1);
+    setSimPosition(-0.1);
+    readSensors();
   };
 
   /** ALTITUDE **/
   // Run the Altitude motor forward
   public void raiseAltitude() {
-    m_altitudeMotor.set(AltitudeConstants.kAltitudeRaiseSpeed);
+    setOpenLoop(AltitudeConstants.kAltitudeRaiseSpeed);
   }
 
   // Run the Altitude motor in reverse
   public void lowerAltitude() {
-    m_altitudeMotor.set(-AltitudeConstants.kAltitudeLowerSpeed);
+    setOpenLoop(-AltitudeConstants.kAltitudeLowerSpeed);
   }
 
   // Stop the Altitude
   public void stopAltitude() {
-    m_altitudeMotor.set(0);
+    setOpenLoop(0);
   }
 
   // Manually move altitude
   public void moveAltitude(double speed) {
-    m_altitudeMotor.set(speed);
+    setOpenLoop(speed);
+  }
+
+  // Drive the motor directly, dropping any profiled move
+  private void setOpenLoop(double speed) {
+    m_profile.stop();
+    m_setpoint.setDutyCycle(speed);
+    if (m_simulated) {
+      m_sparkMaxSim.setDutyCycle(speed);
+    }
   }
 
   // Returns the current altitude
   public double getCurrentAltitude() {
-    return m_altitudeEncoder.getPosition();
+    return m_snapshot.getPosition();
   }
 
   /**
-   * Move to and stay at a certain altitude
+   * Move to and stay at a certain altitude, following a motion profile
    * Use the Raising PID coefficients if we are going up
    * Otherwise use the Lowering PID coefficients
    * 
@@ -377,86 +502,129 @@ public class Altitude extends SubsystemBase {
    **/
 
   public void keepPosition(double positionAltitude) {
-    boolean raising = getCurrentAltitude() <= positionAltitude;
-    int slotID = raising ? kRaisePIDSlot : kLowerPIDSlot;
+    keepPosition(positionAltitude, 0);
+  }
 
-    // Set the position using the correct SlotID for desired PID controller (raise
-    // vs lower)
-    m_altitudePIDController.setReference(positionAltitude, ControlType.kPosition, slotID);
+  /**
+   * Move to and stay at a certain altitude, taking at least the given time so
+   * that another joint can arrive together with this one
+   *
+   * @param positionAltitude The desired altitude
+   * @param durationSeconds  How long the move should take
+   */
+  public void keepPosition(double positionAltitude, double durationSeconds) {
+    boolean raising = getCurrentAltitude() <= positionAltitude;
+    // Holding the same goal keeps the slot it was approached with
+    if (m_profile.setGoal(positionAltitude, getCurrentAltitude(), durationSeconds)) {
+      m_slotID = raising ? kRaisePIDSlot : kLowerPIDSlot;
+      m_logger.log(m_keepPositionChannel, positionAltitude, m_slotID);
+    }
 
     if (TUNING_MODE) {
       SmartDashboard.putString("ALTITUDE MODE", raising ? "RAISING" : "LOWERING");
       SmartDashboard.putNumber("Altitude Desired position", positionAltitude);
-      System.out.println("Keep ALTITUDE " + positionAltitude);
     }
   }
 
   // Maintain position in degrees
   public void keepPositionDegrees(double degreesAltitude) {
-    // set degrees in altitude, convert to encoder value)
-    double positionAltitude;
-    positionAltitude = degreesAltitude * AltitudeConstants.kAltitudeRevolutionsPerDegree - 0.1;
+    keepPosition(degreesToPosition(degreesAltitude));
+  }
 
-    boolean raising = getCurrentAltitude() <= positionAltitude;
-    int slotID = raising ? kRaisePIDSlot : kLowerPIDSlot;
+  public void keepPositionDegrees(double degreesAltitude, double durationSeconds) {
+    keepPosition(degreesToPosition(degreesAltitude), durationSeconds);
+  }
 
-    // Set the position using the correct SlotID for desired PID controller (raise
-    // vs lower)
-    m_altitudePIDController.setReference(positionAltitude, ControlType.kPosition, slotID);
+  // Time a full speed move to the altitude would take, in seconds
+  public double getProfileTimeDegrees(double degreesAltitude) {
+    return m_profile.timeTo(degreesToPosition(degreesAltitude), getCurrentAltitude());
+  }
 
-    if (TUNING_MODE) {
-      SmartDashboard.putString("ALTITUDE MODE", raising ? "RAISING" : "LOWERING");
-      SmartDashboard.putNumber("Altitude Desired position", positionAltitude);
-      System.out.println("Keep ALTITUDE " + positionAltitude);
+  // set degrees in altitude, convert to encoder value. Also used by ArmPose,
+  // so its checks match the setpoint.
+  static double degreesToPosition(double degreesAltitude) {
+    return degreesAltitude * AltitudeConstants.kAltitudeRevolutionsPerDegree - 0.1;
+  }
+
+  // Send this loop's profile setpoint to the SPARK MAX, with gravity
+  // feedforward
+  private void followProfile() {
+    if (!m_profile.isActive()) {
+      return;
+    }
+    State setpoint = m_profile.step();
+    double feedforward = getGravityFeedforward();
+    m_setpoint.setReference(setpoint.position, ControlType.kPosition, m_slotID,
+        feedforward, ArbFFUnits.kVoltage);
+    if (m_simulated) {
+      if (m_slotID == kRaisePIDSlot) {
+        m_sparkMaxSim.setGains(kPRaise, 0, kMinOutputRaise, kMaxOutputRaise);
+      } else {
+        m_sparkMaxSim.setGains(kPLower, 0, kMinOutputLower, kMaxOutputLower);
+      }
+      m_sparkMaxSim.setPosition(setpoint.position, feedforward);
     }
   }
 
+  /**
+   * Volts needed to hold the arm against gravity. The torque grows with the
+   * angle from vertical and with how far the arm is extended.
+   *
+   * @return The feedforward in volts, positive raises the arm
+   */
+  public double getGravityFeedforward() {
+    double degrees = getCurrentAltitude() / AltitudeConstants.kAltitudeRevolutionsPerDegree;
+    double inches = m_extension.getCurrentExtensionPosition() / ExtensionConstants.kExtensionRevolutionsPerInch;
+    return (AltitudeConstants.kAltitudeGravityVolts
+        + AltitudeConstants.kAltitudeGravityVoltsPerInch * inches)
+        * Math.sin(Math.toRadians(degrees));
+  }
+
   // Tell Us if Altitude as At Set Positions
 
   public boolean AltitudeIsInTravelPosition() {
-    return m_altitudeEncoder
-        .getPosition() > (AltitudeConstants.kAltitudeTravelPosition
+    return m_snapshot.getPosition() > (AltitudeConstants.kAltitudeTravelPosition
             - AltitudeConstants.kAltitudePositionTolerance);
   }
 
   public boolean AltitudeIsInSingleSubstationPosition() {
-    return m_altitudeEncoder.getPosition() < AltitudeConstants.kAltitudeSingleSubstationPosition
+    return m_snapshot.getPosition() < AltitudeConstants.kAltitudeSingleSubstationPosition
         + AltitudeConstants.kAltitudePositionTolerance &&
-        m_altitudeEncoder.getPosition() > AltitudeConstants.kAltitudeSingleSubstationPosition
+        m_snapshot.getPosition() > AltitudeConstants.kAltitudeSingleSubstationPosition
             - AltitudeConstants.kAltitudePositionTolerance;
   }
 
   public boolean AltitudeIsInIntakePosition() {
-    return m_altitudeEncoder.getPosition() < AltitudeConstants.kAltitudeIntakePosition
+    return m_snapshot.getPosition() < AltitudeConstants.kAltitudeIntakePosition
         + AltitudeConstants.kAltitudePositionTolerance;
 
   }
 
   public boolean AltitudeIsInScoringPosition() {
-    return m_altitudeEncoder.getPosition() < AltitudeConstants.kAltitudeHighDropOffPosition
+    return m_snapshot.getPosition() < AltitudeConstants.kAltitudeHighDropOffPosition
         + AltitudeConstants.kAltitudePositionTolerance &&
-        m_altitudeEncoder.getPosition() > AltitudeConstants.kAltitudeMidDropOffPosition
+        m_snapshot.getPosition() > AltitudeConstants.kAltitudeMidDropOffPosition
             - AltitudeConstants.kAltitudePositionTolerance;
   };
 
   public boolean AltitudeIsInHighDropOffFinalPosition() {
-    return m_altitudeEncoder.getPosition() < AltitudeConstants.kAltitudeHighDropOffFinalPosition
+    return m_snapshot.getPosition() < AltitudeConstants.kAltitudeHighDropOffFinalPosition
         + AltitudeConstants.kAltitudePositionTolerance &&
-        m_altitudeEncoder.getPosition() > AltitudeConstants.kAltitudeHighDropOffFinalPosition
+        m_snapshot.getPosition() > AltitudeConstants.kAltitudeHighDropOffFinalPosition
             - AltitudeConstants.kAltitudePositionTolerance;
   };
 
   public boolean AltitudeIsInMidDropOffFinalPosition() {
-    return m_altitudeEncoder.getPosition() < AltitudeConstants.kAltitudeMidDropOffFinalPosition
+    return m_snapshot.getPosition() < AltitudeConstants.kAltitudeMidDropOffFinalPosition
         + AltitudeConstants.kAltitudePositionTolerance &&
-        m_altitudeEncoder.getPosition() > AltitudeConstants.kAltitudeMidDropOffFinalPosition
+        m_snapshot.getPosition() > AltitudeConstants.kAltitudeMidDropOffFinalPosition
             - AltitudeConstants.kAltitudePositionTolerance;
   };
 
   public boolean AltitudeIsInHighCubeShootPosition() {
-    return m_altitudeEncoder.getPosition() < AltitudeConstants.kAltitudeHighCubeShootPosition
+    return m_snapshot.getPosition() < AltitudeConstants.kAltitudeHighCubeShootPosition
         + AltitudeConstants.kAltitudePositionTolerance &&
-        m_altitudeEncoder.getPosition() > AltitudeConstants.kAltitudeHighCubeShootPosition
+        m_snapshot.getPosition() > AltitudeConstants.kAltitudeHighCubeShootPosition
             - AltitudeConstants.kAltitudePositionTolerance;
   };
 
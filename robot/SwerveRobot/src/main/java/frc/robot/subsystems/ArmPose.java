@@ -0,0 +1,179 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.EnumMap;
+import java.util.function.BiPredicate;
+
+import frc.robot.Constants.AltitudeConstants;
+import frc.robot.Constants.ExtensionConstants;
+
+/**
+ * Named arm poses (altitude degrees plus extension inches) and the safe
+ * transition between every pair of them. A NaN joint target means the pose
+ * leaves that joint where it is.
+ */
+public enum ArmPose {
+  TRAVEL(AltitudeConstants.kAltitudeTravelPositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesFullyRetracted),
+  INTAKE(AltitudeConstants.kAltitudeIntakePositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesIntakeOut),
+  // Cone drop off: extend at the drop off altitude, lower once extended, then
+  // lower further to release
+  HIGH_CONE_DROP_OFF(AltitudeConstants.kAltitudeDropOffPositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesHighDropOff),
+  HIGH_CONE_LOWERED(AltitudeConstants.kAltitudeHighDropOffPositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesHighDropOff),
+  HIGH_CONE_FINAL(AltitudeConstants.kAltitudeHighDropOffFinalPositionDegrees, Double.NaN),
+  MID_CONE_DROP_OFF(AltitudeConstants.kAltitudeDropOffPositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesMidDropOff),
+  MID_CONE_LOWERED(AltitudeConstants.kAltitudeMidDropOffPositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesMidDropOff),
+  MID_CONE_FINAL(AltitudeConstants.kAltitudeMidDropOffFinalPositionDegrees, Double.NaN),
+  HIGH_CUBE_DROP_OFF(AltitudeConstants.kAltitudeHighCubeShootPositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesHighCubeShooter),
+  MID_CUBE_DROP_OFF(Double.NaN, ExtensionConstants.kExtensionPositionInchesMidCubeShooter),
+  CUBE_SHOOT(Double.NaN, ExtensionConstants.kExtensionPositionInchesCubeShooter),
+  DOUBLE_SUBSTATION(AltitudeConstants.kAltitudeDoubleSubstationPositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesMidDropOff),
+  SINGLE_SUBSTATION(AltitudeConstants.kAltitudeSingleSubstationPositionDegrees,
+      ExtensionConstants.kExtensionPositionInchesSingleSubstation);
+
+  /** Which joint moves first on the way to a pose. */
+  public enum Lead {
+    TOGETHER, ALTITUDE_FIRST, EXTENSION_FIRST
+  }
+
+  /**
+   * How to get from one pose to another: which joint leads, and once the
+   * leading joint is clear, when the other one may start.
+   */
+  public static final class Transition {
+    public final Lead lead;
+    private final BiPredicate<Altitude, Extension> m_clear;
+
+    Transition(Lead lead, BiPredicate<Altitude, Extension> clear) {
+      this.lead = lead;
+      m_clear = clear;
+    }
+
+    public boolean isClear(Altitude altitude, Extension extension) {
+      return m_clear.test(altitude, extension);
+    }
+  }
+
+  private static final EnumMap<ArmPose, EnumMap<ArmPose, Transition>> kTransitions = new EnumMap<>(ArmPose.class);
+
+  public final double altitudeDegrees;
+  public final double extensionInches;
+  // Targets in encoder units, converted the same way as the setpoints sent to
+  // the subsystems
+  private final double m_altitudePosition;
+  private final double m_extensionPosition;
+
+  ArmPose(double altitudeDegrees, double extensionInches) {
+    this.altitudeDegrees = altitudeDegrees;
+    this.extensionInches = extensionInches;
+    m_altitudePosition = Altitude.degreesToPosition(altitudeDegrees);
+    m_extensionPosition = Extension.inchesToPosition(extensionInches);
+  }
+
+  public boolean movesAltitude() {
+    return !Double.isNaN(altitudeDegrees);
+  }
+
+  public boolean movesExtension() {
+    return !Double.isNaN(extensionInches);
+  }
+
+  public boolean isAltitudeAt(Altitude altitude) {
+    return !movesAltitude() || Math.abs(altitude.getCurrentAltitude()
+        - m_altitudePosition) < AltitudeConstants.kAltitudePositionTolerance;
+  }
+
+  public boolean isExtensionAt(Extension extension) {
+    return !movesExtension() || Math.abs(extension.getCurrentExtensionPosition()
+        - m_extensionPosition) < ExtensionConstants.kExtensionPositionTolerance;
+  }
+
+  public boolean isAt(Altitude altitude, Extension extension) {
+    return isAltitudeAt(altitude) && isExtensionAt(extension);
+  }
+
+  /**
+   * Returns the full pose closest to the current arm position, used as the
+   * starting point of a transition.
+   *
+   * @param altitude  The altitude subsystem
+   * @param extension The extension subsystem
+   * @return The nearest pose that sets both joints
+   */
+  public static ArmPose nearest(Altitude altitude, Extension extension) {
+    ArmPose nearest = TRAVEL;
+    double nearestDistance = Double.MAX_VALUE;
+    for (ArmPose pose : values()) {
+      if (!pose.movesAltitude() || !pose.movesExtension()) {
+        continue;
+      }
+      // Scale each joint by its tolerance so both count the same
+      double altitudeError = (altitude.getCurrentAltitude() - pose.m_altitudePosition)
+          / AltitudeConstants.kAltitudePositionTolerance;
+      double extensionError = (extension.getCurrentExtensionPosition() - pose.m_extensionPosition)
+          / ExtensionConstants.kExtensionPositionTolerance;
+      double distance = altitudeError * altitudeError + extensionError * extensionError;
+      if (distance < nearestDistance) {
+        nearest = pose;
+        nearestDistance = distance;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Returns the precomputed transition between two poses.
+   *
+   * @param from The pose the arm is leaving
+   * @param to   The pose the arm is going to
+   * @return The transition
+   */
+  public static Transition transition(ArmPose from, ArmPose to) {
+    return kTransitions.get(from).get(to);
+  }
+
+  static {
+    Transition together = new Transition(Lead.TOGETHER, (altitude, extension) -> true);
+    // Pull the arm in before raising it, so it never swings up extended
+    Transition retractThenRaise = new Transition(Lead.EXTENSION_FIRST,
+        (altitude, extension) -> extension.ExtensionIsInDropOffReturnPosition());
+    // Coming up from the floor, raise clear of the bumpers before retracting
+    Transition raiseThenRetract = new Transition(Lead.ALTITUDE_FIRST,
+        (altitude, extension) -> altitude.AltitudeIsInScoringPosition());
+
+    for (ArmPose from : values()) {
+      EnumMap<ArmPose, Transition> row = new EnumMap<>(ArmPose.class);
+      for (ArmPose to : values()) {
+        Transition transition;
+        if (from == to || !to.movesAltitude() || !to.movesExtension()) {
+          transition = together;
+        } else if (to == TRAVEL && from == INTAKE) {
+          transition = raiseThenRetract;
+        } else if (to == TRAVEL
+            && from.extensionInches > ExtensionConstants.kExtensionPositionInchesHighDropOffReturn) {
+          // Only the high cone poses reach past the return position, the
+          // rest swing to travel with both joints together
+          transition = retractThenRaise;
+        } else if (to == DOUBLE_SUBSTATION || to == HIGH_CONE_LOWERED || to == MID_CONE_LOWERED) {
+          // Reach out first, then change the angle
+          transition = new Transition(Lead.EXTENSION_FIRST,
+              (altitude, extension) -> to.isExtensionAt(extension));
+        } else {
+          transition = together;
+        }
+        row.put(to, transition);
+      }
+      kTransitions.put(from, row);
+    }
+  }
+}
@@ -5,17 +5,18 @@
 package frc.robot.subsystems;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
-import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.util.WPIUtilJNI;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.RobotState;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.TimedRobot;
 
 import com.ctre.phoenix.sensors.WPI_Pigeon2;
 
@@ -23,9 +24,13 @@ import frc.robot.Constants.AltitudeConstants;
 import frc.robot.Constants.DriveConstants;
 import frc.robot.Constants.ExtensionConstants;
 import frc.robot.Constants.TuningModeConstants;
-import frc.utils.SwerveUtils;
+import frc.utils.SwerveSlewLimiter;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
+import frc.robot.RobotLoop;
+import frc.robot.Telemetry;
+import frc.robot.Telemetry.Priority;
+
 public class DriveSubsystem extends SubsystemBase {
   private boolean TUNING_MODE = TuningModeConstants.kDriveTuning;
   private Altitude m_altitude;
@@ -52,64 +57,91 @@ public class DriveSubsystem extends SubsystemBase {
       DriveConstants.kRearRightTurningCanId,
       DriveConstants.kBackRightChassisAngularOffset);
 
+  private final MAXSwerveModule[] m_modules = { m_frontLeft, m_frontRight, m_rearLeft, m_rearRight };
+
+  // Preallocated buffers for the drive() hot path, so a teleop tick does not
+  // allocate ChassisSpeeds or SwerveModuleState arrays
+  private final double[] m_moduleX = new double[m_modules.length];
+  private final double[] m_moduleY = new double[m_modules.length];
+  private final double[] m_moduleSpeeds = new double[m_modules.length];
+  private final double[] m_moduleAngles = new double[m_modules.length];
+
   // The gyro sensor
   private final WPI_Pigeon2 m_gyro = new WPI_Pigeon2(DriveConstants.kGyroDeviceNumber);
 
-  private double[] pitchYawRollVelocitiesDegreesPerSecond = new double[3];
+  // Timestamped gyro readings, sampled once per loop in the input stage
+  private final GyroService m_gyroService = new GyroService(m_gyro);
+
+  // Where the trajectory being followed, or last followed, ends
+  private Pose2d m_trajectoryGoal = null;
 
-  // Slew rate filter variables for controlling lateral acceleration
+  // How far ahead the heading was extrapolated for the last field relative
+  // drive, for telemetry
+  private double m_headingLookaheadSeconds = 0;
+
+  // Slew rate filter for controlling lateral acceleration
   private double m_currentRotation = 0.0;
-  private double m_currentTranslationDir = 0.0;
-  private double m_currentTranslationMag = 0.0;
 
-  private SlewRateLimiter m_magLimiter = new SlewRateLimiter(DriveConstants.kMagnitudeSlewRate);
-  private SlewRateLimiter m_rotLimiter = new SlewRateLimiter(DriveConstants.kRotationalSlewRate);
-  private double m_prevTime = WPIUtilJNI.now() * 1e-6;
+  private final SwerveSlewLimiter m_slewLimiter = new SwerveSlewLimiter(
+      DriveConstants.kDirectionSlewRate,
+      DriveConstants.kMagnitudeSlewRate,
+      DriveConstants.kRotationalSlewRate,
+      WPIUtilJNI.now() * 1e-6);
 
-  // Odometry class for tracking robot pose
-  SwerveDriveOdometry m_odometry = new SwerveDriveOdometry(
+  // Pose estimator for tracking robot pose, updated on its own thread faster
+  // than the scheduler loop and corrected by vision
+  private final OdometryThread m_odometry = new OdometryThread(
+      m_gyro,
       DriveConstants.kDriveKinematics,
-      m_gyro.getRotation2d(),
-      new SwerveModulePosition[] {
-          m_frontLeft.getPosition(),
-          m_frontRight.getPosition(),
-          m_rearLeft.getPosition(),
-          m_rearRight.getPosition()
-      });
+      m_frontLeft,
+      m_frontRight,
+      m_rearLeft,
+      m_rearRight);
 
   /** Creates a new DriveSubsystem. */
   public DriveSubsystem(Altitude Altitude, Extension Extension) {
     m_altitude = Altitude;
     m_extension = Extension;
-  }
 
-  @Override
-  public void periodic() {
-    // Update the odometry in the periodic block
-    m_odometry.update(
-        m_gyro.getRotation2d(),
-        new SwerveModulePosition[] {
-            m_frontLeft.getPosition(),
-            m_frontRight.getPosition(),
-            m_rearLeft.getPosition(),
-            m_rearRight.getPosition()
-        });
-
-    // calculate velocities for pitch, yaw, roll from the gyro
-    // Returned in degrees per second
-    m_gyro.getRawGyro(pitchYawRollVelocitiesDegreesPerSecond);
-
-    log();
+    for (int i = 0; i < m_modules.length; i++) {
+      m_moduleX[i] = DriveConstants.kModuleTranslations[i].getX();
+      m_moduleY[i] = DriveConstants.kModuleTranslations[i].getY();
+    }
+
+    m_odometry.start();
 
+    RobotLoop.getInstance().addInput(m_gyroService::sample);
+
+    Telemetry telemetry = Telemetry.getInstance();
+    telemetry.addDouble("Heading", Priority.NORMAL, this::getHeading);
+    telemetry.addDouble("X Pose", Priority.NORMAL, () -> getPose().getX());
+    telemetry.addDouble("Y Pose", Priority.NORMAL, () -> getPose().getY());
+    telemetry.addDouble("Yaw", Priority.NORMAL, this::getYaw);
+    telemetry.addDoubleArray("XYZ_DPS", Priority.LOW, m_gyroService::getXyzRates);
+    telemetry.addDouble("Heading lookahead ms", Priority.LOW, () -> m_headingLookaheadSeconds * 1000);
+    telemetry.addDouble("Gyro read errors", Priority.LOW, m_gyroService::getErrorCount);
   }
 
-  private void log() {
-    SmartDashboard.putNumber("Heading", getHeading());
-    SmartDashboard.putNumber("X Pose", getPose().getX());
-    SmartDashboard.putNumber("Y Pose", getPose().getY());
-    SmartDashboard.putNumber("Yaw", getYaw());
+  @Override
+  public void simulationPeriodic() {
+    double batteryVolts = RobotController.getBatteryVoltage();
+    for (MAXSwerveModule module : m_modules) {
+      module.simulationPeriodic(TimedRobot.kDefaultPeriod, batteryVolts);
+    }
 
-    SmartDashboard.putNumberArray("XYZ_DPS", pitchYawRollVelocitiesDegreesPerSecond);
+    // Turn the simulated gyro by the rotation the modules are driving. Same
+    // least squares omega as SwerveDriveKinematics.toChassisSpeeds, for
+    // modules centered on the robot, without allocating module states.
+    double moment = 0;
+    double radiusSquared = 0;
+    for (int i = 0; i < m_modules.length; i++) {
+      double speed = m_modules[i].getVelocityMetersPerSecond();
+      double angle = m_modules[i].getAngleRadians();
+      moment += m_moduleX[i] * speed * Math.sin(angle) - m_moduleY[i] * speed * Math.cos(angle);
+      radiusSquared += m_moduleX[i] * m_moduleX[i] + m_moduleY[i] * m_moduleY[i];
+    }
+    double omega = moment / radiusSquared;
+    m_gyro.getSimCollection().addHeading(Math.toDegrees(omega * TimedRobot.kDefaultPeriod));
   }
 
   /**
@@ -118,11 +150,11 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The pose.
    */
   public Pose2d getPose() {
-    return m_odometry.getPoseMeters();
+    return m_odometry.getPose();
   }
 
   public double getYaw() {
-    return m_gyro.getYaw();
+    return m_gyroService.getYawDegrees();
   }
 
   /**
@@ -131,7 +163,7 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The pitch.
    */
   public Rotation2d getPitch() {
-    return Rotation2d.fromDegrees(m_gyro.getPitch());
+    return Rotation2d.fromDegrees(m_gyroService.getPitchDegrees());
   }
 
   /**
@@ -140,8 +172,7 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The pitch velocity (degrees per second)
    */
   public double getPitchVelocity() {
-    return pitchYawRollVelocitiesDegreesPerSecond[0];
-    // return 0;
+    return m_gyroService.getPitchRateDegreesPerSecond();
   }
 
   /**
@@ -150,7 +181,7 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The rotation.
    */
   public Rotation2d getRotation() {
-    return m_gyro.getRotation2d();
+    return Rotation2d.fromDegrees(m_gyroService.getYawDegrees());
   }
 
   /**
@@ -159,7 +190,7 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The roll.
    */
   public Rotation2d getRoll() {
-    return Rotation2d.fromDegrees(m_gyro.getRoll());
+    return Rotation2d.fromDegrees(m_gyroService.getRollDegrees());
   }
 
   /**
@@ -168,8 +199,26 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The roll velocity (degrees per second)
    */
   public double getRollVelocity() {
-    return pitchYawRollVelocitiesDegreesPerSecond[2];
-    // return 0;
+    return m_gyroService.getRollRateDegreesPerSecond();
+  }
+
+  /**
+   * Returns how fast the robot is driving over the field, measured by the
+   * modules. The modules' rotation about the center cancels out in the
+   * average.
+   *
+   * @return The velocity in meters per second, in field coordinates
+   */
+  public Translation2d getFieldVelocity() {
+    double vx = 0;
+    double vy = 0;
+    for (MAXSwerveModule module : m_modules) {
+      double speed = module.getVelocityMetersPerSecond();
+      double angle = module.getAngleRadians();
+      vx += speed * Math.cos(angle);
+      vy += speed * Math.sin(angle);
+    }
+    return new Translation2d(vx / m_modules.length, vy / m_modules.length).rotateBy(getPose().getRotation());
   }
 
   /**
@@ -178,15 +227,48 @@ public class DriveSubsystem extends SubsystemBase {
    * @param pose The pose to which to set the odometry.
    */
   public void resetOdometry(Pose2d pose) {
-    m_odometry.resetPosition(
-        m_gyro.getRotation2d(),
-        new SwerveModulePosition[] {
-            m_frontLeft.getPosition(),
-            m_frontRight.getPosition(),
-            m_rearLeft.getPosition(),
-            m_rearRight.getPosition()
-        },
-        pose);
+    m_odometry.resetPose(pose);
+  }
+
+  /**
+   * Sets where the trajectory being followed ends. Called by the trajectory
+   * follower when it starts.
+   *
+   * @param goal The final pose, facing the final heading
+   */
+  public void setTrajectoryGoal(Pose2d goal) {
+    m_trajectoryGoal = goal;
+  }
+
+  /**
+   * Returns where the last trajectory started ends, to check how close the
+   * robot got.
+   *
+   * @return The pose, or null if no trajectory has been started
+   */
+  public Pose2d getTrajectoryGoal() {
+    return m_trajectoryGoal;
+  }
+
+  /**
+   * Returns the pose the robot had at a past time, from the odometry buffer.
+   *
+   * @param timestampSeconds FPGA timestamp in seconds
+   * @return The pose at that time.
+   */
+  public Pose2d getPoseAt(double timestampSeconds) {
+    return m_odometry.getPoseAt(timestampSeconds);
+  }
+
+  /**
+   * Corrects the pose estimate with a latency compensated vision measurement.
+   *
+   * @param visionPose       The robot pose measured by vision
+   * @param timestampSeconds FPGA timestamp of the camera capture
+   * @param stdDevs          Trust in the measurement (meters, meters, radians)
+   */
+  public void addVisionMeasurement(Pose2d visionPose, double timestampSeconds, Matrix<N3, N1> stdDevs) {
+    m_odometry.addVisionMeasurement(visionPose, timestampSeconds, stdDevs);
   }
 
   /**
@@ -215,52 +297,18 @@ public class DriveSubsystem extends SubsystemBase {
   // not in travel and that there is no slew then
   public void drive(double speed, double xSpeed, double ySpeed, double rot, boolean fieldRelative,
       boolean rateLimit) {
-    double speedCommanded = isWithinSafeDrivingLimits() ? speed : DriveConstants.kSafeSpeedLimit * speed;
+    boolean withinSafeDrivingLimits = isWithinSafeDrivingLimits();
+    double speedCommanded = withinSafeDrivingLimits ? speed : DriveConstants.kSafeSpeedLimit * speed;
     double xSpeedCommanded;
     double ySpeedCommanded;
-    double rotSpeed = isWithinSafeDrivingLimits() ? rot : DriveConstants.kSafeRotLimit * rot;
+    double rotSpeed = withinSafeDrivingLimits ? rot : DriveConstants.kSafeRotLimit * rot;
 
     if (rateLimit) {
-      // Convert XY to polar for rate limiting
-      double inputTranslationDir = Math.atan2(speedCommanded * ySpeed, speedCommanded * xSpeed);
-      double inputTranslationMag = Math
-          .sqrt(Math.pow(speedCommanded * xSpeed, 2) + Math.pow(speedCommanded * ySpeed, 2));
-
-      // Calculate the direction slew rate based on an estimate of the lateral
-      // acceleration
-      double directionSlewRate;
-      if (m_currentTranslationMag != 0.0) {
-        directionSlewRate = Math.abs(DriveConstants.kDirectionSlewRate / m_currentTranslationMag);
-      } else {
-        directionSlewRate = 500.0; // some high number that means the slew rate is effectively instantaneous
-      }
-
-      double currentTime = WPIUtilJNI.now() * 1e-6;
-      double elapsedTime = currentTime - m_prevTime;
-      double angleDif = SwerveUtils.AngleDifference(inputTranslationDir, m_currentTranslationDir);
-      if (angleDif < 0.45 * Math.PI) {
-        m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir,
-            directionSlewRate * elapsedTime);
-        m_currentTranslationMag = m_magLimiter.calculate(inputTranslationMag);
-      } else if (angleDif > 0.85 * Math.PI) {
-        if (m_currentTranslationMag > 1e-4) { // some small number to avoid floating-point errors with equality
-                                              // checking
-          // keep currentTranslationDir unchanged
-          m_currentTranslationMag = m_magLimiter.calculate(0.0);
-        } else {
-          m_currentTranslationDir = SwerveUtils.WrapAngle(m_currentTranslationDir + Math.PI);
-          m_currentTranslationMag = m_magLimiter.calculate(inputTranslationMag);
-        }
-      } else {
-        m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir,
-            directionSlewRate * elapsedTime);
-        m_currentTranslationMag = m_magLimiter.calculate(0.0);
-      }
-      m_prevTime = currentTime;
+      m_slewLimiter.calculate(speedCommanded * xSpeed, speedCommanded * ySpeed, rot, WPIUtilJNI.now() * 1e-6);
 
-      xSpeedCommanded = m_currentTranslationMag * Math.cos(m_currentTranslationDir);
-      ySpeedCommanded = m_currentTranslationMag * Math.sin(m_currentTranslationDir);
-      m_currentRotation = m_rotLimiter.calculate(rot);
+      xSpeedCommanded = m_slewLimiter.getXSpeed();
+      ySpeedCommanded = m_slewLimiter.getYSpeed();
+      m_currentRotation = m_slewLimiter.getRotation();
 
     } else {
       xSpeedCommanded = speedCommanded * xSpeed;
@@ -273,27 +321,66 @@ public class DriveSubsystem extends SubsystemBase {
     double ySpeedDelivered = ySpeedCommanded * DriveConstants.kMaxSpeedMetersPerSecond;
     double rotDelivered = m_currentRotation * DriveConstants.kMaxAngularSpeed;
 
-    var swerveModuleStates = DriveConstants.kDriveKinematics.toSwerveModuleStates(
-        fieldRelative
-            ? ChassisSpeeds.fromFieldRelativeSpeeds(xSpeedDelivered, ySpeedDelivered, rotDelivered,
-                m_gyro.getRotation2d())
-            : new ChassisSpeeds(xSpeedDelivered, ySpeedDelivered, rotDelivered));
-    SwerveDriveKinematics.desaturateWheelSpeeds(
-        swerveModuleStates, DriveConstants.kMaxSpeedMetersPerSecond);
-    m_frontLeft.setDesiredState(swerveModuleStates[0]);
-    m_frontRight.setDesiredState(swerveModuleStates[1]);
-    m_rearLeft.setDesiredState(swerveModuleStates[2]);
-    m_rearRight.setDesiredState(swerveModuleStates[3]);
+    if (fieldRelative) {
+      // Rotate the field relative speeds into the robot frame, same as
+      // ChassisSpeeds.fromFieldRelativeSpeeds, at the heading the robot will
+      // have when the modules act on them. Otherwise the translation curls
+      // against the direction of rotation when spinning while driving.
+      RobotLoop loop = RobotLoop.getInstance();
+      double actuationTime = loop.getInputTimestamp() + loop.getInputToOutputSeconds()
+          + DriveConstants.kActuationLatencySeconds;
+      m_headingLookaheadSeconds = actuationTime - m_gyroService.getTimestamp();
+      double headingRadians = Math.toRadians(m_gyroService.getYawDegreesAt(actuationTime));
+      double cos = Math.cos(headingRadians);
+      double sin = Math.sin(headingRadians);
+      double xRobot = xSpeedDelivered * cos + ySpeedDelivered * sin;
+      double yRobot = -xSpeedDelivered * sin + ySpeedDelivered * cos;
+      xSpeedDelivered = xRobot;
+      ySpeedDelivered = yRobot;
+    }
+
+    setChassisSpeeds(xSpeedDelivered, ySpeedDelivered, rotDelivered);
+  }
+
+  /**
+   * Converts robot relative chassis speeds into module speeds and angles and
+   * sends them to the modules. Same math as
+   * SwerveDriveKinematics.toSwerveModuleStates and desaturateWheelSpeeds, but
+   * into preallocated buffers.
+   */
+  private void setChassisSpeeds(double vxMetersPerSecond, double vyMetersPerSecond, double omegaRadiansPerSecond) {
+    boolean stopped = vxMetersPerSecond == 0 && vyMetersPerSecond == 0 && omegaRadiansPerSecond == 0;
+    double maxSpeed = 0;
+
+    for (int i = 0; i < m_modules.length; i++) {
+      if (stopped) {
+        // Keep the last module angles when not moving, like the kinematics class
+        m_moduleSpeeds[i] = 0;
+      } else {
+        double vx = vxMetersPerSecond - omegaRadiansPerSecond * m_moduleY[i];
+        double vy = vyMetersPerSecond + omegaRadiansPerSecond * m_moduleX[i];
+        m_moduleSpeeds[i] = Math.sqrt(vx * vx + vy * vy);
+        m_moduleAngles[i] = Math.atan2(vy, vx);
+      }
+      maxSpeed = Math.max(maxSpeed, m_moduleSpeeds[i]);
+    }
+
+    double scale = maxSpeed > DriveConstants.kMaxSpeedMetersPerSecond
+        ? DriveConstants.kMaxSpeedMetersPerSecond / maxSpeed
+        : 1.0;
+    for (int i = 0; i < m_modules.length; i++) {
+      m_modules[i].setDesiredState(m_moduleSpeeds[i] * scale, m_moduleAngles[i]);
+    }
   }
 
   /**
    * Sets the wheels into an X formation to prevent movement.
    */
   public void lock() {
-    m_frontLeft.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(45)));
-    m_frontRight.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(-45)));
-    m_rearLeft.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(-45)));
-    m_rearRight.setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(45)));
+    m_frontLeft.setDesiredState(0, Math.PI / 4);
+    m_frontRight.setDesiredState(0, -Math.PI / 4);
+    m_rearLeft.setDesiredState(0, -Math.PI / 4);
+    m_rearRight.setDesiredState(0, Math.PI / 4);
   }
 
   /**
@@ -320,7 +407,7 @@ public class DriveSubsystem extends SubsystemBase {
 
   /** Zeroes the heading of the robot. */
   public void zeroHeading() {
-    m_gyro.reset();
+    m_gyroService.reset();
   }
 
   /**
@@ -329,7 +416,8 @@ public class DriveSubsystem extends SubsystemBase {
    * @return the robot's heading in degrees, not wrapped
    */
   public double getHeading() {
-    return m_gyro.getRotation2d().getDegrees();
+    // WPI_Pigeon2.getAngle() is the negated yaw
+    return m_gyroService.getYawDegrees();
   }
 
   /**
@@ -338,7 +426,7 @@ public class DriveSubsystem extends SubsystemBase {
    * @return the robot's heading in degrees, from -180 to 180
    */
   public double getHeadingWrappedDegrees() {
-    return MathUtil.inputModulus(m_gyro.getRotation2d().getDegrees(), -180, 180);
+    return MathUtil.inputModulus(m_gyroService.getYawDegrees(), -180, 180);
   }
 
   /**
@@ -347,7 +435,9 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The turn rate of the robot, in degrees per second
    */
   public double getTurnRate() {
-    return m_gyro.getRate() * (DriveConstants.kGyroReversed ? -1.0 : 1.0);
+    // Same as WPI_Pigeon2.getRate(), the negated yaw rate
+    double rate = -m_gyroService.getYawRateDegreesPerSecond();
+    return rate * (DriveConstants.kGyroReversed ? -1.0 : 1.0);
   }
 
   public boolean isWithinSafeDrivingLimits() {
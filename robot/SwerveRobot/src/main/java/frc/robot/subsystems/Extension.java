@@ -12,16 +12,51 @@ import com.revrobotics.CANSparkMax.IdleMode;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 import com.revrobotics.SparkMaxPIDController;
 
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.SetpointConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.Constants.TuningModeConstants;
+import frc.robot.RobotLoop;
+import frc.robot.StatusFrameManager;
+import frc.robot.StatusFrameManager.Role;
+import frc.utils.SparkMaxConfig;
+import frc.utils.SparkMaxConfigurator;
+import frc.utils.SparkMaxSetpoint;
 
 import static frc.robot.Constants.ExtensionConstants;
 import static frc.robot.Constants.SubsystemMotorConstants;
 
+import frc.robot.DataLogger;
+import frc.robot.LoopProfiler;
+import frc.robot.Telemetry;
+import frc.robot.Telemetry.Priority;
+import frc.utils.JointProfile;
+import frc.utils.LoopHistogram;
+import frc.utils.SparkMaxSim;
+
 public class Extension extends SubsystemBase {
+  private final LoopHistogram m_periodicTiming = LoopProfiler.getInstance().channel("Extension.periodic()");
+
   private boolean TUNING_MODE = TuningModeConstants.kExtensionTuning;
 
+  private final DataLogger m_logger = DataLogger.getInstance();
+  private final int m_keepPositionChannel = m_logger.addChannel("Extension/KeepPosition", "position");
+  private final int m_inDropOffReturnPositionEvent = m_logger.addEvent("Extension in DROP OFF RETURN position");
+  private final int m_inHighCubeShootPositionEvent = m_logger.addEvent("Extension in HIGH CUBE SHOOT position");
+  private final int m_inHighScoringPositionEvent = m_logger.addEvent("Extension in HIGH SCORING position");
+  private final int m_inIntakePositionEvent = m_logger.addEvent("Extension in INTAKE position");
+  private final int m_inMidCubeShootPositionEvent = m_logger.addEvent("Extension in MID CUBE SHOOT position");
+  private final int m_inReleasePositionEvent = m_logger.addEvent("Extension in RELEASE position");
+
   /** Creates a new Extension. */
 
   // Extension motors
@@ -37,6 +72,9 @@ public class Extension extends SubsystemBase {
 
   // PID
   private SparkMaxPIDController m_extensionPIDController = m_extensionMotor.getPIDController();
+  // All output goes through here so repeated setpoints are not resent
+  private final SparkMaxSetpoint m_setpoint = new SparkMaxSetpoint(m_extensionPIDController,
+      SetpointConstants.kArmPositionEpsilon, SetpointConstants.kKeepAliveSeconds);
   static double kPExtension = .05;
   static double kIExtension = 0;
   static double kDExtension = 0;
@@ -45,22 +83,57 @@ public class Extension extends SubsystemBase {
   static double kMaxOutputExtension = 0.85;
   static double kMinOutputExtension = -0.75;
 
+  // Closed loop moves follow this profile, stepped in periodic()
+  private final JointProfile m_profile = new JointProfile(
+      new TrapezoidProfile.Constraints(ExtensionConstants.kExtensionMaxVelocity,
+          ExtensionConstants.kExtensionMaxAcceleration),
+      TimedRobot.kDefaultPeriod);
+
+  // Desktop simulation, the extension is modelled as an elevator with no
+  // gravity along its travel
+  private final boolean m_simulated = RobotBase.isSimulation();
+  private SparkMaxSim m_sparkMaxSim;
+  private ElevatorSim m_elevatorSim;
+  private double m_simPosition = 0;
+  // Encoder resets move the reading, not the simulated mechanism
+  private double m_simOffset = 0;
+
+  /**
+   * Sensor readings taken once per loop. All position checks in a loop use the
+   * same reading, so they agree with each other and cost no extra CAN reads.
+   * The same snapshot is overwritten each loop, so the loop does not allocate.
+   */
+  public static final class Snapshot {
+    private double m_position;
+    private boolean m_retractionLimitPressed;
+
+    private Snapshot() {
+    }
+
+    public double getPosition() {
+      return m_position;
+    }
+
+    public boolean isRetractionLimitPressed() {
+      return m_retractionLimitPressed;
+    }
+  }
+
+  private final Snapshot m_snapshot = new Snapshot();
+
   public boolean ExtensionRetractionLimitHit() {
     return isRetractionLimitHit();
   }
 
   public Extension() {
 
-    m_extensionMotor.setIdleMode(IdleMode.kBrake);
-    m_extensionMotor.setSmartCurrentLimit((SubsystemMotorConstants.kMotorCurrentLimit));
-    m_extensionMotor.setOpenLoopRampRate(ExtensionConstants.kExtensionRampRate);
-
-    m_extensionPIDController.setFeedbackDevice(m_extensionEncoder);
-    m_extensionPIDController.setP(kPExtension, 0);
-    m_extensionPIDController.setI(kIExtension, 0);
-    m_extensionPIDController.setD(kDExtension, 0);
-    m_extensionPIDController.setFF(kFFExtension, 0);
-    m_extensionPIDController.setOutputRange(kMinOutputExtension, kMaxOutputExtension);
+    SparkMaxConfigurator.getInstance().submit(new SparkMaxConfig(m_extensionMotor, "Extension")
+        .idleMode(IdleMode.kBrake)
+        .smartCurrentLimit(SubsystemMotorConstants.kMotorCurrentLimit)
+        .openLoopRampRate(ExtensionConstants.kExtensionRampRate)
+        .feedbackDevice(m_extensionPIDController, m_extensionEncoder)
+        .pid(m_extensionPIDController, 0, kPExtension, kIExtension, kDExtension, kFFExtension,
+            kMinOutputExtension, kMaxOutputExtension));
 
     /**
      * A SparkMaxLimitSwitch object is constructed using the getForwardLimitSwitch()
@@ -74,17 +147,25 @@ public class Extension extends SubsystemBase {
     m_extensionLimit = m_extensionMotor.getForwardLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
     m_retractionLimit = m_extensionMotor.getReverseLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
 
-    // Save the SPARK MAX configurations. If a SPARK MAX browns out during
-    // operation, it will maintain the above configurations.
+    StatusFrameManager.getInstance().register(m_extensionMotor, Role.ARM, m_setpoint);
+    RobotLoop.getInstance().addInput(this::readSensors);
+    RobotLoop.getInstance().addOutput(m_setpoint::flush);
+
+    if (m_simulated) {
+      m_sparkMaxSim = new SparkMaxSim(kPExtension, 0, kMinOutputExtension, kMaxOutputExtension);
+      m_elevatorSim = new ElevatorSim(DCMotor.getNEO(1), SimConstants.kExtensionGearing,
+          SimConstants.kExtensionCarriageMassKg, SimConstants.kExtensionDrumRadiusMeters,
+          0, Units.inchesToMeters(ExtensionConstants.kExtensionLengthInches), false);
+    }
+
+    readSensors();
 
-    m_extensionMotor.burnFlash();
+    Telemetry.getInstance().addDouble("Extension Current position", Priority.NORMAL,
+        this::getCurrentExtensionPosition);
   }
 
   /** The log method puts interesting information to the SmartDashboard. */
   public void log() {
-
-    SmartDashboard.putNumber("Extension Current position", getCurrentExtensionPosition());
-
     if (TUNING_MODE) {
       // SmartDashboard.putBoolean("Fully Extended", m_extensionLimit.isPressed());
       // SmartDashboard.putBoolean("Fully Retracted", m_retractionLimit.isPressed());
@@ -96,7 +177,7 @@ public class Extension extends SubsystemBase {
       readExtensionPIDTuningFromDashboard();
 
       if (ExtensionIsInHighScoringPosition()) {
-        System.out.println("Extension in HIGH SCORING position");
+        m_logger.event(m_inHighScoringPositionEvent);
       }
     }
   }
@@ -144,154 +225,230 @@ public class Extension extends SubsystemBase {
 
   public void logPositionsReached() {
     if (ExtensionIsInDropOffReturnPosition()) {
-      System.out.println("Extension in DROP OFF RETURN position");
+      m_logger.event(m_inDropOffReturnPositionEvent);
     }
     if (ExtensionIsInHighCubeShootPosition()) {
-      System.out.println("Extension in HIGH CUBE SHOOT position");
+      m_logger.event(m_inHighCubeShootPositionEvent);
     }
     if (ExtensionIsInHighScoringPosition()) {
-      System.out.println("Extension in HIGH SCORING position");
+      m_logger.event(m_inHighScoringPositionEvent);
     }
     if (ExtensionIsInIntakePosition()) {
-      System.out.println("Extension in INTAKE position");
+      m_logger.event(m_inIntakePositionEvent);
     }
     if (ExtensionIsInMidCubeShootPosition()) {
-      System.out.println("Extension in MID CUBE SHOOT position");
+      m_logger.event(m_inMidCubeShootPositionEvent);
     }
     if (ExtensionIsInReleasePosition()) {
-      System.out.println("Extension in RELEASE position");
+      m_logger.event(m_inReleasePositionEvent);
     }
   }
 
   /** Call log method every loop. */
   @Override
   public void periodic() {
+    long start = System.nanoTime();
+
+    if (m_profile.isActive()) {
+      double setpoint = m_profile.step().position;
+      m_setpoint.setReference(setpoint, ControlType.kPosition);
+      if (m_simulated) {
+        m_sparkMaxSim.setPosition(setpoint, 0);
+      }
+    }
+
     log();
     ExtensionRetractionLimitHit();
+
+    m_periodicTiming.recordSince(start);
+  }
+
+  @Override
+  public void simulationPeriodic() {
+    m_elevatorSim.setInputVoltage(m_sparkMaxSim.getVoltage(m_simPosition, 0, RobotController.getBatteryVoltage()));
+    m_elevatorSim.update(TimedRobot.kDefaultPeriod);
+    m_simPosition = Units.metersToInches(m_elevatorSim.getPositionMeters())
+        * ExtensionConstants.kExtensionRevolutionsPerInch + m_simOffset;
   }
 
   /** Resets the Extension encoder to currently read a position of 0. */
   public void reset() {
+    // The profile's setpoints are in the old encoder coordinates
+    m_profile.stop();
     m_extensionEncoder.setPosition(0);
+    setSimPosition(0);
+    readSensors();
+  }
+
+  private void setSimPosition(double position) {
+    m_simOffset += position - m_simPosition;
+    m_simPosition = position;
+  }
+
+  // Reads the sensors into the snapshot, once per loop
+  private void readSensors() {
+    double position = m_simulated ? m_simPosition : m_extensionEncoder.getPosition();
+    m_snapshot.m_position = position;
+    m_snapshot.m_retractionLimitPressed = m_retractionLimit.isPressed();
+  }
+
+  /**
+   * Returns this loop's sensor readings.
+   *
+   * @return The snapshot taken in this loop's input stage
+   */
+  public Snapshot getSnapshot() {
+    return m_snapshot;
   }
 
   // Reset the Extension Encoder when the Retraction Limit is pressed
   public boolean isRetractionLimitHit() {
-    return m_retractionLimit.isPressed();
+    return m_snapshot.isRetractionLimitPressed();
   }
 
   public void resetExtensionEncoderAtRetractionLimit() {
+    m_profile.stop();
     m_extensionEncoder.setPosition(1);
+    setSimPosition(1);
+    readSensors();
   }
 
   /** ELEVATOR Extension **/
   public void moveExtension(double speed) {
-    m_extensionMotor.set(speed);
+    setOpenLoop(speed);
   }
 
   // Run the elevator Extension motor forward
   public void extendExtension() {
-    m_extensionMotor.set(ExtensionConstants.kExtensionExtendSpeed);
+    setOpenLoop(ExtensionConstants.kExtensionExtendSpeed);
   }
 
   // Run the elevator Extension motor in reverse
   public void retractExtension() {
-    m_extensionMotor.set(-ExtensionConstants.kExtensionRetractSpeed);
+    setOpenLoop(-ExtensionConstants.kExtensionRetractSpeed);
   }
 
   // Stop the elevator Extension
   public void stopExtension() {
-    m_extensionMotor.set(0);
+    setOpenLoop(0);
+  }
+
+  // Drive the motor directly, dropping any profiled move
+  private void setOpenLoop(double speed) {
+    m_profile.stop();
+    m_setpoint.setDutyCycle(speed);
+    if (m_simulated) {
+      m_sparkMaxSim.setDutyCycle(speed);
+    }
+  }
+
+  // The position and duty cycle setpoints sent to the motor
+  SparkMaxSetpoint getSetpoint() {
+    return m_setpoint;
   }
 
   // Returns the current position of the Extension
   public double getCurrentExtensionPosition() {
-    return m_extensionEncoder.getPosition();
+    return m_snapshot.getPosition();
   }
 
-  // Maintain Position
+  // Maintain Position, following a motion profile
   public void keepPosition(double position) {
-    m_extensionPIDController.setReference(position, ControlType.kPosition);
+    keepPosition(position, 0);
+  }
+
+  // Maintain Position, taking at least the given time so that another joint
+  // can arrive together with this one
+  public void keepPosition(double position, double durationSeconds) {
+    // Only log new goals, enforceSafeExtensions sets the same one every loop
+    if (m_profile.setGoal(position, getCurrentExtensionPosition(), durationSeconds)) {
+      m_logger.log(m_keepPositionChannel, position);
+    }
     if (TUNING_MODE) {
       SmartDashboard.putNumber("Desired Extension position", position);
-      System.out.println("Keep EXTENSION " + position);
     }
   }
 
   // Maintain Position Inches
   public void keepPositionInches(double positionInches) {
-    // set position in inches, convert to encoder value
-    double position;
-    position = positionInches * ExtensionConstants.kExtensionRevolutionsPerInch + 1;
+    keepPosition(inchesToPosition(positionInches));
+  }
 
-    m_extensionPIDController.setReference(position, ControlType.kPosition);
-    if (TUNING_MODE) {
-      SmartDashboard.putNumber("Desired Extension position", position);
-      System.out.println("Keep EXTENSION " + position);
-    }
+  public void keepPositionInches(double positionInches, double durationSeconds) {
+    keepPosition(inchesToPosition(positionInches), durationSeconds);
+  }
+
+  // Time a full speed move to the position would take, in seconds
+  public double getProfileTimeInches(double positionInches) {
+    return m_profile.timeTo(inchesToPosition(positionInches), getCurrentExtensionPosition());
+  }
+
+  // set position in inches, convert to encoder value. Also used by ArmPose,
+  // so its checks match the setpoint.
+  static double inchesToPosition(double positionInches) {
+    return positionInches * ExtensionConstants.kExtensionRevolutionsPerInch + 1;
   }
 
   // Tell Us if Extension as At Positions
   public boolean ExtensionIsInTravelPosition() {
-    return m_extensionEncoder
-        .getPosition() > (ExtensionConstants.kExtensionPositionFullyRetracted
+    return m_snapshot.getPosition() > (ExtensionConstants.kExtensionPositionFullyRetracted
             - ExtensionConstants.kExtensionPositionTolerance);
   }
 
   public boolean ExtensionIsInIntakePosition() {
-    return m_extensionEncoder.getPosition() < ExtensionConstants.kExtensionPositionIntakeOut
+    return m_snapshot.getPosition() < ExtensionConstants.kExtensionPositionIntakeOut
         + ExtensionConstants.kExtensionPositionTolerance
-        && m_extensionEncoder.getPosition() > ExtensionConstants.kExtensionPositionIntakeOut
+        && m_snapshot.getPosition() > ExtensionConstants.kExtensionPositionIntakeOut
             - ExtensionConstants.kExtensionPositionTolerance;
   }
 
   public boolean ExtensionIsInMidCubeShootPosition() {
-    return m_extensionEncoder.getPosition() < ExtensionConstants.kExtensionPositionMidCubeShooter
+    return m_snapshot.getPosition() < ExtensionConstants.kExtensionPositionMidCubeShooter
         + ExtensionConstants.kExtensionPositionTolerance
-        && m_extensionEncoder.getPosition() > ExtensionConstants.kExtensionPositionMidCubeShooter
+        && m_snapshot.getPosition() > ExtensionConstants.kExtensionPositionMidCubeShooter
             - ExtensionConstants.kExtensionPositionTolerance;
   }
 
   public boolean ExtensionIsInHighCubeShootPosition() {
-    return m_extensionEncoder.getPosition() < ExtensionConstants.kExtensionPositionHighCubeShooter
+    return m_snapshot.getPosition() < ExtensionConstants.kExtensionPositionHighCubeShooter
         + ExtensionConstants.kExtensionPositionTolerance
-        && m_extensionEncoder.getPosition() > ExtensionConstants.kExtensionPositionHighCubeShooter
+        && m_snapshot.getPosition() > ExtensionConstants.kExtensionPositionHighCubeShooter
             - ExtensionConstants.kExtensionPositionTolerance;
   }
 
   public boolean ExtensionIsInCubeShootPosition() {
-    return m_extensionEncoder.getPosition() < ExtensionConstants.kExtensionPositionCubeShooter
+    return m_snapshot.getPosition() < ExtensionConstants.kExtensionPositionCubeShooter
         + ExtensionConstants.kExtensionPositionTolerance
-        && m_extensionEncoder.getPosition() > ExtensionConstants.kExtensionPositionCubeShooter
+        && m_snapshot.getPosition() > ExtensionConstants.kExtensionPositionCubeShooter
             - ExtensionConstants.kExtensionPositionTolerance;
   }
 
   public boolean ExtensionIsInDropOffReturnPosition() {
-    return m_extensionEncoder.getPosition() < ExtensionConstants.kExtensionPositionHighDropOffReturn
+    return m_snapshot.getPosition() < ExtensionConstants.kExtensionPositionHighDropOffReturn
         + ExtensionConstants.kExtensionPositionTolerance;
   }
 
   public boolean ExtensionIsInMidScoringPosition() {
-    return m_extensionEncoder.getPosition() < ExtensionConstants.kExtensionPositionMidDropOff
+    return m_snapshot.getPosition() < ExtensionConstants.kExtensionPositionMidDropOff
         + ExtensionConstants.kExtensionPositionTolerance &&
-        m_extensionEncoder.getPosition() > ExtensionConstants.kExtensionPositionMidDropOff
+        m_snapshot.getPosition() > ExtensionConstants.kExtensionPositionMidDropOff
             - ExtensionConstants.kExtensionPositionTolerance;
   };
 
   public boolean ExtensionIsInHighScoringPosition() {
-    return m_extensionEncoder.getPosition() < ExtensionConstants.kExtensionPositionHighDropOff
+    return m_snapshot.getPosition() < ExtensionConstants.kExtensionPositionHighDropOff
         + ExtensionConstants.kExtensionPositionTolerance &&
-        m_extensionEncoder.getPosition() > ExtensionConstants.kExtensionPositionHighDropOff
+        m_snapshot.getPosition() > ExtensionConstants.kExtensionPositionHighDropOff
             - ExtensionConstants.kExtensionPositionTolerance;
   };
 
   public boolean ExtensionIsInReleasePosition() {
     double ReleaseExtensionPosition = setReleaseExtensionPosition();
 
-    return m_extensionEncoder.getPosition() < ReleaseExtensionPosition
+    return m_snapshot.getPosition() < ReleaseExtensionPosition
         + ExtensionConstants.kExtensionPositionTolerance
         &&
-        m_extensionEncoder.getPosition() > ReleaseExtensionPosition
+        m_snapshot.getPosition() > ReleaseExtensionPosition
             - ExtensionConstants.kExtensionPositionTolerance;
   };
 
@@ -0,0 +1,130 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.sensors.WPI_Pigeon2;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Reads the Pigeon 2 once per sample: yaw, pitch and roll in one call and the
+ * three rates in another, stamped with the time the readings were taken.
+ *
+ * <p>
+ * Phoenix 5 does not expose the CAN receive time of a frame, so the timestamp
+ * is the FPGA time of the read minus the average age of a status frame. A
+ * failed read keeps the last sample and its timestamp.
+ *
+ * <p>
+ * Yaw and yaw rate are counterclockwise positive, same as
+ * {@link WPI_Pigeon2#getYaw()}. Not thread safe, use from the main loop only.
+ */
+public class GyroService {
+  private final WPI_Pigeon2 m_gyro;
+
+  private final double[] m_yawPitchRoll = new double[3];
+  private final double[] m_rates = new double[3];
+
+  private double m_yawDegrees;
+  private double m_pitchDegrees;
+  private double m_rollDegrees;
+  // Rates about the x (roll), y (pitch) and z (yaw) axes, in degrees per
+  // second. The mount pose is not configured, so these are the robot's axes.
+  private final double[] m_xyzRates = new double[3];
+  private double m_timestamp;
+  private int m_errors = 0;
+
+  public GyroService(WPI_Pigeon2 gyro) {
+    m_gyro = gyro;
+    sample();
+  }
+
+  /** Reads the gyro. Call once per loop. */
+  public void sample() {
+    double readTime = Timer.getFPGATimestamp();
+    ErrorCode anglesError = m_gyro.getYawPitchRoll(m_yawPitchRoll);
+    ErrorCode ratesError = m_gyro.getRawGyro(m_rates);
+    if (anglesError != ErrorCode.OK || ratesError != ErrorCode.OK) {
+      m_errors++;
+      return;
+    }
+
+    m_yawDegrees = m_yawPitchRoll[0];
+    m_pitchDegrees = m_yawPitchRoll[1];
+    m_rollDegrees = m_yawPitchRoll[2];
+    System.arraycopy(m_rates, 0, m_xyzRates, 0, m_rates.length);
+    m_timestamp = readTime - DriveConstants.kGyroFrameAgeSeconds;
+  }
+
+  /**
+   * Zeroes the yaw. The sample is zeroed too, since the next frame may not have
+   * arrived yet.
+   */
+  public void reset() {
+    m_gyro.reset();
+    m_yawDegrees = 0;
+  }
+
+  public double getYawDegrees() {
+    return m_yawDegrees;
+  }
+
+  public double getPitchDegrees() {
+    return m_pitchDegrees;
+  }
+
+  public double getRollDegrees() {
+    return m_rollDegrees;
+  }
+
+  public double getRollRateDegreesPerSecond() {
+    return m_xyzRates[0];
+  }
+
+  public double getPitchRateDegreesPerSecond() {
+    return m_xyzRates[1];
+  }
+
+  public double getYawRateDegreesPerSecond() {
+    return m_xyzRates[2];
+  }
+
+  /**
+   * Returns the rates about the x, y and z axes, same order as
+   * {@link WPI_Pigeon2#getRawGyro(double[])}.
+   *
+   * @return Rates in degrees per second. Do not modify.
+   */
+  public double[] getXyzRates() {
+    return m_xyzRates;
+  }
+
+  /**
+   * Returns when the sample was measured.
+   *
+   * @return FPGA timestamp in seconds
+   */
+  public double getTimestamp() {
+    return m_timestamp;
+  }
+
+  public int getErrorCount() {
+    return m_errors;
+  }
+
+  /**
+   * Extrapolates the yaw to another time with the sampled yaw rate.
+   *
+   * @param timestampSeconds FPGA timestamp in seconds
+   * @return The yaw in degrees
+   */
+  public double getYawDegreesAt(double timestampSeconds) {
+    double dt = MathUtil.clamp(timestampSeconds - m_timestamp, 0, DriveConstants.kMaxHeadingLookaheadSeconds);
+    return m_yawDegrees + getYawRateDegreesPerSecond() * dt;
+  }
+}
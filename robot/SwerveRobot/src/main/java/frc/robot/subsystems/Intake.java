@@ -13,13 +13,25 @@ import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.SetpointConstants;
 import frc.robot.Constants.SubsystemMotorConstants;
 import frc.robot.Constants.TuningModeConstants;
+import frc.robot.RobotLoop;
+import frc.robot.StatusFrameManager;
+import frc.robot.StatusFrameManager.Role;
+import frc.utils.SparkMaxConfig;
+import frc.utils.SparkMaxConfigurator;
+import frc.utils.SparkMaxSetpoint;
 import frc.robot.subsystems.LEDs.GamePiece;
 
 import static frc.robot.Constants.IntakeConstants;
 
+import frc.robot.LoopProfiler;
+import frc.utils.LoopHistogram;
+
 public class Intake extends SubsystemBase {
+  private final LoopHistogram m_periodicTiming = LoopProfiler.getInstance().channel("Intake.periodic()");
+
   private boolean TUNING_MODE = TuningModeConstants.kIntakeTuning;
   private final CANSparkMax m_intakeMotor;
   private RelativeEncoder m_intakeEncoder;
@@ -31,6 +43,8 @@ public class Intake extends SubsystemBase {
 
   // PID
   private SparkMaxPIDController m_intakePIDController;
+  // All output goes through here so repeated setpoints are not resent
+  private final SparkMaxSetpoint m_setpoint;
   static double kPIntake = .5;
   static double kIIntake = 0;
   static double kDIntake = 0.;
@@ -44,26 +58,26 @@ public class Intake extends SubsystemBase {
   /** The intake subsystem for the robot. */
   public Intake() {
     m_intakeMotor = new CANSparkMax(IntakeConstants.kIntakePort, MotorType.kBrushless);
-    m_intakeMotor.setOpenLoopRampRate(IntakeConstants.kRampRate);
-    m_intakeMotor.restoreFactoryDefaults();
-    m_intakeMotor.setIdleMode(IdleMode.kCoast);
-    m_intakeMotor.setSmartCurrentLimit(SubsystemMotorConstants.kMotorCurrentLimit550);
     m_intakeEncoder = m_intakeMotor.getEncoder();
     m_intakePIDController = m_intakeMotor.getPIDController();
+    m_setpoint = new SparkMaxSetpoint(m_intakePIDController, SetpointConstants.kDutyCycleEpsilon,
+        SetpointConstants.kKeepAliveSeconds);
 
-    // Set PID coefficients
-    m_intakePIDController.setP(kPIntake);
-    m_intakePIDController.setI(kIIntake);
-    m_intakePIDController.setD(kDIntake);
-    m_intakePIDController.setFF(kFFIntake);
-    m_intakePIDController.setOutputRange(kIntakeMinOutput, kIntakeMaxOutput);
+    SparkMaxConfigurator.getInstance().submit(new SparkMaxConfig(m_intakeMotor, "Intake")
+        .openLoopRampRate(IntakeConstants.kRampRate)
+        .idleMode(IdleMode.kCoast)
+        .smartCurrentLimit(SubsystemMotorConstants.kMotorCurrentLimit550)
+        // Set PID coefficients
+        .pid(m_intakePIDController, 0, kPIntake, kIIntake, kDIntake, kFFIntake, kIntakeMinOutput,
+            kIntakeMaxOutput));
 
     // If we're fine-tuning PID Constants, the display them on the dashboard
     if (TUNING_MODE) {
       addPIDToDashboard();
       addEjectWaitTimeToDashboard();
     }
-    m_intakeMotor.burnFlash();
+    StatusFrameManager.getInstance().register(m_intakeMotor, Role.INTAKE, m_setpoint);
+    RobotLoop.getInstance().addOutput(m_setpoint::flush);
 
   }
 
@@ -124,6 +138,8 @@ public class Intake extends SubsystemBase {
 
   @Override
   public void periodic() {
+    long start = System.nanoTime();
+
     // If we're fine-tuning PID Constants, read and apply updates from the dashboard
     if (TUNING_MODE) {
       readPIDTuningFromDashboard();
@@ -135,6 +151,7 @@ public class Intake extends SubsystemBase {
 
     }
 
+    m_periodicTiming.recordSince(start);
   }
 
   // log into console the intake encoder position
@@ -149,44 +166,44 @@ public class Intake extends SubsystemBase {
 
   public void holdCargo() {
     LEDs.getInstance().selectedGamePiece = GamePiece.NONE;
-    m_intakePIDController.setReference(CurrentIntakeEncoderPosition(), ControlType.kPosition);
+    m_setpoint.setReference(CurrentIntakeEncoderPosition(), ControlType.kPosition);
   }
 
   // Open loop stuff
   // Run the intake forward at the CONE speed
   public void intakeCone() {
     LEDs.getInstance().selectedGamePiece = GamePiece.CONE;
-    m_intakeMotor.set(IntakeConstants.kIntakeConePower);
+    m_setpoint.setDutyCycle(IntakeConstants.kIntakeConePower);
   }
 
   // Run the intake forward at the CUBE speed
   public void intakeCube() {
     LEDs.getInstance().selectedGamePiece = GamePiece.CUBE;
-    m_intakeMotor.set(IntakeConstants.kIntakeCubePower);
+    m_setpoint.setDutyCycle(IntakeConstants.kIntakeCubePower);
   }
 
   // Run the intake reverse to eject CONE
   public void ejectCone() {
-    m_intakeMotor.set(-IntakeConstants.kEjectConePower);
+    m_setpoint.setDutyCycle(-IntakeConstants.kEjectConePower);
   }
 
   // Run the intake reverse to eject CUBE
   public void ejectCube() {
-    m_intakeMotor.set(-IntakeConstants.kEjectCubePower);
+    m_setpoint.setDutyCycle(-IntakeConstants.kEjectCubePower);
   }
 
   // Run the intake reverse to eject CUBE
   public void shootCube() {
-    m_intakeMotor.set(-IntakeConstants.kShootCubePower);
+    m_setpoint.setDutyCycle(-IntakeConstants.kShootCubePower);
   }
 
   // Run the intake reverse to eject CUBE
   public void dropCube() {
-    m_intakeMotor.set(-IntakeConstants.kDropCubePower);
+    m_setpoint.setDutyCycle(-IntakeConstants.kDropCubePower);
   }
 
   // Stop the intake
   public void stopIntake() {
-    m_intakeMotor.set(0);
+    m_setpoint.setDutyCycle(0);
   }
 }
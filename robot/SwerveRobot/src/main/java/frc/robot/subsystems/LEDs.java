@@ -12,7 +12,12 @@ import edu.wpi.first.wpilibj.Timer;
 
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
+import frc.robot.LoopProfiler;
+import frc.utils.LoopHistogram;
+
 public class LEDs extends SubsystemBase {
+    private final LoopHistogram m_periodicTiming = LoopProfiler.getInstance().channel("LEDs.periodic()");
+
     private static LEDs instance;
 
     public enum GamePiece {
@@ -51,6 +56,8 @@ public class LEDs extends SubsystemBase {
     }
 
     public void periodic() {
+        long start = System.nanoTime();
+
         // Select LED mode
         // default off
 
@@ -82,5 +89,6 @@ public class LEDs extends SubsystemBase {
             solid(Color.kYellow);
         }
 
+        m_periodicTiming.recordSince(start);
     }
 }
\ No newline at end of file
@@ -4,9 +4,14 @@
 
 package frc.robot.subsystems;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
 
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
@@ -15,7 +20,16 @@ import com.revrobotics.SparkMaxPIDController;
 import com.revrobotics.AbsoluteEncoder;
 import com.revrobotics.RelativeEncoder;
 
+import frc.robot.RobotLoop;
+import frc.robot.StatusFrameManager;
+import frc.robot.StatusFrameManager.Role;
 import frc.robot.Constants.ModuleConstants;
+import frc.robot.Constants.SetpointConstants;
+import frc.robot.Constants.SimConstants;
+import frc.utils.SparkMaxConfig;
+import frc.utils.SparkMaxConfigurator;
+import frc.utils.SparkMaxSetpoint;
+import frc.utils.SparkMaxSim;
 
 public class MAXSwerveModule {
   private final CANSparkMax m_drivingSparkMax;
@@ -26,9 +40,21 @@ public class MAXSwerveModule {
 
   private final SparkMaxPIDController m_drivingPIDController;
   private final SparkMaxPIDController m_turningPIDController;
+  private final SparkMaxSetpoint m_drivingSetpoint;
+  private final SparkMaxSetpoint m_turningSetpoint;
 
   private double m_chassisAngularOffset = 0;
-  private SwerveModuleState m_desiredState = new SwerveModuleState(0.0, new Rotation2d());
+
+  // Desktop simulation. The simulated encoder readings are read by the
+  // odometry thread, so they are volatile.
+  private final boolean m_simulated = RobotBase.isSimulation();
+  private SparkMaxSim m_drivingSparkMaxSim;
+  private SparkMaxSim m_turningSparkMaxSim;
+  private FlywheelSim m_drivingSim;
+  private DCMotorSim m_turningSim;
+  private volatile double m_simDrivingPosition = 0;
+  private volatile double m_simDrivingVelocity = 0;
+  private volatile double m_simTurningPosition = 0;
 
   /**
    * Constructs a MAXSwerveModule and configures the driving and turning motor,
@@ -40,102 +66,147 @@ public class MAXSwerveModule {
     m_drivingSparkMax = new CANSparkMax(drivingCANId, MotorType.kBrushless);
     m_turningSparkMax = new CANSparkMax(turningCANId, MotorType.kBrushless);
 
-    // Factory reset, so we get the SPARKS MAX to a known state before configuring
-    // them. This is useful in case a SPARK MAX is swapped out.
-    m_drivingSparkMax.restoreFactoryDefaults();
-    m_turningSparkMax.restoreFactoryDefaults();
-
     // Setup encoders and PID controllers for the driving and turning SPARKS MAX.
     m_drivingEncoder = m_drivingSparkMax.getEncoder();
     m_turningEncoder = m_turningSparkMax.getAbsoluteEncoder(Type.kDutyCycle);
     m_drivingPIDController = m_drivingSparkMax.getPIDController();
     m_turningPIDController = m_turningSparkMax.getPIDController();
-    m_drivingPIDController.setFeedbackDevice(m_drivingEncoder);
-    m_turningPIDController.setFeedbackDevice(m_turningEncoder);
-
-    // Apply position and velocity conversion factors for the driving encoder. The
-    // native units for position and velocity are rotations and RPM, respectively,
-    // but we want meters and meters per second to use with WPILib's swerve APIs.
-    m_drivingEncoder.setPositionConversionFactor(ModuleConstants.kDrivingEncoderPositionFactor);
-    m_drivingEncoder.setVelocityConversionFactor(ModuleConstants.kDrivingEncoderVelocityFactor);
-
-    // Apply position and velocity conversion factors for the turning encoder. We
-    // want these in radians and radians per second to use with WPILib's swerve
-    // APIs.
-    m_turningEncoder.setPositionConversionFactor(ModuleConstants.kTurningEncoderPositionFactor);
-    m_turningEncoder.setVelocityConversionFactor(ModuleConstants.kTurningEncoderVelocityFactor);
-
-    // Invert the turning encoder, since the output shaft rotates in the opposite
-    // direction of
-    // the steering motor in the MAXSwerve Module.
-    m_turningEncoder.setInverted(ModuleConstants.kTurningEncoderInverted);
-
-    // Enable PID wrap around for the turning motor. This will allow the PID
-    // controller to go through 0 to get to the setpoint i.e. going from 350 degrees
-    // to 10 degrees will go through 0 rather than the other direction which is a
-    // longer route.
-    m_turningPIDController.setPositionPIDWrappingEnabled(true);
-    m_turningPIDController.setPositionPIDWrappingMinInput(ModuleConstants.kTurningEncoderPositionPIDMinInput);
-    m_turningPIDController.setPositionPIDWrappingMaxInput(ModuleConstants.kTurningEncoderPositionPIDMaxInput);
-
-    // Set the PID gains for the driving motor. Note these are example gains, and
-    // you
-    // may need to tune them for your own robot!
-    m_drivingPIDController.setP(ModuleConstants.kDrivingP);
-    m_drivingPIDController.setI(ModuleConstants.kDrivingI);
-    m_drivingPIDController.setD(ModuleConstants.kDrivingD);
-    m_drivingPIDController.setFF(ModuleConstants.kDrivingFF);
-    m_drivingPIDController.setOutputRange(ModuleConstants.kDrivingMinOutput,
-        ModuleConstants.kDrivingMaxOutput);
-
-    // Set the PID gains for the turning motor. Note these are example gains, and
-    // you
-    // may need to tune them for your own robot!
-    m_turningPIDController.setP(ModuleConstants.kTurningP);
-    m_turningPIDController.setI(ModuleConstants.kTurningI);
-    m_turningPIDController.setD(ModuleConstants.kTurningD);
-    m_turningPIDController.setFF(ModuleConstants.kTurningFF);
-    m_turningPIDController.setOutputRange(ModuleConstants.kTurningMinOutput,
-        ModuleConstants.kTurningMaxOutput);
-
-    m_drivingSparkMax.setIdleMode(ModuleConstants.kDrivingMotorIdleMode);
-    m_turningSparkMax.setIdleMode(ModuleConstants.kTurningMotorIdleMode);
-    m_drivingSparkMax.setSmartCurrentLimit(ModuleConstants.kDrivingMotorCurrentLimit);
-    m_turningSparkMax.setSmartCurrentLimit(ModuleConstants.kTurningMotorCurrentLimit);
-
-    // Save the SPARK MAX configurations. If a SPARK MAX browns out during
-    // operation, it will maintain the above configurations.
-    m_drivingSparkMax.burnFlash();
-    m_turningSparkMax.burnFlash();
+    m_drivingSetpoint = new SparkMaxSetpoint(m_drivingPIDController, SetpointConstants.kDriveVelocityEpsilon,
+        SetpointConstants.kKeepAliveSeconds);
+    m_turningSetpoint = new SparkMaxSetpoint(m_turningPIDController, SetpointConstants.kTurnPositionEpsilon,
+        SetpointConstants.kKeepAliveSeconds);
+
+    // The configurator only writes the settings that differ and only burns
+    // flash when one did. It factory resets a controller only when its saved
+    // config fingerprint is missing or different, not on every boot.
+    SparkMaxConfigurator.getInstance().submit(new SparkMaxConfig(m_drivingSparkMax, "Driving " + drivingCANId)
+        .feedbackDevice(m_drivingPIDController, m_drivingEncoder)
+        // Meters and meters per second, instead of rotations and RPM
+        .encoderConversion(m_drivingEncoder, ModuleConstants.kDrivingEncoderPositionFactor,
+            ModuleConstants.kDrivingEncoderVelocityFactor)
+        .pid(m_drivingPIDController, 0, ModuleConstants.kDrivingP, ModuleConstants.kDrivingI,
+            ModuleConstants.kDrivingD, ModuleConstants.kDrivingFF, ModuleConstants.kDrivingMinOutput,
+            ModuleConstants.kDrivingMaxOutput)
+        .idleMode(ModuleConstants.kDrivingMotorIdleMode)
+        .smartCurrentLimit(ModuleConstants.kDrivingMotorCurrentLimit));
+
+    SparkMaxConfigurator.getInstance().submit(new SparkMaxConfig(m_turningSparkMax, "Turning " + turningCANId)
+        .feedbackDevice(m_turningPIDController, m_turningEncoder)
+        // Radians and radians per second. The encoder is inverted since the
+        // output shaft turns opposite to the steering motor.
+        .absoluteEncoder(m_turningEncoder, ModuleConstants.kTurningEncoderPositionFactor,
+            ModuleConstants.kTurningEncoderVelocityFactor, ModuleConstants.kTurningEncoderInverted)
+        // Wrap so going from 350 to 10 degrees goes through 0
+        .positionWrapping(m_turningPIDController, ModuleConstants.kTurningEncoderPositionPIDMinInput,
+            ModuleConstants.kTurningEncoderPositionPIDMaxInput)
+        .pid(m_turningPIDController, 0, ModuleConstants.kTurningP, ModuleConstants.kTurningI,
+            ModuleConstants.kTurningD, ModuleConstants.kTurningFF, ModuleConstants.kTurningMinOutput,
+            ModuleConstants.kTurningMaxOutput)
+        .idleMode(ModuleConstants.kTurningMotorIdleMode)
+        .smartCurrentLimit(ModuleConstants.kTurningMotorCurrentLimit));
+
+    StatusFrameManager.getInstance().register(m_drivingSparkMax, Role.DRIVE, m_drivingSetpoint);
+    StatusFrameManager.getInstance().register(m_turningSparkMax, Role.STEER, m_turningSetpoint);
+    RobotLoop.getInstance().addOutput(m_drivingSetpoint::flush);
+    RobotLoop.getInstance().addOutput(m_turningSetpoint::flush);
 
     m_chassisAngularOffset = chassisAngularOffset;
-    m_desiredState.angle = new Rotation2d(m_turningEncoder.getPosition());
+
+    if (m_simulated) {
+      m_drivingSparkMaxSim = new SparkMaxSim(ModuleConstants.kDrivingP, ModuleConstants.kDrivingFF,
+          ModuleConstants.kDrivingMinOutput, ModuleConstants.kDrivingMaxOutput);
+      m_turningSparkMaxSim = new SparkMaxSim(ModuleConstants.kTurningP, ModuleConstants.kTurningFF,
+          ModuleConstants.kTurningMinOutput, ModuleConstants.kTurningMaxOutput);
+      m_turningSparkMaxSim.setPositionWrapping(ModuleConstants.kTurningEncoderPositionPIDMinInput,
+          ModuleConstants.kTurningEncoderPositionPIDMaxInput);
+      m_drivingSim = new FlywheelSim(DCMotor.getNEO(1), ModuleConstants.kDrivingMotorReduction,
+          SimConstants.kDrivingWheelMOI);
+      m_turningSim = new DCMotorSim(DCMotor.getNeo550(1), SimConstants.kTurningMotorReduction,
+          SimConstants.kTurningMOI);
+      // Start with the wheels straight, like a freshly aligned robot
+      m_simTurningPosition = MathUtil.inputModulus(chassisAngularOffset, 0, 2 * Math.PI);
+    }
+
     m_drivingEncoder.setPosition(0);
   }
 
+  // Turning encoder position, in radians
+  private double getTurningPosition() {
+    return m_simulated ? m_simTurningPosition : m_turningEncoder.getPosition();
+  }
+
   /**
-   * Returns the current state of the module.
+   * Returns the module angle relative to the chassis.
    *
-   * @return The current state of the module.
+   * @return The angle in radians
    */
-  public SwerveModuleState getState() {
+  public double getAngleRadians() {
     // Apply chassis angular offset to the encoder position to get the position
     // relative to the chassis.
-    return new SwerveModuleState(m_drivingEncoder.getVelocity(),
-        new Rotation2d(m_turningEncoder.getPosition() - m_chassisAngularOffset));
+    return getTurningPosition() - m_chassisAngularOffset;
+  }
+
+  /**
+   * Returns the distance driven since the encoders were reset.
+   *
+   * @return The distance in meters
+   */
+  public double getDistanceMeters() {
+    return m_simulated ? m_simDrivingPosition : m_drivingEncoder.getPosition();
+  }
+
+  /**
+   * Returns the wheel speed.
+   *
+   * @return The speed in meters per second
+   */
+  public double getVelocityMetersPerSecond() {
+    return m_simulated ? m_simDrivingVelocity : m_drivingEncoder.getVelocity();
+  }
+
+  /**
+   * Steps the simulated motors. Only does anything in desktop simulation.
+   *
+   * @param dtSeconds    Time since the last step
+   * @param batteryVolts Simulated battery voltage
+   */
+  public void simulationPeriodic(double dtSeconds, double batteryVolts) {
+    if (!m_simulated) {
+      return;
+    }
+    m_drivingSim.setInputVoltage(
+        m_drivingSparkMaxSim.getVoltage(m_simDrivingPosition, m_simDrivingVelocity, batteryVolts));
+    m_turningSim.setInputVoltage(
+        m_turningSparkMaxSim.getVoltage(m_simTurningPosition, 0, batteryVolts));
+    m_drivingSim.update(dtSeconds);
+    m_turningSim.update(dtSeconds);
+
+    // The flywheel is the wheel itself, after the reduction
+    m_simDrivingVelocity = m_drivingSim.getAngularVelocityRadPerSec() * ModuleConstants.kWheelDiameterMeters / 2;
+    m_simDrivingPosition += m_simDrivingVelocity * dtSeconds;
+    // The turning encoder reads the module's output shaft
+    m_simTurningPosition = MathUtil.inputModulus(m_simTurningPosition
+        + m_turningSim.getAngularVelocityRadPerSec() * dtSeconds, 0, 2 * Math.PI);
   }
 
   /**
-   * Returns the current position of the module.
+   * Returns the current state of the module. Allocates, so loops that run
+   * every tick should use the primitive getters instead.
+   *
+   * @return The current state of the module.
+   */
+  public SwerveModuleState getState() {
+    return new SwerveModuleState(getVelocityMetersPerSecond(), new Rotation2d(getAngleRadians()));
+  }
+
+  /**
+   * Returns the current position of the module. Allocates, so loops that run
+   * every tick should use the primitive getters instead.
    *
    * @return The current position of the module.
    */
   public SwerveModulePosition getPosition() {
-    // Apply chassis angular offset to the encoder position to get the position
-    // relative to the chassis.
-    return new SwerveModulePosition(
-        m_drivingEncoder.getPosition(),
-        new Rotation2d(m_turningEncoder.getPosition() - m_chassisAngularOffset));
+    return new SwerveModulePosition(getDistanceMeters(), new Rotation2d(getAngleRadians()));
   }
 
   /**
@@ -144,24 +215,41 @@ public class MAXSwerveModule {
    * @param desiredState Desired state with speed and angle.
    */
   public void setDesiredState(SwerveModuleState desiredState) {
-    // Apply chassis angular offset to the desired state.
-    SwerveModuleState correctedDesiredState = new SwerveModuleState();
-    correctedDesiredState.speedMetersPerSecond = desiredState.speedMetersPerSecond;
-    correctedDesiredState.angle = desiredState.angle.plus(Rotation2d.fromRadians(m_chassisAngularOffset));
+    setDesiredState(desiredState.speedMetersPerSecond, desiredState.angle.getRadians());
+  }
+
+  /**
+   * Sets the desired speed and angle for the module without allocating.
+   *
+   * @param speedMetersPerSecond Desired speed of the module.
+   * @param angleRadians         Desired angle of the module, relative to the
+   *                             chassis.
+   */
+  public void setDesiredState(double speedMetersPerSecond, double angleRadians) {
+    // Apply chassis angular offset to the desired angle.
+    double correctedAngle = angleRadians + m_chassisAngularOffset;
 
     // Optimize the reference state to avoid spinning further than 90 degrees.
-    SwerveModuleState optimizedDesiredState = SwerveModuleState.optimize(correctedDesiredState,
-        new Rotation2d(m_turningEncoder.getPosition()));
+    // Same as SwerveModuleState.optimize, but on primitives.
+    double delta = MathUtil.angleModulus(correctedAngle - getTurningPosition());
+    if (Math.abs(delta) > Math.PI / 2) {
+      speedMetersPerSecond = -speedMetersPerSecond;
+      correctedAngle += Math.PI;
+    }
 
     // Command driving and turning SPARKS MAX towards their respective setpoints.
-    m_drivingPIDController.setReference(optimizedDesiredState.speedMetersPerSecond, CANSparkMax.ControlType.kVelocity);
-    m_turningPIDController.setReference(optimizedDesiredState.angle.getRadians(), CANSparkMax.ControlType.kPosition);
-
-    m_desiredState = desiredState;
+    // Sent at the end of the loop, and not at all if unchanged.
+    m_drivingSetpoint.setReference(speedMetersPerSecond, CANSparkMax.ControlType.kVelocity);
+    m_turningSetpoint.setReference(MathUtil.angleModulus(correctedAngle), CANSparkMax.ControlType.kPosition);
+    if (m_simulated) {
+      m_drivingSparkMaxSim.setVelocity(speedMetersPerSecond);
+      m_turningSparkMaxSim.setPosition(MathUtil.inputModulus(correctedAngle, 0, 2 * Math.PI), 0);
+    }
   }
 
   /** Zeroes all the SwerveModule encoders. */
   public void resetEncoders() {
     m_drivingEncoder.setPosition(0);
+    m_simDrivingPosition = 0;
   }
 }
\ No newline at end of file
@@ -0,0 +1,296 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+
+import com.ctre.phoenix.sensors.WPI_Pigeon2;
+
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Integrates swerve odometry on its own {@link Notifier} so the pose is
+ * updated much faster than the 20 ms scheduler loop. Each sample (FPGA
+ * timestamp, gyro yaw, module positions and resulting pose) is kept in a fixed
+ * size ring buffer. All access to the odometry goes through a single lock, so
+ * {@link #getPose()} and {@link #resetPose(Pose2d)} are safe to call from the
+ * main robot thread.
+ *
+ * The pose comes from a {@link SwerveDrivePoseEstimator}, stamped with FPGA
+ * time, so vision measurements can be added with their capture timestamp and
+ * the estimator replays the odometry recorded since then.
+ */
+public class OdometryThread {
+  private final WPI_Pigeon2 m_gyro;
+  private final MAXSwerveModule[] m_modules;
+  // What was last handed to the estimator. Rotation2d is immutable, so a new
+  // one is built only for an angle that changed.
+  private final SwerveModulePosition[] m_positions;
+  private final double[] m_positionAnglesRadians;
+  private Rotation2d m_yaw;
+  private double m_yawDegrees = Double.NaN;
+  // Read by the notifier thread before it takes the lock
+  private final double[] m_readDistancesMeters;
+  private final double[] m_readAnglesRadians;
+  private final SwerveDrivePoseEstimator m_estimator;
+  private final Notifier m_notifier;
+  private final Object m_lock = new Object();
+
+  // Ring buffer of timestamped samples, indexed [sample] or [sample][module]
+  private final int m_capacity = DriveConstants.kOdometryBufferSize;
+  private final double[] m_timestamps = new double[m_capacity];
+  private final double[] m_yawRadians = new double[m_capacity];
+  private final double[][] m_distancesMeters;
+  private final double[][] m_anglesRadians;
+  private final double[] m_poseX = new double[m_capacity];
+  private final double[] m_poseY = new double[m_capacity];
+  private final double[] m_poseRadians = new double[m_capacity];
+  private int m_head = 0;
+  private int m_count = 0;
+
+  private Pose2d m_pose = new Pose2d();
+
+  /**
+   * Creates the odometry thread. The thread does not run until
+   * {@link #start()} is called.
+   *
+   * @param gyro       The gyro used for heading
+   * @param kinematics The swerve kinematics of the drivetrain
+   * @param modules    The swerve modules, in the same order as the kinematics
+   */
+  public OdometryThread(WPI_Pigeon2 gyro, SwerveDriveKinematics kinematics, MAXSwerveModule... modules) {
+    m_gyro = gyro;
+    m_modules = modules;
+    m_positions = new SwerveModulePosition[modules.length];
+    m_positionAnglesRadians = new double[modules.length];
+    for (int i = 0; i < modules.length; i++) {
+      m_positions[i] = new SwerveModulePosition();
+      m_positionAnglesRadians[i] = Double.NaN;
+    }
+    m_readDistancesMeters = new double[modules.length];
+    m_readAnglesRadians = new double[modules.length];
+    m_distancesMeters = new double[m_capacity][modules.length];
+    m_anglesRadians = new double[m_capacity][modules.length];
+
+    read(m_readDistancesMeters, m_readAnglesRadians);
+    setEstimatorInputs(m_gyro.getYaw(), m_readDistancesMeters, m_readAnglesRadians);
+    m_estimator = new SwerveDrivePoseEstimator(kinematics, m_yaw, m_positions, new Pose2d(),
+        VecBuilder.fill(DriveConstants.kOdometryStdDevXY, DriveConstants.kOdometryStdDevXY,
+            DriveConstants.kOdometryStdDevRadians),
+        VecBuilder.fill(DriveConstants.kVisionStdDevXY, DriveConstants.kVisionStdDevXY,
+            DriveConstants.kVisionStdDevRadians));
+
+    m_notifier = new Notifier(this::sample);
+    m_notifier.setName("Odometry");
+  }
+
+  /** Starts sampling at {@link DriveConstants#kOdometryPeriodSeconds}. */
+  public void start() {
+    m_notifier.startPeriodic(DriveConstants.kOdometryPeriodSeconds);
+  }
+
+  /** Stops sampling. */
+  public void stop() {
+    m_notifier.stop();
+  }
+
+  /**
+   * Returns the most recent pose from the odometry thread.
+   *
+   * @return The pose.
+   */
+  public Pose2d getPose() {
+    synchronized (m_lock) {
+      return m_pose;
+    }
+  }
+
+  /**
+   * Resets the odometry to the specified pose and clears the sample buffer.
+   *
+   * @param pose The pose to which to set the odometry.
+   */
+  public void resetPose(Pose2d pose) {
+    // Not the notifier's read buffers, it fills them outside the lock
+    double[] distancesMeters = new double[m_modules.length];
+    double[] anglesRadians = new double[m_modules.length];
+    read(distancesMeters, anglesRadians);
+    double yawDegrees = m_gyro.getYaw();
+    synchronized (m_lock) {
+      setEstimatorInputs(yawDegrees, distancesMeters, anglesRadians);
+      m_estimator.resetPosition(m_yaw, m_positions, pose);
+      m_pose = pose;
+      m_head = 0;
+      m_count = 0;
+    }
+  }
+
+  /**
+   * Corrects the pose with a vision measurement. The estimator rewinds to the
+   * capture time and replays the odometry since then, so camera latency does
+   * not drag the pose backwards.
+   *
+   * @param visionPose       The robot pose measured by vision
+   * @param timestampSeconds FPGA timestamp of the camera capture
+   * @param stdDevs          Trust in the measurement (x and y in meters,
+   *                         heading in radians); larger is trusted less
+   */
+  public void addVisionMeasurement(Pose2d visionPose, double timestampSeconds, Matrix<N3, N1> stdDevs) {
+    synchronized (m_lock) {
+      m_estimator.addVisionMeasurement(visionPose, timestampSeconds, stdDevs);
+      m_pose = m_estimator.getEstimatedPosition();
+    }
+  }
+
+  /**
+   * Returns the FPGA timestamp of the newest buffered sample.
+   *
+   * @return The timestamp in seconds, or 0 if no samples have been taken.
+   */
+  public double getLatestTimestamp() {
+    synchronized (m_lock) {
+      return m_count == 0 ? 0 : m_timestamps[index(m_count - 1)];
+    }
+  }
+
+  /**
+   * Returns the number of samples currently held in the ring buffer.
+   *
+   * @return The number of samples.
+   */
+  public int getSampleCount() {
+    synchronized (m_lock) {
+      return m_count;
+    }
+  }
+
+  /**
+   * Copies the module readings of a buffered sample into the given arrays.
+   *
+   * @param i               Sample index, 0 being the oldest
+   * @param distancesMeters Filled with each module's drive distance
+   * @param anglesRadians   Filled with each module's angle
+   * @return The FPGA timestamp of the sample in seconds
+   */
+  public double getSample(int i, double[] distancesMeters, double[] anglesRadians) {
+    synchronized (m_lock) {
+      int idx = index(i);
+      System.arraycopy(m_distancesMeters[idx], 0, distancesMeters, 0, m_modules.length);
+      System.arraycopy(m_anglesRadians[idx], 0, anglesRadians, 0, m_modules.length);
+      return m_timestamps[idx];
+    }
+  }
+
+  /**
+   * Returns the gyro yaw of a buffered sample.
+   *
+   * @param i Sample index, 0 being the oldest
+   * @return The yaw in radians
+   */
+  public double getSampleYawRadians(int i) {
+    synchronized (m_lock) {
+      return m_yawRadians[index(i)];
+    }
+  }
+
+  /**
+   * Returns the buffered pose closest to, but not after, the given timestamp.
+   *
+   * @param timestampSeconds FPGA timestamp in seconds
+   * @return The buffered pose, or the current pose if nothing older is buffered
+   */
+  public Pose2d getPoseAt(double timestampSeconds) {
+    synchronized (m_lock) {
+      for (int i = m_count - 1; i >= 0; i--) {
+        int idx = index(i);
+        if (m_timestamps[idx] <= timestampSeconds) {
+          return new Pose2d(m_poseX[idx], m_poseY[idx], new Rotation2d(m_poseRadians[idx]));
+        }
+      }
+      return m_pose;
+    }
+  }
+
+  // Maps the i-th oldest sample to its slot in the ring buffer
+  private int index(int i) {
+    return (m_head + i) % m_capacity;
+  }
+
+  // Reads the modules. CAN reads, so not under the lock when sampling.
+  private void read(double[] distancesMeters, double[] anglesRadians) {
+    for (int i = 0; i < m_modules.length; i++) {
+      distancesMeters[i] = m_modules[i].getDistanceMeters();
+      anglesRadians[i] = m_modules[i].getAngleRadians();
+    }
+  }
+
+  // Copies the readings into the estimator's inputs, building a Rotation2d only
+  // for angles that changed. Returns whether anything changed.
+  private boolean setEstimatorInputs(double yawDegrees, double[] distancesMeters, double[] anglesRadians) {
+    boolean changed = false;
+    if (yawDegrees != m_yawDegrees) {
+      // Same as WPI_Pigeon2.getRotation2d()
+      m_yaw = Rotation2d.fromDegrees(yawDegrees);
+      m_yawDegrees = yawDegrees;
+      changed = true;
+    }
+    for (int i = 0; i < m_modules.length; i++) {
+      if (anglesRadians[i] != m_positionAnglesRadians[i]) {
+        m_positions[i].angle = new Rotation2d(anglesRadians[i]);
+        m_positionAnglesRadians[i] = anglesRadians[i];
+        changed = true;
+      }
+      if (distancesMeters[i] != m_positions[i].distanceMeters) {
+        m_positions[i].distanceMeters = distancesMeters[i];
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  // Called on the notifier thread. The sensors are read before taking the
+  // lock, so getPose() on the main thread does not wait on the CAN bus. The
+  // estimator allocates on every update, so it is skipped while the robot
+  // is standing still; the pose cannot have changed.
+  private void sample() {
+    double timestamp = Timer.getFPGATimestamp();
+    double yawDegrees = m_gyro.getYaw();
+    read(m_readDistancesMeters, m_readAnglesRadians);
+
+    synchronized (m_lock) {
+      if (setEstimatorInputs(yawDegrees, m_readDistancesMeters, m_readAnglesRadians) || m_count == 0) {
+        m_pose = m_estimator.updateWithTime(timestamp, m_yaw, m_positions);
+      }
+
+      // Overwrite the oldest sample once the buffer is full
+      int slot;
+      if (m_count < m_capacity) {
+        slot = index(m_count);
+        m_count++;
+      } else {
+        slot = m_head;
+        m_head = (m_head + 1) % m_capacity;
+      }
+
+      m_timestamps[slot] = timestamp;
+      m_yawRadians[slot] = Math.toRadians(yawDegrees);
+      System.arraycopy(m_readDistancesMeters, 0, m_distancesMeters[slot], 0, m_modules.length);
+      System.arraycopy(m_readAnglesRadians, 0, m_anglesRadians[slot], 0, m_modules.length);
+      m_poseX[slot] = m_pose.getX();
+      m_poseY[slot] = m_pose.getY();
+      m_poseRadians[slot] = m_pose.getRotation().getRadians();
+    }
+  }
+}
@@ -0,0 +1,313 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems.limelight;
+
+import java.util.EnumSet;
+
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.MultiSubscriber;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+
+/**
+ * One Limelight's NetworkTables output. All of the camera's topics are
+ * subscribed to once, and a listener copies each new value into a
+ * preallocated frame as it arrives. {@link #update()} publishes the latest
+ * complete frame once per loop, so the getters are plain field reads and
+ * agree with each other for the whole loop.
+ *
+ * A new frame is counted each time the blue origin botpose
+ * ("botpose_wpiblue") arrives, which the Limelight publishes once per
+ * processed image. NetworkTables delivers topics in no particular order, so
+ * the capture time is taken from that array's own latency field and publish
+ * time, not from "tl" and "cl", which may belong to another image.
+ */
+public class LimelightCamera {
+  // botpose is x, y, z, roll, pitch, yaw, latency, then tag count, tag span,
+  // average distance and average area on newer firmware
+  private static final int kMaxPoseLength = 11;
+  private static final int kPoseLatencyIndex = 6;
+  private static final int kPoseDistanceIndex = 9;
+
+  /** The values of one processed image. */
+  private static final class Frame {
+    long count;
+    double captureTimestamp;
+    double tx;
+    double ty;
+    double ta;
+    boolean tv;
+    int tid;
+    double tl;
+    double cl;
+    final double[] botPose = new double[kMaxPoseLength];
+    final double[] botPoseBlue = new double[kMaxPoseLength];
+    final double[] botPoseRed = new double[kMaxPoseLength];
+    final double[] targetPoseCameraSpace = new double[kMaxPoseLength];
+    int botPoseLength;
+    int botPoseBlueLength;
+    int botPoseRedLength;
+    int targetPoseCameraSpaceLength;
+
+    void copyFrom(Frame other) {
+      count = other.count;
+      captureTimestamp = other.captureTimestamp;
+      tx = other.tx;
+      ty = other.ty;
+      ta = other.ta;
+      tv = other.tv;
+      tid = other.tid;
+      tl = other.tl;
+      cl = other.cl;
+      System.arraycopy(other.botPose, 0, botPose, 0, kMaxPoseLength);
+      System.arraycopy(other.botPoseBlue, 0, botPoseBlue, 0, kMaxPoseLength);
+      System.arraycopy(other.botPoseRed, 0, botPoseRed, 0, kMaxPoseLength);
+      System.arraycopy(other.targetPoseCameraSpace, 0, targetPoseCameraSpace, 0, kMaxPoseLength);
+      botPoseLength = other.botPoseLength;
+      botPoseBlueLength = other.botPoseBlueLength;
+      botPoseRedLength = other.botPoseRedLength;
+      targetPoseCameraSpaceLength = other.targetPoseCameraSpaceLength;
+    }
+  }
+
+  private final String m_prefix;
+  private final MultiSubscriber m_subscriber;
+  private final DoublePublisher m_pipelinePublisher;
+  private final Object m_lock = new Object();
+
+  // Written by the listener thread under the lock
+  private final Frame m_pending = new Frame();
+  // Read by the robot thread, copied from m_pending in update()
+  private final Frame m_frame = new Frame();
+
+  // Built on first use for each frame
+  private Pose3d m_botPose;
+  private Pose3d m_botPoseBlue;
+  private Pose3d m_botPoseRed;
+
+  /**
+   * @param tableName The camera's NetworkTables name, e.g. "limelight-rear"
+   */
+  public LimelightCamera(String tableName) {
+    NetworkTableInstance inst = NetworkTableInstance.getDefault();
+    m_prefix = "/" + tableName + "/";
+    m_subscriber = new MultiSubscriber(inst, new String[] { m_prefix });
+    inst.addListener(m_subscriber, EnumSet.of(NetworkTableEvent.Kind.kValueAll), this::onValue);
+    m_pipelinePublisher = inst.getTable(tableName).getDoubleTopic("pipeline").publish();
+  }
+
+  // Called on the NetworkTables listener thread
+  private void onValue(NetworkTableEvent event) {
+    if (event.valueData == null) {
+      return;
+    }
+    String name = event.valueData.topic.getName().substring(m_prefix.length());
+    NetworkTableValue value = event.valueData.value;
+
+    synchronized (m_lock) {
+      switch (name) {
+        case "tx":
+          m_pending.tx = value.getDouble();
+          break;
+        case "ty":
+          m_pending.ty = value.getDouble();
+          break;
+        case "ta":
+          m_pending.ta = value.getDouble();
+          break;
+        case "tv":
+          m_pending.tv = value.getDouble() == 1;
+          break;
+        case "tid":
+          m_pending.tid = (int) value.getDouble();
+          break;
+        case "cl":
+          m_pending.cl = value.getDouble() / 1000.0;
+          break;
+        case "tl":
+          m_pending.tl = value.getDouble() / 1000.0;
+          break;
+        case "botpose":
+          m_pending.botPoseLength = copy(value.getDoubleArray(), m_pending.botPose);
+          break;
+        case "botpose_wpiblue":
+          // One per processed image, stamped with the NT server time it was
+          // published at less its own total latency
+          m_pending.botPoseBlueLength = copy(value.getDoubleArray(), m_pending.botPoseBlue);
+          double latencySeconds = m_pending.botPoseBlueLength > kPoseLatencyIndex
+              ? m_pending.botPoseBlue[kPoseLatencyIndex] / 1000.0
+              : m_pending.tl + m_pending.cl;
+          m_pending.captureTimestamp = value.getServerTime() * 1e-6 - latencySeconds;
+          m_pending.count++;
+          break;
+        case "botpose_wpired":
+          m_pending.botPoseRedLength = copy(value.getDoubleArray(), m_pending.botPoseRed);
+          break;
+        case "targetpose_cameraspace":
+          m_pending.targetPoseCameraSpaceLength = copy(value.getDoubleArray(),
+              m_pending.targetPoseCameraSpace);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private static int copy(double[] from, double[] to) {
+    int length = Math.min(from.length, to.length);
+    System.arraycopy(from, 0, to, 0, length);
+    return length;
+  }
+
+  /** Takes the latest frame from the listener. Call once per loop. */
+  public void update() {
+    synchronized (m_lock) {
+      if (m_pending.count == m_frame.count) {
+        return;
+      }
+      m_frame.copyFrom(m_pending);
+    }
+    m_botPose = null;
+    m_botPoseBlue = null;
+    m_botPoseRed = null;
+  }
+
+  /**
+   * Returns how many frames have arrived. Save it and pass it to
+   * {@link #isNewFrameSince(long)} to tell whether a later frame came in.
+   *
+   * @return The frame count as of the last {@link #update()}
+   */
+  public long getFrameCount() {
+    return m_frame.count;
+  }
+
+  public boolean isNewFrameSince(long frameCount) {
+    return m_frame.count != frameCount;
+  }
+
+  /**
+   * Returns when the current frame's image was captured.
+   *
+   * @return FPGA timestamp in seconds
+   */
+  public double getCaptureTimestamp() {
+    return m_frame.captureTimestamp;
+  }
+
+  public double getX() {
+    return m_frame.tx;
+  }
+
+  public double getY() {
+    return m_frame.ty;
+  }
+
+  public double getArea() {
+    return m_frame.ta;
+  }
+
+  public boolean hasTarget() {
+    return m_frame.tv;
+  }
+
+  public int getID() {
+    return m_frame.tid;
+  }
+
+  // Pipeline latency in seconds
+  public double getLatPip() {
+    return m_frame.tl;
+  }
+
+  // Capture latency in seconds
+  public double getLatCap() {
+    return m_frame.cl;
+  }
+
+  public Pose3d getBotPose() {
+    if (m_botPose == null) {
+      m_botPose = toPose3d(m_frame.botPose);
+    }
+    return m_botPose;
+  }
+
+  public Pose3d getBotPoseBlue() {
+    if (m_botPoseBlue == null) {
+      m_botPoseBlue = toPose3d(m_frame.botPoseBlue);
+    }
+    return m_botPoseBlue;
+  }
+
+  public Pose3d getBotPoseRed() {
+    if (m_botPoseRed == null) {
+      m_botPoseRed = toPose3d(m_frame.botPoseRed);
+    }
+    return m_botPoseRed;
+  }
+
+  /**
+   * Returns the raw blue origin botpose of the current frame. Do not modify it.
+   *
+   * @return The array, valid up to {@link #getBotPoseBlueLength()}
+   */
+  public double[] getBotPoseBlueArray() {
+    return m_frame.botPoseBlue;
+  }
+
+  public int getBotPoseBlueLength() {
+    return m_frame.botPoseBlueLength;
+  }
+
+  /**
+   * Returns whether the current frame's blue origin botpose saw a tag. The
+   * Limelight publishes an all zero pose when it sees none.
+   *
+   * @return Whether the botpose can be used
+   */
+  public boolean hasBotPoseBlue() {
+    double[] pose = m_frame.botPoseBlue;
+    return m_frame.botPoseBlueLength >= 6 && (pose[0] != 0 || pose[1] != 0);
+  }
+
+  /**
+   * Returns the average distance to the tags in the current botpose, from the
+   * same array. Older firmware does not publish it, so the distance to the
+   * primary tag is used instead, which may come from another image.
+   *
+   * @return Distance in meters
+   */
+  public double getBotPoseDistance() {
+    if (m_frame.botPoseBlueLength > kPoseDistanceIndex) {
+      return m_frame.botPoseBlue[kPoseDistanceIndex];
+    }
+    return getTargetDistance();
+  }
+
+  // Straight line distance from the camera to the primary tag, in meters
+  public double getTargetDistance() {
+    if (m_frame.targetPoseCameraSpaceLength < 3) {
+      return Double.MAX_VALUE;
+    }
+    double[] target = m_frame.targetPoseCameraSpace;
+    return Math.sqrt(target[0] * target[0] + target[1] * target[1] + target[2] * target[2]);
+  }
+
+  public void setPipeline(int pipelineNumber) {
+    m_pipelinePublisher.set(pipelineNumber);
+  }
+
+  // Limelight publishes the rotation in degrees
+  private static Pose3d toPose3d(double[] pose) {
+    return new Pose3d(new Translation3d(pose[0], pose[1], pose[2]),
+        new Rotation3d(Units.degreesToRadians(pose[3]), Units.degreesToRadians(pose[4]),
+            Units.degreesToRadians(pose[5])));
+  }
+}
@@ -5,32 +5,57 @@
 package frc.robot.subsystems.limelight;
 
 import frc.robot.Constants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.LimelightConstants;
 import frc.robot.Constants.TuningModeConstants;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.shuffleboard.SendableCameraWrapper;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import edu.wpi.first.cameraserver.CameraServer;
 import edu.wpi.first.cscore.HttpCamera;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform3d;
-import edu.wpi.first.math.geometry.Translation3d;
-import edu.wpi.first.networktables.NetworkTable;
-import edu.wpi.first.networktables.NetworkTableInstance;
+
+import frc.robot.DataLogger;
+import frc.robot.LoopProfiler;
+import frc.robot.Telemetry;
+import frc.robot.Telemetry.Priority;
+import frc.robot.subsystems.DriveSubsystem;
+import frc.utils.LoopHistogram;
 
 public class LimelightSubsystem extends SubsystemBase {
+  private final LoopHistogram m_periodicTiming = LoopProfiler.getInstance().channel("LimelightSubsystem.periodic()");
+
   /** Creates a new LimelightSubsystem. */
-  NetworkTable tableRear = NetworkTableInstance.getDefault().getTable("limelight-rear");
-  NetworkTable tableFront = NetworkTableInstance.getDefault().getTable("limelight-front");
+  private final LimelightCamera m_rear = new LimelightCamera("limelight-rear");
+  private final LimelightCamera m_front = new LimelightCamera("limelight-front");
 
   public static HttpCamera m_limelightRear;
   public static HttpCamera m_limelightFront;
 
   private boolean m_visionMode;
 
-  public LimelightSubsystem() {
+  private final DriveSubsystem m_robotDrive;
+
+  // Rear frame count as of the last botpose handed to the pose estimator
+  private long m_lastPoseFrame = 0;
+  private int m_visionAccepted = 0;
+  private int m_visionRejected = 0;
+
+  private final DataLogger m_logger = DataLogger.getInstance();
+  private final int m_visionPoseChannel = m_logger.addChannel("Vision/Pose", "x", "y", "degrees", "tags",
+      "distance");
+  // Reused for every accepted frame, so logging does not allocate
+  private final double[] m_visionPose = new double[5];
+
+  public LimelightSubsystem(DriveSubsystem robotDrive) {
+    m_robotDrive = robotDrive;
+
     m_limelightRear = new HttpCamera("RearLL", "http://limelight.rear:5809/stream.mjpg");
     m_limelightRear.setResolution(320, 240);
     m_limelightRear.setFPS(90);
@@ -41,108 +66,208 @@ public class LimelightSubsystem extends SubsystemBase {
     CameraServer.addCamera(m_limelightRear);
     CameraServer.addCamera(m_limelightFront);
 
+    // The dashboard keeps these and updates them itself, no need to re-wrap them
+    // every loop
+    SmartDashboard.putData(SendableCameraWrapper.wrap(m_limelightRear));
+    SmartDashboard.putData(SendableCameraWrapper.wrap(m_limelightFront));
+
+    if (TuningModeConstants.kLimelightTuning) {
+      Telemetry telemetry = Telemetry.getInstance();
+      telemetry.addDouble("X offset", Priority.NORMAL, this::getXFront);
+      telemetry.addDouble("Y offset", Priority.NORMAL, this::getYFront);
+      telemetry.addDouble("Target Area", Priority.NORMAL, this::getAreaFront);
+      telemetry.addBoolean("Has target", Priority.NORMAL, this::hasTargetFront);
+      telemetry.addDouble("Vision accepted", Priority.LOW, () -> m_visionAccepted);
+      telemetry.addDouble("Vision rejected", Priority.LOW, () -> m_visionRejected);
+    }
   }
 
   @Override
   public void periodic() {
+    long start = System.nanoTime();
+
     // This method will be called once per scheduler run
-    // read values periodically
-    SmartDashboard.putData(SendableCameraWrapper.wrap(m_limelightRear));
-    SmartDashboard.putData(SendableCameraWrapper.wrap(m_limelightFront));
-    if (TuningModeConstants.kLimelightTuning) {
-      SmartDashboard.putNumber("X offset", getXFront());
-      SmartDashboard.putNumber("Y offset", getYFront());
-      SmartDashboard.putNumber("Target Area", getAreaFront());
-      SmartDashboard.putBoolean("Has target", hasTargetFront());
+    // Dashboard values are published by Telemetry
+
+    m_rear.update();
+    m_front.update();
+
+    updatePoseEstimate();
+
+    m_periodicTiming.recordSince(start);
+  }
+
+  /**
+   * Hands a new rear Limelight botpose to the drive's pose estimator, stamped
+   * with its capture time. Each frame is used once, and only if it passes the
+   * distance, tag count and ambiguity checks.
+   */
+  private void updatePoseEstimate() {
+    if (!m_rear.isNewFrameSince(m_lastPoseFrame)) {
+      return;
     }
+    m_lastPoseFrame = m_rear.getFrameCount();
+    // Only use values from the botpose array, which all belong to this frame
+    if (!m_rear.hasBotPoseBlue()) {
+      return;
+    }
+
+    double[] botPose = m_rear.getBotPoseBlueArray();
+    Pose2d visionPose = new Pose2d(botPose[0], botPose[1], Rotation2d.fromDegrees(botPose[5]));
+    int tagCount = m_rear.getBotPoseBlueLength() > 7 ? (int) botPose[7] : 1;
+    double distance = m_rear.getBotPoseDistance();
+
+    if (!isVisionPoseUsable(visionPose, tagCount, distance)) {
+      m_visionRejected++;
+      return;
+    }
+
+    // Trust falls off with the square of the distance and grows with more
+    // tags. A single tag's heading is not trusted at all.
+    double scale = Math.max(1.0, distance * distance) / tagCount;
+    double xyStdDev = DriveConstants.kVisionStdDevXY * scale;
+    double headingStdDev = tagCount > 1 ? DriveConstants.kVisionStdDevRadians * scale : 1e6;
+
+    m_robotDrive.addVisionMeasurement(visionPose, m_rear.getCaptureTimestamp(),
+        VecBuilder.fill(xyStdDev, xyStdDev, headingStdDev));
+    m_visionAccepted++;
+    m_visionPose[0] = visionPose.getX();
+    m_visionPose[1] = visionPose.getY();
+    m_visionPose[2] = visionPose.getRotation().getDegrees();
+    m_visionPose[3] = tagCount;
+    m_visionPose[4] = distance;
+    m_logger.log(m_visionPoseChannel, m_visionPose);
+  }
+
+  private boolean isVisionPoseUsable(Pose2d visionPose, int tagCount, double distance) {
+    if (tagCount < 1 || distance > LimelightConstants.kMaxVisionDistanceMeters) {
+      return false;
+    }
+    if (visionPose.getX() < 0 || visionPose.getX() > LimelightConstants.kFieldLengthMeters
+        || visionPose.getY() < 0 || visionPose.getY() > LimelightConstants.kFieldWidthMeters) {
+      return false;
+    }
+    if (tagCount == 1) {
+      // A single tag can resolve to a flipped pose; that shows up as a heading
+      // that disagrees with the gyro, or as a jump across the field
+      Pose2d current = m_robotDrive.getPose();
+      double yawError = Math.abs(visionPose.getRotation().minus(current.getRotation()).getDegrees());
+      double jump = visionPose.getTranslation().getDistance(current.getTranslation());
+      return yawError < LimelightConstants.kMaxSingleTagYawErrorDegrees
+          && jump < LimelightConstants.kMaxSingleTagJumpMeters;
+    }
+    return true;
+  }
 
+  // Straight line distance from the rear camera to the primary tag, in meters
+  public double getTargetDistanceRear() {
+    return m_rear.getTargetDistance();
   }
 
   public double getXRear() {
-    return tableRear.getEntry("tx").getDouble(0.0);
+    return m_rear.getX();
   }
 
   public double getYRear() {
-    return tableRear.getEntry("ty").getDouble(0.0);
+    return m_rear.getY();
   }
 
   public double getAreaRear() {
-    return tableRear.getEntry("ta").getDouble(0.0);
+    return m_rear.getArea();
   }
 
   public boolean hasTargetRear() {
-    return tableRear.getEntry("tv").getDouble(0.0) == 1;
+    return m_rear.hasTarget();
   }
 
   public int getIDRear() {
-    return (int) tableRear.getEntry("tid").getDouble(0.0);
+    return m_rear.getID();
   }
 
   public double getLatPipRear() {
-    return tableRear.getEntry("tl").getDouble(0.0) / 1000.0;
+    return m_rear.getLatPip();
   }
 
   public double getLatCapRear() {
-    return tableRear.getEntry("cl").getDouble(0.0) / 1000.0;
+    return m_rear.getLatCap();
   }
 
   public Pose3d getBotPose() {
-    double[] pose = tableRear.getEntry("botpose").getDoubleArray(new double[6]);
-    return new Pose3d(new Translation3d(pose[0], pose[1], pose[2]), new Rotation3d(pose[3], pose[4], pose[5]));
+    return m_rear.getBotPose();
   }
 
   public Pose3d getBotPoseRed() {
-    double[] pose = tableRear.getEntry("botpose_wpiblue").getDoubleArray(new double[6]);
-    return new Pose3d(new Translation3d(pose[0], pose[1], pose[2]), new Rotation3d(pose[3], pose[4], pose[5]));
+    return m_rear.getBotPoseRed();
   }
 
   public Pose3d getBotPoseBlue() {
-    double[] pose = tableRear.getEntry("botpose_wpired").getDoubleArray(new double[6]);
-    return new Pose3d(new Translation3d(pose[0], pose[1], pose[2]), new Rotation3d(pose[3], pose[4], pose[5]));
+    return m_rear.getBotPoseBlue();
   }
 
   public Transform3d getTransform() {
     return new Transform3d(new Pose3d(0.0, 0.0, 0.0, new Rotation3d(0.0, 0.0, 0.0)), getBotPose());
   }
 
+  // Capture time of the latest rear frame, stamped when it was published
+  // rather than when it is read
   public double getLastEntryTimeStamp() {
-    return Timer.getFPGATimestamp() - getLatCapRear() - getLatPipRear();
+    return m_rear.getCaptureTimestamp();
+  }
+
+  /**
+   * Returns the rear camera's frame count, for checking later whether a new
+   * frame has arrived.
+   *
+   * @return The number of rear frames received
+   */
+  public long getFrameCountRear() {
+    return m_rear.getFrameCount();
+  }
+
+  public boolean isNewFrameRearSince(long frameCount) {
+    return m_rear.isNewFrameSince(frameCount);
   }
 
   /**
    * @param piplineNumber driver = 0, aprilTags = 1, retroreflective = 2
    */
   public void setPipelineRear(int pipelineNumber) {
-    Number numObj = (Number) pipelineNumber;
-    tableRear.getEntry("pipeline").setNumber(numObj);
+    m_rear.setPipeline(pipelineNumber);
   }
 
   public double getXFront() {
-    return tableFront.getEntry("tx").getDouble(0.0);
+    return m_front.getX();
   }
 
   public double getYFront() {
-    return tableFront.getEntry("ty").getDouble(0.0);
+    return m_front.getY();
   }
 
   public double getAreaFront() {
-    return tableFront.getEntry("ta").getDouble(0.0);
+    return m_front.getArea();
   }
 
   public boolean hasTargetFront() {
-    return tableFront.getEntry("tv").getDouble(0.0) == 1;
+    return m_front.hasTarget();
   }
 
   public int getIDFront() {
-    return (int) tableFront.getEntry("tid").getDouble(0.0);
+    return m_front.getID();
+  }
+
+  public long getFrameCountFront() {
+    return m_front.getFrameCount();
+  }
+
+  public boolean isNewFrameFrontSince(long frameCount) {
+    return m_front.isNewFrameSince(frameCount);
   }
 
   /**
    * @param piplineNumber 0 = april tags
    */
   public void setPipelineFront(int pipelineNumber) {
-    Number numObj = (Number) pipelineNumber;
-    tableFront.getEntry("pipeline").setNumber(numObj);
+    m_front.setPipeline(pipelineNumber);
   }
 
   public boolean inVisionMode() {
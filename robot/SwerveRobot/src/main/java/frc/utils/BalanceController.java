@@ -0,0 +1,120 @@
+package frc.utils;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Drives a robot level on the charge station. The station's tilt along the
+ * driving direction comes from the gyro's pitch and roll, rotated by the
+ * robot's heading. The gyro's angle is noisy and lags when the station tips,
+ * while its rate is clean but drifts, so the two are blended with a
+ * complementary filter.
+ *
+ * The output is proportional to the tilt and damped by the tilt rate. When the
+ * station starts tipping back toward level the rate term cancels the tilt
+ * term, so the robot slows down before it overshoots. The station counts as
+ * settled once it has stayed level and still for a set time.
+ */
+public class BalanceController {
+    private final double m_kP;
+    private final double m_kD;
+    private final double m_maxSpeed;
+    private final double m_toleranceDegrees;
+    private final double m_rateToleranceDegreesPerSecond;
+    private final double m_settleSeconds;
+    private final double m_fusionTimeConstant;
+    private final double m_periodSeconds;
+
+    private boolean m_initialized = false;
+    private double m_angleDegrees = 0;
+    private double m_rateDegreesPerSecond = 0;
+    private double m_levelSeconds = 0;
+
+    /**
+     * @param kP                            Speed per degree of tilt (m/s per
+     *                                      degree)
+     * @param kD                            Speed per degree per second of tilt
+     *                                      rate
+     * @param maxSpeed                      Largest speed to command (m/s)
+     * @param toleranceDegrees              Tilt that counts as level
+     * @param rateToleranceDegreesPerSecond Tilt rate that counts as still
+     * @param settleSeconds                 How long to stay level and still
+     * @param fusionTimeConstant            How long the rate is trusted over
+     *                                      the angle, in seconds
+     * @param periodSeconds                 Time between calls to
+     *                                      {@link #calculate}
+     */
+    public BalanceController(double kP, double kD, double maxSpeed, double toleranceDegrees,
+            double rateToleranceDegreesPerSecond, double settleSeconds, double fusionTimeConstant,
+            double periodSeconds) {
+        m_kP = kP;
+        m_kD = kD;
+        m_maxSpeed = maxSpeed;
+        m_toleranceDegrees = toleranceDegrees;
+        m_rateToleranceDegreesPerSecond = rateToleranceDegreesPerSecond;
+        m_settleSeconds = settleSeconds;
+        m_fusionTimeConstant = fusionTimeConstant;
+        m_periodSeconds = periodSeconds;
+    }
+
+    /** Forgets the filtered tilt and the settle timer, before a new attempt. */
+    public void reset() {
+        m_initialized = false;
+        m_levelSeconds = 0;
+    }
+
+    /**
+     * Updates the tilt estimate and returns the speed to drive.
+     *
+     * @param headingRadians      Robot heading, field relative
+     * @param pitchDegrees        Gyro pitch
+     * @param rollDegrees         Gyro roll
+     * @param pitchRateDegPerSec  Gyro pitch rate
+     * @param rollRateDegPerSec   Gyro roll rate
+     * @return Field relative x speed in m/s, 0 once level
+     */
+    public double calculate(double headingRadians, double pitchDegrees, double rollDegrees,
+            double pitchRateDegPerSec, double rollRateDegPerSec) {
+        double cos = Math.cos(headingRadians);
+        double sin = Math.sin(headingRadians);
+        double measuredAngle = cos * pitchDegrees + sin * rollDegrees;
+        m_rateDegreesPerSecond = cos * pitchRateDegPerSec + sin * rollRateDegPerSec;
+
+        if (!m_initialized) {
+            m_angleDegrees = measuredAngle;
+            m_initialized = true;
+        } else {
+            // Integrate the rate, and pull slowly toward the measured angle
+            double alpha = m_fusionTimeConstant / (m_fusionTimeConstant + m_periodSeconds);
+            m_angleDegrees = alpha * (m_angleDegrees + m_rateDegreesPerSecond * m_periodSeconds)
+                    + (1 - alpha) * measuredAngle;
+        }
+
+        boolean level = Math.abs(m_angleDegrees) < m_toleranceDegrees;
+        boolean still = Math.abs(m_rateDegreesPerSecond) < m_rateToleranceDegreesPerSecond;
+        m_levelSeconds = level && still ? m_levelSeconds + m_periodSeconds : 0;
+
+        if (level) {
+            return 0;
+        }
+        // A positive tilt drives toward -x, the same as the old balance commands
+        double speed = -(m_kP * m_angleDegrees + m_kD * m_rateDegreesPerSecond);
+        // Once the station tips back fast enough for the damping to win, stop
+        // instead of reversing
+        if (Math.signum(speed) == Math.signum(m_angleDegrees)) {
+            return 0;
+        }
+        return MathUtil.clamp(speed, -m_maxSpeed, m_maxSpeed);
+    }
+
+    public boolean isSettled() {
+        return m_levelSeconds >= m_settleSeconds;
+    }
+
+    public double getAngleDegrees() {
+        return m_angleDegrees;
+    }
+
+    public double getRateDegreesPerSecond() {
+        return m_rateDegreesPerSecond;
+    }
+}
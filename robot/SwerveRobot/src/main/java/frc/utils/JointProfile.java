@@ -0,0 +1,165 @@
+package frc.utils;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.State;
+
+/**
+ * Trapezoidal motion profile for one arm joint, stepped once per loop. The
+ * joint follows the profile's setpoint instead of jumping straight to the
+ * goal, so it does not overshoot.
+ *
+ * A move can be stretched to take a given duration, which is how two joints
+ * are made to arrive at the same time. Scaling max velocity by k and max
+ * acceleration by k squared scales the profile's duration by exactly 1 / k.
+ */
+public class JointProfile {
+    private final Constraints m_maxConstraints;
+    private final double m_periodSeconds;
+
+    private Constraints m_constraints;
+    private State m_goal = new State();
+    private double m_durationSeconds = 0;
+    private State m_setpoint = new State();
+    // Built once per move and sampled at the time since the move started
+    private TrapezoidProfile m_profile;
+    private double m_elapsedSeconds = 0;
+    // Following the profile, moving or holding the goal
+    private boolean m_active = false;
+    // The profile has not reached the goal yet
+    private boolean m_moving = false;
+
+    /**
+     * @param maxConstraints Fastest allowed velocity and acceleration (encoder
+     *                       units per second, per second squared)
+     * @param periodSeconds  Time between calls to {@link #step()}
+     */
+    public JointProfile(Constraints maxConstraints, double periodSeconds) {
+        m_maxConstraints = maxConstraints;
+        m_constraints = maxConstraints;
+        m_periodSeconds = periodSeconds;
+    }
+
+    /**
+     * Returns how long a move to the goal takes at full speed.
+     *
+     * @param goal     The goal position
+     * @param position The measured position, used if no move is in progress
+     * @return The profile duration in seconds
+     */
+    public double timeTo(double goal, double position) {
+        if (m_moving) {
+            return totalTime(m_maxConstraints, m_setpoint.position, m_setpoint.velocity, goal);
+        }
+        return totalTime(m_maxConstraints, position, 0, goal);
+    }
+
+    /**
+     * Starts a full speed move to the goal.
+     *
+     * @param goal     The goal position
+     * @param position The measured position, used if no move is in progress
+     * @return Whether a new move was started
+     */
+    public boolean setGoal(double goal, double position) {
+        return setGoal(goal, position, 0);
+    }
+
+    /**
+     * Starts a move to the goal that takes at least the given duration.
+     *
+     * @param goal            The goal position
+     * @param position        The measured position, used if no move is in
+     *                        progress
+     * @param durationSeconds How long the move should take. Shorter than the
+     *                        full speed time means full speed.
+     * @return Whether a new move was started. Setting the goal being followed
+     *         again does nothing, so it can be called every loop.
+     */
+    public boolean setGoal(double goal, double position, double durationSeconds) {
+        if (m_active && goal == m_goal.position && durationSeconds == m_durationSeconds) {
+            return false;
+        }
+
+        double fullSpeedTime = timeTo(goal, position);
+        m_setpoint = start(position);
+        m_goal = new State(goal, 0);
+        m_durationSeconds = durationSeconds;
+        m_constraints = m_maxConstraints;
+
+        if (durationSeconds > fullSpeedTime && fullSpeedTime > 0) {
+            double k = fullSpeedTime / durationSeconds;
+            m_constraints = new Constraints(m_maxConstraints.maxVelocity * k,
+                    m_maxConstraints.maxAcceleration * k * k);
+        }
+        m_profile = new TrapezoidProfile(m_constraints, m_goal, m_setpoint);
+        m_elapsedSeconds = 0;
+        m_active = true;
+        m_moving = true;
+        return true;
+    }
+
+    /**
+     * Advances the profile by one period. Once the goal is reached the
+     * setpoint stays at the goal.
+     *
+     * @return The setpoint for this loop
+     */
+    public State step() {
+        if (!m_moving) {
+            return m_setpoint;
+        }
+        m_elapsedSeconds += m_periodSeconds;
+        if (m_profile.isFinished(m_elapsedSeconds)) {
+            m_setpoint = m_goal;
+            m_moving = false;
+        } else {
+            m_setpoint = m_profile.calculate(m_elapsedSeconds);
+        }
+        return m_setpoint;
+    }
+
+    /**
+     * Stops following the profile, e.g. when the joint is driven by hand or
+     * its encoder is reset. The next move starts from the measured position.
+     */
+    public void stop() {
+        m_active = false;
+        m_moving = false;
+    }
+
+    public boolean isActive() {
+        return m_active;
+    }
+
+    public double getGoal() {
+        return m_goal.position;
+    }
+
+    // A move in progress continues from its setpoint so velocity stays smooth
+    private State start(double position) {
+        return m_moving ? m_setpoint : new State(position, 0);
+    }
+
+    // Duration of a profile ending at rest, same math as the TrapezoidProfile
+    // constructor, without building one
+    private static double totalTime(Constraints constraints, double position, double velocity, double goal) {
+        // Work in the direction of travel, like the profile does
+        double direction = position > goal ? -1 : 1;
+        double distance = (goal - position) * direction;
+        double startVelocity = Math.min(velocity * direction, constraints.maxVelocity);
+
+        double cutoffBegin = startVelocity / constraints.maxAcceleration;
+        double cutoffDistBegin = cutoffBegin * cutoffBegin * constraints.maxAcceleration / 2.0;
+        double fullTrapezoidDist = cutoffDistBegin + distance;
+
+        double accelerationTime = constraints.maxVelocity / constraints.maxAcceleration;
+        double fullSpeedDist = fullTrapezoidDist - accelerationTime * accelerationTime * constraints.maxAcceleration;
+        if (fullSpeedDist < 0) {
+            accelerationTime = Math.sqrt(fullTrapezoidDist / constraints.maxAcceleration);
+            fullSpeedDist = 0;
+        }
+
+        return accelerationTime - cutoffBegin + fullSpeedDist / constraints.maxVelocity + accelerationTime;
+    }
+}
@@ -0,0 +1,95 @@
+package frc.utils;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of durations in milliseconds. Recording never
+ * allocates, so it is safe to call every loop.
+ */
+public class LoopHistogram {
+    // 0.05 ms buckets up to 25 ms, anything longer lands in the last bucket
+    private static final double kBucketWidthMs = 0.05;
+    private static final int kBucketCount = 500;
+
+    private final String m_name;
+    private final int[] m_buckets = new int[kBucketCount + 1];
+    private long m_count = 0;
+    private double m_maxMs = 0.0;
+    private double m_lastMs = 0.0;
+
+    public LoopHistogram(String name) {
+        m_name = name;
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    /**
+     * Adds a sample.
+     * 
+     * @param durationMs The duration in milliseconds.
+     */
+    public void record(double durationMs) {
+        int bucket = (int) (durationMs / kBucketWidthMs);
+        m_buckets[Math.max(0, Math.min(bucket, kBucketCount))]++;
+        m_count++;
+        m_lastMs = durationMs;
+        if (durationMs > m_maxMs) {
+            m_maxMs = durationMs;
+        }
+    }
+
+    /**
+     * Adds a sample measured from a {@link System#nanoTime()} start time up to
+     * now.
+     * 
+     * @param startNanos The value of {@link System#nanoTime()} when the timed
+     *                   section started.
+     */
+    public void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) * 1e-6);
+    }
+
+    /**
+     * Returns the given percentile, to the resolution of a bucket.
+     * 
+     * @param percentile The percentile, 0 to 1.
+     * @return The upper edge of the bucket holding the percentile, in
+     *         milliseconds, or 0 if there are no samples.
+     */
+    public double getPercentile(double percentile) {
+        if (m_count == 0) {
+            return 0.0;
+        }
+        long target = (long) Math.ceil(percentile * m_count);
+        long seen = 0;
+        for (int i = 0; i < m_buckets.length; i++) {
+            seen += m_buckets[i];
+            if (seen >= target) {
+                // The overflow bucket has no upper edge, the max is the best answer
+                return i == kBucketCount ? m_maxMs : Math.min((i + 1) * kBucketWidthMs, m_maxMs);
+            }
+        }
+        return m_maxMs;
+    }
+
+    public long getCount() {
+        return m_count;
+    }
+
+    public double getMax() {
+        return m_maxMs;
+    }
+
+    public double getLast() {
+        return m_lastMs;
+    }
+
+    public void reset() {
+        Arrays.fill(m_buckets, 0);
+        m_count = 0;
+        m_maxMs = 0.0;
+        m_lastMs = 0.0;
+    }
+}
@@ -0,0 +1,194 @@
+package frc.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import com.revrobotics.AbsoluteEncoder;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.MotorFeedbackSensor;
+import com.revrobotics.REVLibError;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+
+/**
+ * The settings one SPARK MAX should have. {@link #apply(int)} reads each
+ * setting back and writes only those that differ, so applying the same config
+ * twice changes nothing. Settings REVLib cannot read back, like the current
+ * limit, are always written and are tracked by {@link #getFingerprint()}
+ * instead.
+ */
+public class SparkMaxConfig {
+    /** One setting, with how to read it back if that is possible. */
+    private static final class Parameter {
+        final String name;
+        final String value;
+        // Null if the setting cannot be read back
+        final BooleanSupplier matches;
+        final Supplier<REVLibError> write;
+
+        Parameter(String name, String value, BooleanSupplier matches, Supplier<REVLibError> write) {
+            this.name = name;
+            this.value = value;
+            this.matches = matches;
+            this.write = write;
+        }
+    }
+
+    /** What {@link #apply(int)} did. */
+    public static final class Result {
+        public final int written;
+        public final List<String> failed;
+
+        Result(int written, List<String> failed) {
+            this.written = written;
+            this.failed = failed;
+        }
+    }
+
+    private final CANSparkMax m_motor;
+    private final String m_name;
+    private final List<Parameter> m_parameters = new ArrayList<>();
+
+    /**
+     * @param motor The controller to configure
+     * @param name  Name used in reports, e.g. "Front left driving"
+     */
+    public SparkMaxConfig(CANSparkMax motor, String name) {
+        m_motor = motor;
+        m_name = name;
+    }
+
+    public CANSparkMax getMotor() {
+        return m_motor;
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    /**
+     * Adds a numeric setting that can be read back. The controller stores
+     * parameters as floats, so the values are compared at float precision.
+     * Otherwise a value like 0.05 reads back different and is rewritten, and
+     * flash burned, on every boot.
+     */
+    public SparkMaxConfig set(String name, double value, DoubleSupplier read, Supplier<REVLibError> write) {
+        m_parameters.add(new Parameter(name, Double.toString(value),
+                () -> (float) read.getAsDouble() == (float) value, write));
+        return this;
+    }
+
+    /** Adds a boolean setting that can be read back. */
+    public SparkMaxConfig set(String name, boolean value, BooleanSupplier read, Supplier<REVLibError> write) {
+        m_parameters.add(new Parameter(name, Boolean.toString(value), () -> read.getAsBoolean() == value, write));
+        return this;
+    }
+
+    /** Adds a setting that cannot be read back, so it is always written. */
+    public SparkMaxConfig setAlways(String name, Object value, Supplier<REVLibError> write) {
+        m_parameters.add(new Parameter(name, String.valueOf(value), null, write));
+        return this;
+    }
+
+    public SparkMaxConfig idleMode(IdleMode mode) {
+        return set("idleMode", mode.value, () -> m_motor.getIdleMode().value, () -> m_motor.setIdleMode(mode));
+    }
+
+    public SparkMaxConfig smartCurrentLimit(int amps) {
+        return setAlways("smartCurrentLimit", amps, () -> m_motor.setSmartCurrentLimit(amps));
+    }
+
+    public SparkMaxConfig openLoopRampRate(double seconds) {
+        return set("openLoopRampRate", seconds, m_motor::getOpenLoopRampRate,
+                () -> m_motor.setOpenLoopRampRate(seconds));
+    }
+
+    public SparkMaxConfig feedbackDevice(SparkMaxPIDController pid, MotorFeedbackSensor sensor) {
+        return setAlways("feedbackDevice", sensor.getClass().getSimpleName(), () -> pid.setFeedbackDevice(sensor));
+    }
+
+    public SparkMaxConfig encoderConversion(RelativeEncoder encoder, double positionFactor, double velocityFactor) {
+        return set("positionConversionFactor", positionFactor, encoder::getPositionConversionFactor,
+                () -> encoder.setPositionConversionFactor(positionFactor))
+                .set("velocityConversionFactor", velocityFactor, encoder::getVelocityConversionFactor,
+                        () -> encoder.setVelocityConversionFactor(velocityFactor));
+    }
+
+    public SparkMaxConfig absoluteEncoder(AbsoluteEncoder encoder, double positionFactor, double velocityFactor,
+            boolean inverted) {
+        return set("absolutePositionConversionFactor", positionFactor, encoder::getPositionConversionFactor,
+                () -> encoder.setPositionConversionFactor(positionFactor))
+                .set("absoluteVelocityConversionFactor", velocityFactor, encoder::getVelocityConversionFactor,
+                        () -> encoder.setVelocityConversionFactor(velocityFactor))
+                .set("absoluteInverted", inverted, encoder::getInverted, () -> encoder.setInverted(inverted));
+    }
+
+    /** Sets the gains and output range of one PID slot. */
+    public SparkMaxConfig pid(SparkMaxPIDController pid, int slot, double p, double i, double d, double ff,
+            double minOutput, double maxOutput) {
+        String prefix = "slot" + slot + ".";
+        return set(prefix + "p", p, () -> pid.getP(slot), () -> pid.setP(p, slot))
+                .set(prefix + "i", i, () -> pid.getI(slot), () -> pid.setI(i, slot))
+                .set(prefix + "d", d, () -> pid.getD(slot), () -> pid.setD(d, slot))
+                .set(prefix + "ff", ff, () -> pid.getFF(slot), () -> pid.setFF(ff, slot))
+                .set(prefix + "outputMin", minOutput, () -> pid.getOutputMin(slot),
+                        () -> pid.setOutputRange(minOutput, maxOutput, slot))
+                .set(prefix + "outputMax", maxOutput, () -> pid.getOutputMax(slot),
+                        () -> pid.setOutputRange(minOutput, maxOutput, slot));
+    }
+
+    public SparkMaxConfig positionWrapping(SparkMaxPIDController pid, double minInput, double maxInput) {
+        return set("positionWrapping", true, pid::getPositionPIDWrappingEnabled,
+                () -> pid.setPositionPIDWrappingEnabled(true))
+                .set("positionWrappingMin", minInput, pid::getPositionPIDWrappingMinInput,
+                        () -> pid.setPositionPIDWrappingMinInput(minInput))
+                .set("positionWrappingMax", maxInput, pid::getPositionPIDWrappingMaxInput,
+                        () -> pid.setPositionPIDWrappingMaxInput(maxInput));
+    }
+
+    /**
+     * Returns a description of every setting, which changes whenever any
+     * desired value changes.
+     *
+     * @return The fingerprint
+     */
+    public String getFingerprint() {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Parameter parameter : m_parameters) {
+            fingerprint.append(parameter.name).append('=').append(parameter.value).append('\n');
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Writes the settings that differ from what the controller has, retrying
+     * each failed write.
+     *
+     * @param maxAttempts Tries per setting
+     * @return How many readable settings were changed, and which failed
+     */
+    public Result apply(int maxAttempts) {
+        int written = 0;
+        List<String> failed = new ArrayList<>();
+        for (Parameter parameter : m_parameters) {
+            boolean readable = parameter.matches != null;
+            if (readable && parameter.matches.getAsBoolean()) {
+                continue;
+            }
+            boolean ok = false;
+            for (int attempt = 0; attempt < maxAttempts && !ok; attempt++) {
+                ok = parameter.write.get() == REVLibError.kOk;
+            }
+            if (!ok) {
+                failed.add(parameter.name);
+            } else if (readable) {
+                written++;
+            }
+        }
+        return new Result(written, failed);
+    }
+}
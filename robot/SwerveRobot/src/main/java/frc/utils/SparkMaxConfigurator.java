@@ -0,0 +1,168 @@
+package frc.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Configures SPARK MAXes in parallel at boot. Each controller gets its own
+ * thread, since most of the time goes to waiting for CAN replies. Only
+ * settings that differ are written, and flash is only burned when something
+ * changed, so a normal reboot neither waits for nor wears the flash.
+ *
+ * Settings that cannot be read back are covered by a fingerprint of the whole
+ * config, saved per CAN id after each burn. When the fingerprint differs from
+ * the saved one, e.g. on first boot or after a config change, the controller
+ * is factory reset before the config is applied and flash is burned. That
+ * also clears settings outside the config, like inversion, soft limits,
+ * limit switch enables and follower mode. A controller swapped in with an
+ * already saved fingerprint is not reset, so only the settings in its config
+ * are corrected.
+ */
+public final class SparkMaxConfigurator {
+    private static SparkMaxConfigurator instance;
+
+    private static final int kMaxAttempts = 3;
+
+    private final Path m_fingerprintDirectory = Filesystem.getOperatingDirectory().toPath().resolve("sparkmax");
+    private final ExecutorService m_executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "SparkMaxConfigurator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<CompletableFuture<String>> m_pending = new ArrayList<>();
+    // Latest configuration of each controller, by CAN id
+    private final Map<Integer, CompletableFuture<String>> m_byDevice = new ConcurrentHashMap<>();
+    private final long m_start = System.nanoTime();
+
+    private SparkMaxConfigurator() {
+    }
+
+    public static SparkMaxConfigurator getInstance() {
+        if (instance == null) {
+            instance = new SparkMaxConfigurator();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts configuring a controller in the background.
+     *
+     * @param config The controller's settings
+     */
+    public void submit(SparkMaxConfig config) {
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> configure(config), m_executor);
+        m_pending.add(future);
+        m_byDevice.put(config.getMotor().getDeviceId(), future);
+    }
+
+    /**
+     * Returns a future that completes once a controller has been configured
+     * and its flash burned, so other writes to it are not lost while it is
+     * busy. Completes right away if the controller was never submitted.
+     *
+     * @param motor The controller
+     * @return The future, which never completes exceptionally
+     */
+    public CompletableFuture<Void> whenConfigured(CANSparkMax motor) {
+        CompletableFuture<String> future = m_byDevice.get(motor.getDeviceId());
+        if (future == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return future.handle((result, error) -> null);
+    }
+
+    /**
+     * Waits for every submitted controller, then reports what was done.
+     *
+     * @param timeoutSeconds Longest to wait in total
+     */
+    public void awaitAll(double timeoutSeconds) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(m_pending.toArray(new CompletableFuture[0]));
+        try {
+            all.get((long) (timeoutSeconds * 1000), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            DriverStation.reportError("SPARK MAX configuration still running after " + timeoutSeconds + " s", false);
+        } catch (Exception e) {
+            DriverStation.reportError("SPARK MAX configuration failed: " + e.getMessage(), false);
+        }
+
+        StringBuilder report = new StringBuilder();
+        for (CompletableFuture<String> result : m_pending) {
+            if (result.isDone() && !result.isCompletedExceptionally()) {
+                report.append(result.join()).append('\n');
+            }
+        }
+        report.append(String.format("Configured %d SPARK MAXes in %.0f ms", m_pending.size(),
+                (System.nanoTime() - m_start) * 1e-6));
+        // Sent to the driver station log, so it is kept with the match
+        DriverStation.reportWarning(report.toString(), false);
+        m_pending.clear();
+    }
+
+    // Runs on a configurator thread
+    private String configure(SparkMaxConfig config) {
+        String fingerprint = config.getFingerprint();
+        Path file = m_fingerprintDirectory.resolve(config.getMotor().getDeviceId() + ".txt");
+        boolean fingerprintChanged = !fingerprint.equals(readFingerprint(file));
+
+        boolean reset = false;
+        if (fingerprintChanged) {
+            for (int attempt = 0; attempt < kMaxAttempts && !reset; attempt++) {
+                reset = config.getMotor().restoreFactoryDefaults() == REVLibError.kOk;
+            }
+            if (!reset) {
+                DriverStation.reportError(config.getName() + " SPARK MAX failed to restore factory defaults", false);
+            }
+        }
+
+        SparkMaxConfig.Result result = config.apply(kMaxAttempts);
+
+        boolean burned = false;
+        // Without a reset the fingerprint is not saved, so the next boot tries again
+        if (result.failed.isEmpty() && (result.written > 0 || (fingerprintChanged && reset))) {
+            burned = config.getMotor().burnFlash() == REVLibError.kOk;
+            if (burned) {
+                writeFingerprint(file, fingerprint);
+            }
+        }
+        if (!result.failed.isEmpty()) {
+            DriverStation.reportError(config.getName() + " SPARK MAX failed to set " + result.failed, false);
+        }
+        return String.format("%s: %s%d changed, %s", config.getName(), reset ? "factory reset, " : "",
+                result.written, burned ? "flash burned" : "flash unchanged");
+    }
+
+    private static String readFingerprint(Path file) {
+        try {
+            return Files.exists(file) ? new String(Files.readAllBytes(file), StandardCharsets.UTF_8) : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static void writeFingerprint(Path file, String fingerprint) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, fingerprint.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            DriverStation.reportWarning("Unable to save " + file, false);
+        }
+    }
+}
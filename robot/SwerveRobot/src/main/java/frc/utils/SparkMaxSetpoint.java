@@ -0,0 +1,153 @@
+package frc.utils;
+
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.REVLibError;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
+
+import edu.wpi.first.util.WPIUtilJNI;
+
+/**
+ * Sends setpoints to a SPARK MAX, skipping the CAN write when it would repeat
+ * the last one sent. A setpoint repeats when its value and arbitrary
+ * feedforward are within epsilon of the last ones and its control type, slot
+ * and feedforward units are the same. A repeat is still sent once the keep
+ * alive period has passed, so a lost frame or a controller reset is recovered.
+ *
+ * Setpoints are buffered and only sent by {@link #flush()}, so all of a loop's
+ * outputs go out together at the end of the loop. Only the last setpoint set
+ * in a loop is sent.
+ *
+ * Every output to the controller must go through this class, duty cycle
+ * included, or it will skip a setpoint the controller no longer has.
+ */
+public class SparkMaxSetpoint {
+    // Totals across all controllers, for telemetry. Only touched from the main
+    // robot thread.
+    private static long totalSent = 0;
+    private static long totalSuppressed = 0;
+
+    private final SparkMaxPIDController m_pid;
+    private final double m_epsilon;
+    private final long m_keepAliveMicros;
+
+    private boolean m_valid = false;
+    private double m_value;
+    private ControlType m_type;
+    private int m_slot;
+    private double m_arbFF;
+    private ArbFFUnits m_arbFFUnits;
+    private long m_sentMicros;
+    private long m_sent = 0;
+    private long m_suppressed = 0;
+
+    // Set this loop, waiting for flush()
+    private boolean m_pending = false;
+    private double m_pendingValue;
+    private ControlType m_pendingType;
+    private int m_pendingSlot;
+    private double m_pendingArbFF;
+    private ArbFFUnits m_pendingArbFFUnits;
+
+    /**
+     * @param pid              The controller's PID controller
+     * @param epsilon          Largest change that counts as the same setpoint,
+     *                         in the setpoint's units
+     * @param keepAliveSeconds Longest time between sends of the same setpoint
+     */
+    public SparkMaxSetpoint(SparkMaxPIDController pid, double epsilon, double keepAliveSeconds) {
+        m_pid = pid;
+        m_epsilon = epsilon;
+        m_keepAliveMicros = (long) (keepAliveSeconds * 1e6);
+    }
+
+    /** Same as CANSparkMax.set(). */
+    public void setDutyCycle(double output) {
+        setReference(output, ControlType.kDutyCycle, 0, 0, ArbFFUnits.kVoltage);
+    }
+
+    public void setReference(double value, ControlType type) {
+        setReference(value, type, 0, 0, ArbFFUnits.kVoltage);
+    }
+
+    /**
+     * Sets the setpoint to send at the end of this loop.
+     *
+     * @param value      Setpoint in the control type's units
+     * @param type       Control type
+     * @param slot       PID slot
+     * @param arbFF      Arbitrary feedforward
+     * @param arbFFUnits Units of the feedforward
+     */
+    public void setReference(double value, ControlType type, int slot, double arbFF, ArbFFUnits arbFFUnits) {
+        m_pending = true;
+        m_pendingValue = value;
+        m_pendingType = type;
+        m_pendingSlot = slot;
+        m_pendingArbFF = arbFF;
+        m_pendingArbFFUnits = arbFFUnits;
+    }
+
+    /**
+     * Sends this loop's setpoint unless it repeats the last one sent.
+     *
+     * @return Whether a CAN frame was sent
+     */
+    public boolean flush() {
+        if (!m_pending) {
+            return false;
+        }
+        m_pending = false;
+
+        long now = WPIUtilJNI.now();
+        if (m_valid
+                && m_pendingType == m_type
+                && m_pendingSlot == m_slot
+                && m_pendingArbFFUnits == m_arbFFUnits
+                && Math.abs(m_pendingValue - m_value) <= m_epsilon
+                && Math.abs(m_pendingArbFF - m_arbFF) <= m_epsilon
+                && now - m_sentMicros < m_keepAliveMicros) {
+            totalSuppressed++;
+            m_suppressed++;
+            return false;
+        }
+
+        REVLibError error = m_pid.setReference(m_pendingValue, m_pendingType, m_pendingSlot, m_pendingArbFF,
+                m_pendingArbFFUnits);
+        // Only remember setpoints the controller accepted, so a failed one is
+        // retried next loop
+        m_valid = error == REVLibError.kOk;
+        m_value = m_pendingValue;
+        m_type = m_pendingType;
+        m_slot = m_pendingSlot;
+        m_arbFF = m_pendingArbFF;
+        m_arbFFUnits = m_pendingArbFFUnits;
+        m_sentMicros = now;
+        totalSent++;
+        m_sent++;
+        return true;
+    }
+
+    /** Forces the next setpoint to be sent, e.g. after the controller reset. */
+    public void invalidate() {
+        m_valid = false;
+    }
+
+    /** Frames sent by this controller. */
+    public long getSent() {
+        return m_sent;
+    }
+
+    /** Repeats this controller skipped. */
+    public long getSuppressed() {
+        return m_suppressed;
+    }
+
+    public static long getTotalSent() {
+        return totalSent;
+    }
+
+    public static long getTotalSuppressed() {
+        return totalSuppressed;
+    }
+}
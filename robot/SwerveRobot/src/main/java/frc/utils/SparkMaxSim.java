@@ -0,0 +1,100 @@
+package frc.utils;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Simulation stand-in for a SPARK MAX's onboard control loop. REVLib does not
+ * simulate closed loop control, so the subsystem tells this class what it
+ * sent to the controller (duty cycle, position or velocity setpoint) and the
+ * simulation asks it for the voltage the controller would apply.
+ *
+ * Gains use the same units as the SPARK MAX (output fraction per encoder unit
+ * after the conversion factor), so the real constants can be passed straight
+ * through.
+ */
+public class SparkMaxSim {
+    private enum Mode {
+        DUTY_CYCLE, POSITION, VELOCITY
+    }
+
+    private double m_p;
+    private double m_ff;
+    private double m_minOutput;
+    private double m_maxOutput;
+
+    private boolean m_wrapping = false;
+    private double m_wrapMin;
+    private double m_wrapMax;
+
+    private Mode m_mode = Mode.DUTY_CYCLE;
+    private double m_setpoint = 0;
+    private double m_arbFFVolts = 0;
+
+    /**
+     * @param p         Proportional gain
+     * @param ff        Velocity feedforward gain, output per unit of setpoint
+     * @param minOutput Minimum output fraction
+     * @param maxOutput Maximum output fraction
+     */
+    public SparkMaxSim(double p, double ff, double minOutput, double maxOutput) {
+        setGains(p, ff, minOutput, maxOutput);
+    }
+
+    /** Matches the SPARK MAX's gains, e.g. when a different PID slot is used. */
+    public void setGains(double p, double ff, double minOutput, double maxOutput) {
+        m_p = p;
+        m_ff = ff;
+        m_minOutput = minOutput;
+        m_maxOutput = maxOutput;
+    }
+
+    /** Matches setPositionPIDWrappingEnabled and its min and max input. */
+    public void setPositionWrapping(double min, double max) {
+        m_wrapping = true;
+        m_wrapMin = min;
+        m_wrapMax = max;
+    }
+
+    public void setDutyCycle(double output) {
+        m_mode = Mode.DUTY_CYCLE;
+        m_setpoint = output;
+        m_arbFFVolts = 0;
+    }
+
+    public void setPosition(double setpoint, double arbFFVolts) {
+        m_mode = Mode.POSITION;
+        m_setpoint = setpoint;
+        m_arbFFVolts = arbFFVolts;
+    }
+
+    public void setVelocity(double setpoint) {
+        m_mode = Mode.VELOCITY;
+        m_setpoint = setpoint;
+        m_arbFFVolts = 0;
+    }
+
+    /**
+     * Returns the voltage the SPARK MAX would apply.
+     *
+     * @param position    Measured position, in encoder units
+     * @param velocity    Measured velocity, in encoder units
+     * @param busVoltage  Battery voltage
+     * @return The applied voltage
+     */
+    public double getVoltage(double position, double velocity, double busVoltage) {
+        switch (m_mode) {
+            case POSITION:
+                double error = m_setpoint - position;
+                if (m_wrapping) {
+                    double halfRange = (m_wrapMax - m_wrapMin) / 2;
+                    error = MathUtil.inputModulus(error, -halfRange, halfRange);
+                }
+                return MathUtil.clamp(m_p * error, m_minOutput, m_maxOutput) * busVoltage + m_arbFFVolts;
+            case VELOCITY:
+                return MathUtil.clamp(m_ff * m_setpoint + m_p * (m_setpoint - velocity), m_minOutput, m_maxOutput)
+                        * busVoltage;
+            default:
+                return MathUtil.clamp(m_setpoint, -1, 1) * busVoltage;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package frc.utils;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Slew rate limiting of swerve driver input. The translation is limited in
+ * polar form (direction and magnitude) so the lateral acceleration stays
+ * bounded, and the rotation is limited separately.
+ *
+ * The caller supplies the timestamp, so this class has no JNI dependencies and
+ * can run off-robot.
+ */
+public class SwerveSlewLimiter {
+    private final double m_directionSlewRate;
+    private final double m_magnitudeSlewRate;
+    private final double m_rotationalSlewRate;
+
+    private double m_currentTranslationDir = 0.0;
+    private double m_currentTranslationMag = 0.0;
+    private double m_currentRotation = 0.0;
+    private double m_prevTime;
+
+    /**
+     * @param directionSlewRate  Direction slew rate (radians per second)
+     * @param magnitudeSlewRate  Magnitude slew rate (percent per second, 1 = 100%)
+     * @param rotationalSlewRate Rotational slew rate (percent per second, 1 = 100%)
+     * @param startTime          Timestamp (seconds) to measure the first step from
+     */
+    public SwerveSlewLimiter(double directionSlewRate, double magnitudeSlewRate, double rotationalSlewRate,
+            double startTime) {
+        m_directionSlewRate = directionSlewRate;
+        m_magnitudeSlewRate = magnitudeSlewRate;
+        m_rotationalSlewRate = rotationalSlewRate;
+        m_prevTime = startTime;
+    }
+
+    /**
+     * Steps the limited translation and rotation towards the given input.
+     * Read the results with {@link #getXSpeed()}, {@link #getYSpeed()} and
+     * {@link #getRotation()}.
+     *
+     * @param xSpeed      Requested x speed (-1 to 1)
+     * @param ySpeed      Requested y speed (-1 to 1)
+     * @param rot         Requested rotation (-1 to 1)
+     * @param currentTime The current timestamp in seconds
+     */
+    public void calculate(double xSpeed, double ySpeed, double rot, double currentTime) {
+        // Convert XY to polar for rate limiting
+        double inputTranslationDir = Math.atan2(ySpeed, xSpeed);
+        double inputTranslationMag = Math.sqrt(xSpeed * xSpeed + ySpeed * ySpeed);
+
+        // Calculate the direction slew rate based on an estimate of the lateral
+        // acceleration
+        double directionSlewRate;
+        if (m_currentTranslationMag != 0.0) {
+            directionSlewRate = Math.abs(m_directionSlewRate / m_currentTranslationMag);
+        } else {
+            directionSlewRate = 500.0; // some high number that means the slew rate is effectively instantaneous
+        }
+
+        double elapsedTime = currentTime - m_prevTime;
+        double angleDif = SwerveUtils.AngleDifference(inputTranslationDir, m_currentTranslationDir);
+        if (angleDif < 0.45 * Math.PI) {
+            m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir,
+                    directionSlewRate * elapsedTime);
+            m_currentTranslationMag = step(m_currentTranslationMag, inputTranslationMag, m_magnitudeSlewRate,
+                    elapsedTime);
+        } else if (angleDif > 0.85 * Math.PI) {
+            if (m_currentTranslationMag > 1e-4) { // some small number to avoid floating-point errors with equality
+                                                  // checking
+                // keep currentTranslationDir unchanged
+                m_currentTranslationMag = step(m_currentTranslationMag, 0.0, m_magnitudeSlewRate, elapsedTime);
+            } else {
+                m_currentTranslationDir = SwerveUtils.WrapAngle(m_currentTranslationDir + Math.PI);
+                m_currentTranslationMag = step(m_currentTranslationMag, inputTranslationMag, m_magnitudeSlewRate,
+                        elapsedTime);
+            }
+        } else {
+            m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir,
+                    directionSlewRate * elapsedTime);
+            m_currentTranslationMag = step(m_currentTranslationMag, 0.0, m_magnitudeSlewRate, elapsedTime);
+        }
+        m_currentRotation = step(m_currentRotation, rot, m_rotationalSlewRate, elapsedTime);
+        m_prevTime = currentTime;
+    }
+
+    /** @return The limited x speed (-1 to 1) */
+    public double getXSpeed() {
+        return m_currentTranslationMag * Math.cos(m_currentTranslationDir);
+    }
+
+    /** @return The limited y speed (-1 to 1) */
+    public double getYSpeed() {
+        return m_currentTranslationMag * Math.sin(m_currentTranslationDir);
+    }
+
+    /** @return The limited rotation (-1 to 1) */
+    public double getRotation() {
+        return m_currentRotation;
+    }
+
+    // Same step as edu.wpi.first.math.filter.SlewRateLimiter, without reading the
+    // clock
+    private static double step(double current, double input, double rateLimit, double elapsedTime) {
+        return current + MathUtil.clamp(input - current, -rateLimit * elapsedTime, rateLimit * elapsedTime);
+    }
+}
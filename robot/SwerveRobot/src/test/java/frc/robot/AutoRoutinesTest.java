@@ -0,0 +1,84 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.subsystems.DriveSubsystem;
+
+/**
+ * Runs every auto routine in the chooser against the desktop physics models,
+ * as fast as the CPU allows. The simulated clock is paused and stepped 20 ms
+ * at a time, so a 15 s auto takes well under a second of wall time.
+ *
+ * Each routine must finish inside the auto period. How far the robot ended
+ * from the end of the last trajectory it drove is printed for tuning.
+ */
+class AutoRoutinesTest {
+  @BeforeAll
+  static void setUp() {
+    SimRobot.start();
+  }
+
+  static Stream<String> routines() {
+    return SimRobot.container().getAutoRoutines().keySet().stream();
+  }
+
+  @AfterEach
+  void cancelAll() {
+    CommandScheduler.getInstance().cancelAll();
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("routines")
+  void finishesInAutoPeriod(String name) {
+    Command routine = SimRobot.container().getAutoRoutines().get(name);
+    DriveSubsystem drive = SimRobot.container().getRobotDrive();
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    scheduler.cancelAll();
+    drive.zeroHeading();
+    drive.resetOdometry(new Pose2d());
+    drive.setTrajectoryGoal(null);
+
+    double start = Timer.getFPGATimestamp();
+    scheduler.schedule(routine);
+    double elapsed = 0;
+    while (scheduler.isScheduled(routine) && elapsed < AutoConstants.kAutoSimTimeoutSeconds) {
+      SimHooks.stepTiming(TimedRobot.kDefaultPeriod);
+      DriverStation.refreshData();
+      RobotLoop.getInstance().readInputs();
+      scheduler.run();
+      RobotLoop.getInstance().flushOutputs();
+      elapsed = Timer.getFPGATimestamp() - start;
+    }
+    boolean finished = !scheduler.isScheduled(routine);
+
+    Pose2d goal = drive.getTrajectoryGoal();
+    if (goal != null) {
+      Pose2d error = drive.getPose().relativeTo(goal);
+      System.out.printf("%s: %.2f s, end error x %.3f m, y %.3f m, %.1f deg%n", name, elapsed,
+          error.getX(), error.getY(), error.getRotation().getDegrees());
+    }
+
+    assertTrue(finished, name + " did not finish in " + AutoConstants.kAutoSimTimeoutSeconds + " s");
+    assertTrue(elapsed <= AutoConstants.kAutoDurationSeconds,
+        String.format("%s took %.2f s, longer than the auto period", name, elapsed));
+  }
+}
@@ -0,0 +1,43 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+
+/**
+ * The simulated robot shared by the tests. The subsystems own simulated CAN
+ * devices, which can only be created once per JVM, so every test class uses
+ * the same container.
+ */
+public final class SimRobot {
+  private static RobotContainer container;
+
+  private SimRobot() {
+  }
+
+  /**
+   * Starts the simulator with the clock paused and the robot enabled in auto.
+   * Safe to call more than once.
+   */
+  public static void start() {
+    assertTrue(HAL.initialize(500, 0));
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAutonomous(true);
+    DriverStationSim.setEnabled(true);
+    DriverStationSim.notifyNewData();
+  }
+
+  public static RobotContainer container() {
+    if (container == null) {
+      container = new RobotContainer();
+    }
+    return container;
+  }
+}
@@ -0,0 +1,145 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.AutoConstants;
+
+/**
+ * Parses the deployed path and a path with headings, markers and a stop point,
+ * and checks the sampled curve against the Bezier control points.
+ */
+class PathPlannerPathTest {
+  private static final double kEpsilon = 1e-6;
+
+  // Three waypoints, turning to 90 degrees at a stop point in the middle and to
+  // 180 at the end. Markers halfway through each segment.
+  private static final String kStopPath = "{\"waypoints\": ["
+      + "{\"anchorPoint\": {\"x\": 0, \"y\": 0}, \"prevControl\": null,"
+      + " \"nextControl\": {\"x\": 1, \"y\": 0}, \"holonomicAngle\": 0},"
+      + "{\"anchorPoint\": {\"x\": 2, \"y\": 2}, \"prevControl\": {\"x\": 2, \"y\": 1},"
+      + " \"nextControl\": {\"x\": 2, \"y\": 3}, \"holonomicAngle\": 90, \"isStopPoint\": true,"
+      + " \"stopEvent\": {\"names\": [\"intake\"], \"executionBehavior\": \"sequential\","
+      + " \"waitBehavior\": \"after\", \"waitTime\": 0.5}},"
+      + "{\"anchorPoint\": {\"x\": 0, \"y\": 4}, \"prevControl\": {\"x\": 1, \"y\": 4},"
+      + " \"nextControl\": null, \"holonomicAngle\": 180}],"
+      + " \"markers\": [{\"position\": 0.5, \"names\": [\"travel\"]},"
+      + " {\"position\": 1.5, \"names\": [\"intake\", \"travel\"]}]}";
+
+  @TempDir
+  Path m_directory;
+
+  @Test
+  void deployedPathFollowsItsWaypoints() throws IOException {
+    Path file = Filesystem.getDeployDirectory().toPath().resolve("pathplanner").resolve("New Path.path");
+    PathPlannerPath path = parse(file);
+    Trajectory trajectory = path.getTrajectory();
+    List<Trajectory.State> states = trajectory.getStates();
+
+    assertEquals("New Path", path.getName());
+    Translation2d start = new Translation2d(5.8474614501312345, 4.743473377571755);
+    Translation2d startControl = new Translation2d(6.745347072291371, 4.7511277887139105);
+    Translation2d endControl = new Translation2d(1.8034388846555478, 5.1158720772302635);
+    Translation2d end = new Translation2d(2.6335945658002426, 5.0080144656817085);
+    assertNear(start, path.getInitialHolonomicPose().getTranslation());
+    assertNear(end, states.get(states.size() - 1).poseMeters.getTranslation());
+    assertNear(bezier(start, startControl, endControl, end, 0.5), states.get(50).poseMeters.getTranslation());
+
+    // Both waypoints face 0 degrees
+    assertEquals(0, path.getInitialHolonomicPose().getRotation().getDegrees(), kEpsilon);
+    assertEquals(0, path.getHolonomicRotation(path.getTotalTimeSeconds() / 2).getDegrees(), kEpsilon);
+    assertEquals(0, path.getHolonomicRotation(path.getTotalTimeSeconds()).getDegrees(), kEpsilon);
+
+    assertTrue(path.getMarkers().isEmpty());
+    assertTrue(path.getStopEvents().isEmpty());
+    assertEquals(0, states.get(0).velocityMetersPerSecond, kEpsilon);
+    assertEquals(0, states.get(states.size() - 1).velocityMetersPerSecond, kEpsilon);
+  }
+
+  @Test
+  void stopPointSplitsThePath() throws IOException {
+    PathPlannerPath path = parse(write(kStopPath));
+    Trajectory trajectory = path.getTrajectory();
+    List<Trajectory.State> states = trajectory.getStates();
+
+    // One state per sample, with the shared anchor sampled once
+    assertEquals(201, states.size());
+
+    assertEquals(1, path.getStopEvents().size());
+    PathPlannerPath.StopEvent stop = path.getStopEvents().get(0);
+    assertEquals(List.of("intake"), stop.names);
+    assertEquals("sequential", stop.executionBehavior);
+    assertEquals("after", stop.waitBehavior);
+    assertEquals(0.5, stop.waitTimeSeconds, kEpsilon);
+
+    // The robot is at the middle anchor, stopped, facing its heading
+    Trajectory.State atStop = trajectory.sample(stop.timeSeconds);
+    assertNear(new Translation2d(2, 2), atStop.poseMeters.getTranslation());
+    assertEquals(0, atStop.velocityMetersPerSecond, kEpsilon);
+    assertEquals(stop.timeSeconds, states.get(100).timeSeconds, kEpsilon);
+    assertEquals(90, path.getHolonomicRotation(stop.timeSeconds).getDegrees(), kEpsilon);
+    assertEquals(180, path.getHolonomicRotation(path.getTotalTimeSeconds()).getDegrees(), kEpsilon);
+  }
+
+  @Test
+  void markersAreTimedAtTheirWaypointPosition() throws IOException {
+    PathPlannerPath path = parse(write(kStopPath));
+    Trajectory trajectory = path.getTrajectory();
+    double stopTime = path.getStopEvents().get(0).timeSeconds;
+
+    assertEquals(2, path.getMarkers().size());
+    PathPlannerPath.Marker first = path.getMarkers().get(0);
+    PathPlannerPath.Marker second = path.getMarkers().get(1);
+    assertEquals(List.of("travel"), first.names);
+    assertEquals(List.of("intake", "travel"), second.names);
+    assertTrue(first.timeSeconds > 0 && first.timeSeconds < stopTime);
+    assertTrue(second.timeSeconds > stopTime && second.timeSeconds < path.getTotalTimeSeconds());
+
+    // Halfway along each segment's curve
+    Translation2d firstPoint = bezier(new Translation2d(0, 0), new Translation2d(1, 0),
+        new Translation2d(2, 1), new Translation2d(2, 2), 0.5);
+    Translation2d secondPoint = bezier(new Translation2d(2, 2), new Translation2d(2, 3),
+        new Translation2d(1, 4), new Translation2d(0, 4), 0.5);
+    assertNear(firstPoint, trajectory.sample(first.timeSeconds).poseMeters.getTranslation());
+    assertNear(secondPoint, trajectory.sample(second.timeSeconds).poseMeters.getTranslation());
+    assertEquals(45, path.getHolonomicRotation(first.timeSeconds).getDegrees(), kEpsilon);
+    assertEquals(135, path.getHolonomicRotation(second.timeSeconds).getDegrees(), kEpsilon);
+  }
+
+  private static PathPlannerPath parse(Path file) throws IOException {
+    return PathPlannerPath.fromFile(file, AutoConstants.kMaxSpeedMetersPerSecond,
+        AutoConstants.kMaxAccelerationMetersPerSecondSquared);
+  }
+
+  private Path write(String json) throws IOException {
+    Path file = m_directory.resolve("Stop Path.path");
+    Files.writeString(file, json);
+    return file;
+  }
+
+  private static Translation2d bezier(Translation2d p0, Translation2d p1, Translation2d p2, Translation2d p3,
+      double t) {
+    double u = 1 - t;
+    return p0.times(u * u * u).plus(p1.times(3 * u * u * t)).plus(p2.times(3 * u * t * t)).plus(p3.times(t * t * t));
+  }
+
+  private static void assertNear(Translation2d expected, Translation2d actual) {
+    assertEquals(expected.getX(), actual.getX(), kEpsilon, "x");
+    assertEquals(expected.getY(), actual.getY(), kEpsilon, "y");
+  }
+}
@@ -0,0 +1,98 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.OIConstants;
+import frc.robot.RobotLoop;
+import frc.robot.SimRobot;
+
+/**
+ * Checks that a steady state teleop loop allocates nothing on the main
+ * thread: the input stage, the scheduler with every subsystem's periodic()
+ * and the default drive command, and the output stage. Garbage made every
+ * 20 ms shows up as GC pauses in the loop timing.
+ *
+ * The sticks move every loop and the clock advances, so the slew limiter
+ * runs and setpoints are sent, not only suppressed. Only the loop stages are
+ * measured, not the simulator calls that set up each loop. The odometry thread
+ * and the simulated physics run off the main loop and are not covered.
+ */
+class DriveAllocationTest {
+  private static final int kTicks = 5_000;
+
+  private final ThreadMXBean m_threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final long m_thread = Thread.currentThread().getId();
+
+  @BeforeAll
+  static void setUp() {
+    SimRobot.start();
+    DriverStationSim.setJoystickAxisCount(OIConstants.kDriverControllerPort, 6);
+    DriverStationSim.setAutonomous(false);
+    DriverStationSim.setEnabled(true);
+    DriverStationSim.notifyNewData();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    CommandScheduler.getInstance().cancelAll();
+    SimRobot.start();
+  }
+
+  @Test
+  void teleopLoopDoesNotAllocate() {
+    assumeTrue(m_threads.isThreadAllocatedMemorySupported());
+    m_threads.setThreadAllocatedMemoryEnabled(true);
+    SimRobot.container();
+
+    // Warm up, so class loading and JIT compilation are not counted
+    for (int i = 0; i < kTicks; i++) {
+      tick(i);
+    }
+
+    long allocated = 0;
+    for (int i = 0; i < kTicks; i++) {
+      allocated += tick(kTicks + i);
+    }
+
+    assertEquals(0, allocated, "bytes allocated over " + kTicks + " teleop loops");
+  }
+
+  // Moves the sticks, steps the clock and runs one robot loop, returning the
+  // bytes the loop itself allocated
+  private long tick(int i) {
+    int port = OIConstants.kDriverControllerPort;
+    double phase = i * 0.05;
+    DriverStationSim.setJoystickAxis(port, XboxController.Axis.kLeftY.value, 0.8 * Math.sin(phase));
+    DriverStationSim.setJoystickAxis(port, XboxController.Axis.kLeftX.value, 0.8 * Math.cos(phase));
+    DriverStationSim.setJoystickAxis(port, XboxController.Axis.kRightX.value, 0.5 * Math.sin(phase * 0.3));
+    DriverStationSim.setJoystickAxis(port, XboxController.Axis.kRightTrigger.value, 0.5 + 0.5 * Math.sin(phase * 0.7));
+    DriverStationSim.notifyNewData();
+    SimHooks.stepTiming(TimedRobot.kDefaultPeriod);
+    DriverStation.refreshData();
+
+    long before = m_threads.getThreadAllocatedBytes(m_thread);
+    RobotLoop.getInstance().readInputs();
+    CommandScheduler.getInstance().run();
+    RobotLoop.getInstance().flushOutputs();
+    return m_threads.getThreadAllocatedBytes(m_thread) - before;
+  }
+}
@@ -0,0 +1,66 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.ExtensionConstants;
+import frc.robot.Constants.SetpointConstants;
+import frc.robot.RobotLoop;
+import frc.robot.SimRobot;
+import frc.utils.SparkMaxSetpoint;
+
+/**
+ * Holding the extension at the intake position, the goal is set again every
+ * loop. Only the keep alive repeats should reach the CAN bus.
+ */
+class ExtensionHoldTest {
+  private static final double kMoveSeconds = 5;
+  private static final double kHoldSeconds = 2;
+
+  @BeforeAll
+  static void setUp() {
+    SimRobot.start();
+  }
+
+  @Test
+  void holdingAtIntakeOnlySendsKeepAlives() {
+    Extension extension = SimRobot.container().getExtension();
+    SparkMaxSetpoint setpoint = extension.getSetpoint();
+
+    run(extension, kMoveSeconds);
+    long sent = setpoint.getSent();
+    long suppressed = setpoint.getSuppressed();
+    int ticks = run(extension, kHoldSeconds);
+
+    long keepAlives = (long) Math.ceil(kHoldSeconds / SetpointConstants.kKeepAliveSeconds);
+    long holdSent = setpoint.getSent() - sent;
+    long holdSuppressed = setpoint.getSuppressed() - suppressed;
+    assertTrue(holdSent <= keepAlives, holdSent + " frames sent while holding");
+    assertTrue(holdSuppressed >= ticks - keepAlives, holdSuppressed + " of " + ticks + " repeats suppressed");
+  }
+
+  // Steps the robot loop, setting the intake goal every loop like
+  // Altitude.enforceSafeExtensions does
+  private static int run(Extension extension, double seconds) {
+    int ticks = (int) Math.round(seconds / TimedRobot.kDefaultPeriod);
+    for (int i = 0; i < ticks; i++) {
+      SimHooks.stepTiming(TimedRobot.kDefaultPeriod);
+      DriverStation.refreshData();
+      RobotLoop.getInstance().readInputs();
+      extension.keepPositionInches(ExtensionConstants.kExtensionPositionInchesIntakeOut);
+      CommandScheduler.getInstance().run();
+      RobotLoop.getInstance().flushOutputs();
+    }
+    return ticks;
+  }
+}
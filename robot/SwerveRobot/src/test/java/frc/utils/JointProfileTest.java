@@ -0,0 +1,62 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.State;
+
+class JointProfileTest {
+    private static final double kPeriod = 0.02;
+    // Where the joint settles below the setpoint, like a P-only loop under load
+    private static final double kSag = 0.05;
+
+    private final JointProfile m_profile = new JointProfile(new Constraints(1, 2), kPeriod);
+
+    @Test
+    void holdsTheGoalWhenSetEveryLoop() {
+        double position = 0;
+        for (int i = 0; i < 500; i++) {
+            m_profile.setGoal(1, position);
+            State setpoint = m_profile.step();
+            position = setpoint.position - kSag;
+        }
+
+        // Measurements do not drag the held setpoint with them
+        for (int i = 0; i < 50; i++) {
+            assertFalse(m_profile.setGoal(1, position));
+            State setpoint = m_profile.step();
+            assertEquals(1, setpoint.position);
+            assertEquals(0, setpoint.velocity);
+            position = setpoint.position - kSag;
+        }
+    }
+
+    @Test
+    void newGoalStartsFromTheMeasuredPosition() {
+        assertTrue(m_profile.setGoal(1, 0));
+        for (int i = 0; i < 500; i++) {
+            m_profile.step();
+        }
+
+        assertTrue(m_profile.setGoal(0, 0.9));
+        assertEquals(0.9, m_profile.step().position, 0.01);
+    }
+
+    @Test
+    void newDurationStartsANewMove() {
+        assertTrue(m_profile.setGoal(1, 0));
+        assertFalse(m_profile.setGoal(1, 0));
+        assertTrue(m_profile.setGoal(1, 0, 5));
+    }
+
+    @Test
+    void stopThenSameGoalStartsANewMove() {
+        assertTrue(m_profile.setGoal(1, 0));
+        m_profile.stop();
+        assertTrue(m_profile.setGoal(1, 0));
+    }
+}